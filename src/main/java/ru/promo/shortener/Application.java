@@ -1,45 +1,310 @@
 package ru.promo.shortener;
 
+import ru.promo.shortener.cli.BatchRunner;
 import ru.promo.shortener.cli.ConsoleCli;
 import ru.promo.shortener.config.ApplicationConfig;
 import ru.promo.shortener.config.ApplicationConfigLoader;
+import ru.promo.shortener.core.service.AdmissionControl;
 import ru.promo.shortener.core.service.ExpiredLinkCleaner;
+import ru.promo.shortener.core.service.OperationEvents;
+import ru.promo.shortener.core.service.OwnerCounters;
 import ru.promo.shortener.core.service.ShortKeyGenerator;
 import ru.promo.shortener.core.service.ShortLinkRepository;
 import ru.promo.shortener.core.service.ShortLinkService;
-import ru.promo.shortener.core.user.UserIdentityProvider;
+import ru.promo.shortener.core.service.UrlCodec;
+import ru.promo.shortener.infra.AimdAdmissionController;
+import ru.promo.shortener.infra.ColumnarShortLinkRepository;
+import ru.promo.shortener.infra.DeferredShortKeyGenerator;
 import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+import ru.promo.shortener.infra.KeyedLaneExecutor;
+import ru.promo.shortener.infra.LeasedKeyAllocator;
 import ru.promo.shortener.infra.RandomShortKeyGenerator;
+import ru.promo.shortener.infra.WriteBehindClickRepository;
+import ru.promo.shortener.infra.jfr.JfrOperationEvents;
+import ru.promo.shortener.infra.snapshot.BinarySnapshotStore;
+import ru.promo.shortener.infra.traffic.BinaryTrafficLog;
+import ru.promo.shortener.infra.url.PrefixDictionaryUrlCodec;
 import ru.promo.shortener.infra.user.FileUserIdentityProvider;
+import ru.promo.shortener.infra.user.FileUserRegistry;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class Application {
 
+    // снимок, пользователи, API-ключи и засев генератора
+    private static final int STARTUP_THREADS = 4;
+
     public static void main(String[] args) {
         ApplicationConfig config = ApplicationConfigLoader.load();
 
-        ShortLinkRepository repo = new InMemoryShortLinkRepository();
-        ShortKeyGenerator generator = new RandomShortKeyGenerator();
-        ShortLinkService service = new ShortLinkService(repo, generator, config);
+        OperationEvents events = config.jfrEventsEnabled ? new JfrOperationEvents() : OperationEvents.NONE;
+        ShortLinkRepository store = repository(config.repositoryLayout);
+        WriteBehindClickRepository writeBehind = config.clicksFlushIntervalMillis > 0
+                ? new WriteBehindClickRepository(store, events)
+                : null;
+        ShortLinkRepository repo = writeBehind != null ? writeBehind : store;
+        UrlCodec urlCodec = config.urlStemsMax > 0 || config.urlDeflateMinTail > 0
+                ? new PrefixDictionaryUrlCodec(config.urlStemsMax, config.urlDeflateMinTail)
+                : UrlCodec.PLAIN;
+        OwnerCounters ownerCounters = new OwnerCounters();
+        BinarySnapshotStore snapshot = config.snapshotPath.isEmpty()
+                ? null
+                : new BinarySnapshotStore(Path.of(config.snapshotPath), urlCodec, events);
+
+        // быстрый старт: загрузка снимка, пользователей и ключей идёт в фоне, пока собирается остальное;
+        // иначе те же задачи выполняются по очереди в основном потоке
+        ExecutorService startupPool = config.startupFast
+                ? Executors.newFixedThreadPool(STARTUP_THREADS, Application::startupThread)
+                : null;
+        Executor startup = startupPool != null ? startupPool : Runnable::run;
+
+        CompletableFuture<Void> snapshotLoaded = CompletableFuture.runAsync(() -> {
+            if (snapshot != null && snapshot.exists()) {
+                loadSnapshot(snapshot, repo, config.snapshotLoadThreads);
+                ownerCounters.recount(repo.findAll());
+            }
+        }, startup);
+        CompletableFuture<FileUserIdentityProvider> usersLoaded =
+                CompletableFuture.supplyAsync(FileUserIdentityProvider::new, startup);
+        CompletableFuture<FileUserRegistry> apiKeysLoaded =
+                CompletableFuture.supplyAsync(FileUserRegistry::new, startup);
 
-        UserIdentityProvider users = new FileUserIdentityProvider();
+        LeasedKeyAllocator keyAllocator = null;
+        BinaryTrafficLog trafficLog = null;
+        KeyedLaneExecutor lanes = null;
+        ShortLinkService service;
+        FileUserIdentityProvider users;
+        FileUserRegistry apiKeys;
+        boolean started = false;
+        try {
+            keyAllocator = config.keyLeasePath.isEmpty()
+                    ? null
+                    : new LeasedKeyAllocator(Path.of(config.keyLeasePath), config.initialKeyLength,
+                            Duration.ofSeconds(config.keyLeaseSeconds));
+            ShortKeyGenerator generator;
+            if (keyAllocator != null) {
+                generator = keyAllocator;
+            } else if (startupPool != null) {
+                // засев SecureRandom — в фоне; его ждёт только первое создание ссылки
+                generator = new DeferredShortKeyGenerator(Application::seededGenerator, startupPool);
+            } else {
+                generator = new RandomShortKeyGenerator();
+            }
+            trafficLog = config.trafficLogPath.isEmpty()
+                    ? null
+                    : openTrafficLog(config);
+            lanes = config.mutationLanes > 0 ? new KeyedLaneExecutor(config.mutationLanes) : null;
+            AdmissionControl admission = config.admissionLimitMax > 0
+                    ? new AimdAdmissionController(config.admissionLimitMax,
+                            Duration.ofMillis(config.admissionLatencyTargetMillis))
+                    : AdmissionControl.UNLIMITED;
+            ShortLinkService.Builder services = ShortLinkService.builder(repo, generator, config)
+                    .urlCodec(urlCodec)
+                    .ownerCounters(ownerCounters)
+                    .admission(admission)
+                    .events(events);
+            if (trafficLog != null) {
+                services.traffic(trafficLog);
+            }
+            if (lanes != null) {
+                services.mutations(lanes);
+            }
+            service = services.build();
+
+            await(snapshotLoaded);
+            users = await(usersLoaded);
+            apiKeys = await(apiKeysLoaded);
+            started = true;
+        } finally {
+            if (startupPool != null) {
+                // после успешного старта засев генератора, если ещё идёт, завершится, а новых задач не будет;
+                // после ошибки оставшиеся задачи старта не нужны
+                if (started) {
+                    startupPool.shutdown();
+                } else {
+                    startupPool.shutdownNow();
+                }
+            }
+            if (!started) {
+                // старт не удался: аренда блока ключей, журнал переходов и дорожки не должны пережить его;
+                // пользователи и API-ключи, загруженные к этому моменту, закрываются по готовности
+                usersLoaded.thenAccept(FileUserIdentityProvider::close);
+                apiKeysLoaded.thenAccept(FileUserRegistry::close);
+                if (lanes != null) {
+                    lanes.close();
+                }
+                if (trafficLog != null) {
+                    closeTrafficLog(trafficLog);
+                }
+                if (keyAllocator != null) {
+                    keyAllocator.close();
+                }
+            }
+        }
 
         ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        ExpiredLinkCleaner.Builder cleaner = ExpiredLinkCleaner.builder(repo)
+                .tombstoneRetention(Duration.ofSeconds(config.tombstoneRetentionSeconds))
+                .ownerCounters(ownerCounters)
+                .events(events);
+        if (lanes != null) {
+            cleaner.mutations(lanes);
+        }
         scheduler.scheduleAtFixedRate(
-                new ExpiredLinkCleaner(repo),
+                cleaner.build(),
                 config.cleanupIntervalSeconds,
                 config.cleanupIntervalSeconds,
                 TimeUnit.SECONDS
         );
+        if (keyAllocator != null) {
+            long renewSeconds = Math.max(1, config.keyLeaseSeconds / 3);
+            scheduler.scheduleWithFixedDelay(keyAllocator::renew, renewSeconds, renewSeconds, TimeUnit.SECONDS);
+        }
+        if (writeBehind != null) {
+            scheduler.scheduleWithFixedDelay(writeBehind::flush,
+                    config.clicksFlushIntervalMillis, config.clicksFlushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
 
         try {
-            new ConsoleCli(service, repo, users).run();
+            ConsoleCli cli = new ConsoleCli(service, users, apiKeys);
+            String script = option(args, "--script");
+            if (script == null) {
+                cli.run();
+            } else {
+                int workers = Integer.parseInt(Objects.requireNonNullElse(option(args, "--workers"),
+                        String.valueOf(Runtime.getRuntime().availableProcessors())));
+                runBatch(cli, script, workers);
+            }
         } finally {
             scheduler.shutdownNow();
+            if (lanes != null) {
+                lanes.close();
+            }
+            if (writeBehind != null) {
+                writeBehind.close();
+            }
+            if (keyAllocator != null) {
+                keyAllocator.close();
+            }
+            users.close();
+            apiKeys.close();
+            if (trafficLog != null) {
+                closeTrafficLog(trafficLog);
+            }
+            if (snapshot != null) {
+                writeSnapshot(snapshot, repo);
+            }
+        }
+    }
+
+    private static RandomShortKeyGenerator seededGenerator() {
+        RandomShortKeyGenerator generator = new RandomShortKeyGenerator();
+        // первый вызов засевает SecureRandom и загружает классы провайдера
+        generator.generate(1);
+        return generator;
+    }
+
+    private static Thread startupThread(Runnable task) {
+        Thread thread = new Thread(task, "startup");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    // результат задачи старта; ошибка задачи — как если бы она выполнялась в основном потоке
+    private static <T> T await(CompletableFuture<T> task) {
+        try {
+            return task.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static ShortLinkRepository repository(String layout) {
+        return switch (layout) {
+            case "indexed" -> new InMemoryShortLinkRepository();
+            case "columnar" -> new ColumnarShortLinkRepository();
+            default -> throw new IllegalArgumentException(
+                    "Unknown repository.layout: " + layout + ", expected indexed or columnar");
+        };
+    }
+
+    // Пакетный режим: --script <file> или --script - (stdin)
+    private static void runBatch(ConsoleCli cli, String script, int workers) {
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        try (BufferedReader in = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8)) {
+            new BatchRunner(cli, workers).run(in, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to run script: " + script, e);
+        }
+    }
+
+    private static String option(String[] args, String name) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static BinaryTrafficLog openTrafficLog(ApplicationConfig config) {
+        try {
+            return new BinaryTrafficLog(Path.of(config.trafficLogPath), config.trafficLogBuffer);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open traffic log", e);
+        }
+    }
+
+    private static void closeTrafficLog(BinaryTrafficLog trafficLog) {
+        try {
+            trafficLog.close();
+            if (trafficLog.failure() != null) {
+                System.out.println("Traffic log stopped after write error: " + trafficLog.failure().getMessage()
+                        + ", dropped " + trafficLog.dropped() + " events");
+            } else if (trafficLog.dropped() > 0) {
+                System.out.println("Traffic log dropped " + trafficLog.dropped() + " events (buffer full)");
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to close traffic log: " + e.getMessage());
+        }
+    }
+
+    private static void loadSnapshot(BinarySnapshotStore snapshot, ShortLinkRepository repo, int threads) {
+        long started = System.nanoTime();
+        try {
+            int loaded = snapshot.load(repo, threads);
+            System.out.printf("Loaded %d links from snapshot in %d ms%n",
+                    loaded, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            // не стартуем с пустым хранилищем: при выходе оно перезаписало бы снимок
+            throw new IllegalStateException("Failed to load snapshot", e);
+        }
+    }
+
+    private static void writeSnapshot(BinarySnapshotStore snapshot, ShortLinkRepository repo) {
+        try {
+            snapshot.write(repo);
+        } catch (IOException e) {
+            System.out.println("Failed to write snapshot: " + e.getMessage());
         }
     }
 }
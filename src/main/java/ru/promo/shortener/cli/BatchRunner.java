@@ -0,0 +1,218 @@
+package ru.promo.shortener.cli;
+
+import ru.promo.shortener.core.service.exceptions.AccessDeniedException;
+import ru.promo.shortener.core.user.Session;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пакетный режим CLI: команды читаются потоково из скрипта или stdin и выполняются на пуле потоков.
+ *
+ * Порядок и зависимости:
+ * - команды над одним shortKey (open, set-limit, delete) выполняются строго последовательно;
+ * - create независимы друг от друга;
+ * - команды пользователей, пакетные команды владельца (delete-all, set-limit-all, extend-all),
+ *   list/list-all, help и неизвестные — барьеры: ждут завершения всех предыдущих.
+ * Вывод каждой команды буферизуется и пишется в исходном порядке через буферизованный writer.
+ *
+ * Владелец команды берётся из сессии скрипта (пользователь user.uuid, меняется командами пользователей
+ * и login) или из префикса строки "@&lt;apiKey&gt; команда": такая строка выполняется от имени владельца
+ * ключа, не меняя сессию скрипта, так что один скрипт может вести запросы многих клиентов.
+ */
+public class BatchRunner {
+
+    // сколько команд может быть в полёте на один поток пула
+    private static final int IN_FLIGHT_PER_WORKER = 256;
+
+    private final ConsoleCli cli;
+    private final int workers;
+
+    public BatchRunner(ConsoleCli cli, int workers) {
+        this.cli = Objects.requireNonNull(cli, "cli");
+        if (workers <= 0) throw new IllegalArgumentException("workers must be positive");
+        this.workers = workers;
+    }
+
+    public Summary run(BufferedReader in, Writer output) throws IOException {
+        PrintWriter out = new PrintWriter(output, false);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+
+        ArrayDeque<CompletableFuture<String>> pending = new ArrayDeque<>();
+        Map<String, CompletableFuture<String>> lastByKey = new HashMap<>();
+        int maxInFlight = workers * IN_FLIGHT_PER_WORKER;
+
+        LatencyRecorder latencies = new LatencyRecorder();
+        AtomicLong failed = new AtomicLong();
+        long started = System.nanoTime();
+        Session session = cli.defaultSession();
+        long rejected = 0;   // строки с неизвестным API-ключом: ошибка без выполнения
+
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                String[] words = line.split("\\s+");
+                Session requestSession = session;
+                if (words[0].startsWith("@")) {
+                    try {
+                        requestSession = cli.openSession(words[0].substring(1));
+                    } catch (AccessDeniedException e) {
+                        pending.addLast(CompletableFuture.completedFuture("Access denied: " + e.getMessage()
+                                + System.lineSeparator()));
+                        failed.incrementAndGet();
+                        rejected++;
+                        continue;
+                    }
+                    words = Arrays.copyOfRange(words, 1, words.length);
+                    if (words.length == 0) continue;
+                }
+                String[] parts = words;
+                String cmd = parts[0].toLowerCase();
+                if (cmd.equals("exit")) break;
+
+                if (isBarrier(cmd)) {
+                    drain(pending, out, true);
+                    lastByKey.clear();
+                    out.print(execute(cmd, parts, requestSession, latencies, failed));
+                    continue;
+                }
+
+                // владелец фиксируется при разборе: смена пользователя сессии — барьер
+                Session owner = new Session(requestSession.ownerUuid());
+                String key = keyOf(cmd, parts);
+
+                CompletableFuture<String> previous = key == null ? null : lastByKey.get(key);
+                CompletableFuture<String> task = previous == null
+                        ? CompletableFuture.supplyAsync(() -> execute(cmd, parts, owner, latencies, failed), pool)
+                        : previous.thenApplyAsync(ignored -> execute(cmd, parts, owner, latencies, failed), pool);
+                if (key != null) {
+                    lastByKey.put(key, task);
+                }
+                pending.addLast(task);
+
+                drain(pending, out, false);
+                if (pending.size() >= maxInFlight) {
+                    out.print(pending.removeFirst().join());
+                }
+                if (lastByKey.size() >= maxInFlight * 4) {
+                    drain(pending, out, true);
+                    lastByKey.clear();
+                }
+            }
+            drain(pending, out, true);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Summary summary = new Summary(latencies.count() + rejected, failed.get(), System.nanoTime() - started, latencies);
+        out.println(summary);
+        out.flush();
+        return summary;
+    }
+
+    private String execute(String cmd, String[] parts, Session owner, LatencyRecorder latencies, AtomicLong failed) {
+        StringWriter buffer = new StringWriter();
+        long start = System.nanoTime();
+        boolean ok = cli.execute(cmd, parts, owner, new PrintWriter(buffer), false);
+        latencies.record(System.nanoTime() - start);
+        if (!ok) {
+            failed.incrementAndGet();
+        }
+        return buffer.toString();
+    }
+
+    // выводит готовые результаты с головы очереди (или все, если all)
+    private static void drain(ArrayDeque<CompletableFuture<String>> pending, PrintWriter out, boolean all) {
+        while (!pending.isEmpty() && (all || pending.peekFirst().isDone())) {
+            out.print(pending.removeFirst().join());
+        }
+    }
+
+    static boolean isBarrier(String cmd) {
+        return switch (cmd) {
+            case "create", "open", "set-limit", "delete" -> false;
+            default -> true;
+        };
+    }
+
+    static String keyOf(String cmd, String[] parts) {
+        return switch (cmd) {
+            case "open", "set-limit", "delete" -> parts.length > 1 ? parts[1] : null;
+            default -> null;
+        };
+    }
+
+    // ---------------- статистика ----------------
+
+    static final class LatencyRecorder {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        synchronized int count() {
+            return size;
+        }
+
+        synchronized long percentile(double p) {
+            if (size == 0) return 0;
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(p / 100.0 * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, index))];
+        }
+    }
+
+    public static final class Summary {
+        private final long commands;
+        private final long failed;
+        private final long elapsedNanos;
+        private final long p50;
+        private final long p99;
+        private final long max;
+
+        Summary(long commands, long failed, long elapsedNanos, LatencyRecorder latencies) {
+            this.commands = commands;
+            this.failed = failed;
+            this.elapsedNanos = elapsedNanos;
+            this.p50 = latencies.percentile(50);
+            this.p99 = latencies.percentile(99);
+            this.max = latencies.percentile(100);
+        }
+
+        public long commands() { return commands; }
+        public long failed() { return failed; }
+
+        public double throughputPerSecond() {
+            return elapsedNanos == 0 ? 0 : commands * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "=== Batch summary: %d commands (%d failed) in %.1f ms, %.0f cmd/s, latency p50=%.1f us p99=%.1f us max=%.1f us",
+                    commands, failed, elapsedNanos / 1e6, throughputPerSecond(),
+                    p50 / 1e3, p99 / 1e3, max / 1e3);
+        }
+    }
+}
@@ -2,33 +2,43 @@ package ru.promo.shortener.cli;
 
 import ru.promo.shortener.core.model.ShortLink;
 import ru.promo.shortener.core.model.LinkStatus;
-import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.core.service.OwnerStats;
 import ru.promo.shortener.core.service.ShortLinkService;
 import ru.promo.shortener.core.service.exceptions.AccessDeniedException;
 import ru.promo.shortener.core.service.exceptions.NotFoundException;
+import ru.promo.shortener.core.service.exceptions.OverloadedException;
 import ru.promo.shortener.core.service.exceptions.ValidationException;
+import ru.promo.shortener.core.user.Session;
 import ru.promo.shortener.core.user.UserIdentityProvider;
+import ru.promo.shortener.core.user.UserRegistry;
 
 import java.awt.Desktop;
+import java.io.PrintWriter;
 import java.net.URI;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Scanner;
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
 public class ConsoleCli {
 
     private final ShortLinkService service;
-    private final ShortLinkRepository repository;
     private final UserIdentityProvider users;
+    private final UserRegistry registry;
 
     public ConsoleCli(ShortLinkService service,
-                      ShortLinkRepository repository,
                       UserIdentityProvider users) {
+        this(service, users, UserRegistry.NONE);
+    }
+
+    public ConsoleCli(ShortLinkService service,
+                      UserIdentityProvider users,
+                      UserRegistry registry) {
         this.service = service;
-        this.repository = repository;
         this.users = users;
+        this.registry = registry;
     }
 
     private static final DateTimeFormatter TIME_FORMAT =
@@ -45,13 +55,16 @@ public class ConsoleCli {
     }
 
     public void run() {
-        System.out.println("=== Link Shortener CLI ===");
-        System.out.println("Current user: " + users.getCurrentUserUuid());
-        System.out.println("Type 'help' for commands.");
+        PrintWriter out = new PrintWriter(System.out, true);
+        Session session = defaultSession();
+        out.println("=== Link Shortener CLI ===");
+        out.println("Current user: " + session.ownerUuid());
+        out.println("Type 'help' for commands.");
 
         try (Scanner scanner = new Scanner(System.in)) {
             while (true) {
-                System.out.print("> ");
+                out.print("> ");
+                out.flush();
                 String line = scanner.nextLine().trim();
                 if (line.isEmpty()) continue;
 
@@ -59,78 +72,124 @@ public class ConsoleCli {
                 String cmd = parts[0].toLowerCase();
 
                 if (cmd.equals("exit")) {
-                    System.out.println("Bye!");
+                    out.println("Bye!");
                     return;
                 }
 
-                if (cmd.equals("help")) {
-                    printHelp();
-                    continue;
-                }
-
-                try {
-                    dispatch(cmd, parts);
-                } catch (ValidationException e) {
-                    System.out.println("Input error: " + e.getMessage());
-                } catch (NotFoundException e) {
-                    System.out.println("Not found: " + e.getMessage());
-                } catch (AccessDeniedException e) {
-                    System.out.println("Access denied: " + e.getMessage());
-                } catch (NumberFormatException e) {
-                    System.out.println("Input error: number expected");
-                } catch (Exception e) {
-                    System.out.println("Unexpected error: " + e.getMessage());
-                }
+                execute(cmd, parts, session, out, true);
             }
         }
     }
 
-    private void dispatch(String cmd, String[] parts) throws Exception {
+    // Выполняет одну команду от имени владельца сессии; false — команда завершилась ошибкой
+    boolean execute(String cmd, String[] parts, Session session, PrintWriter out, boolean interactive) {
+        if (cmd.equals("help")) {
+            printHelp(out);
+            return true;
+        }
+
+        try {
+            dispatch(cmd, parts, session, out, interactive);
+            return true;
+        } catch (ValidationException e) {
+            out.println("Input error: " + e.getMessage());
+        } catch (NotFoundException e) {
+            out.println("Not found: " + e.getMessage());
+        } catch (AccessDeniedException e) {
+            out.println("Access denied: " + e.getMessage());
+        } catch (OverloadedException e) {
+            out.println("Overloaded: " + e.getMessage() + ", retry later");
+        } catch (NumberFormatException e) {
+            out.println("Input error: number expected");
+        } catch (Exception e) {
+            out.println("Unexpected error: " + e.getMessage());
+        }
+        return false;
+    }
+
+    private void dispatch(String cmd, String[] parts, Session session, PrintWriter out, boolean interactive)
+            throws Exception {
+        String owner = session.ownerUuid();
         switch (cmd) {
-            case "whoami" -> handleWhoAmI();
-            case "new-user" -> handleNewUser();
-            case "switch-user" -> handleSwitchUser(parts);
-
-            case "create" -> handleCreate(parts);
-            case "open" -> handleOpen(parts);
-            case "list" -> handleList();
-            case "list-all" -> handleListAll();
-            case "set-limit" -> handleSetLimit(parts);
-            case "delete" -> handleDelete(parts);
-
-            default -> System.out.println("Unknown command. Type 'help'.");
+            case "whoami" -> handleWhoAmI(session, out);
+            case "new-user" -> handleNewUser(session, out);
+            case "switch-user" -> handleSwitchUser(parts, session, out);
+            case "login" -> handleLogin(parts, session, out);
+            case "api-key" -> handleApiKey(session, out);
+
+            case "create" -> handleCreate(parts, owner, out);
+            case "open" -> handleOpen(parts, out, interactive);
+            case "list" -> handleList(owner, out);
+            case "list-all" -> handleListAll(out);
+            case "counts" -> handleCounts(out);
+            case "stats" -> handleStats(owner, out);
+            case "expiring" -> handleExpiring(parts, owner, out);
+            case "set-limit" -> handleSetLimit(parts, owner, out);
+            case "delete" -> handleDelete(parts, owner, out);
+            case "delete-all" -> handleDeleteAll(owner, out);
+            case "set-limit-all" -> handleSetLimitAll(parts, owner, out);
+            case "extend-all" -> handleExtendAll(parts, owner, out);
+
+            default -> out.println("Unknown command. Type 'help'.");
         }
     }
 
-    private String currentUser() {
-        return users.getCurrentUserUuid();
+    // Сессия локальной консоли: пользователь из user.uuid
+    Session defaultSession() {
+        return new Session(users.getCurrentUserUuid());
+    }
+
+    // Сессия клиента по API-ключу; поиск владельца — O(1) в реестре
+    public Session openSession(String apiKey) {
+        String owner = registry.ownerOf(apiKey);
+        if (owner == null) {
+            throw new AccessDeniedException("Unknown API key");
+        }
+        return new Session(owner);
     }
 
     // -------- users --------
 
-    private void handleWhoAmI() {
-        System.out.println("Current user: " + currentUser());
+    private void handleWhoAmI(Session session, PrintWriter out) {
+        out.println("Current user: " + session.ownerUuid());
     }
 
-    private void handleNewUser() {
-        String uuid = users.createNewUser();
-        System.out.println("Created and switched to new user: " + uuid);
+    // смена пользователя меняет только сессию клиента; user.uuid и другие сессии не затрагиваются
+    private void handleNewUser(Session session, PrintWriter out) {
+        String uuid = users.registerNewUser();
+        session.switchTo(uuid);
+        out.println("Created and switched to new user: " + uuid);
     }
 
-    private void handleSwitchUser(String[] parts) {
+    private void handleSwitchUser(String[] parts, Session session, PrintWriter out) {
         if (parts.length != 2) {
-            System.out.println("Usage: switch-user <uuid>");
+            out.println("Usage: switch-user <uuid>");
             return;
         }
-        users.switchUser(parts[1]);
-        System.out.println("Switched to user: " + currentUser());
+        users.requireKnownUser(parts[1]);
+        session.switchTo(parts[1]);
+        out.println("Switched to user: " + session.ownerUuid());
+    }
+
+    private void handleLogin(String[] parts, Session session, PrintWriter out) {
+        if (parts.length != 2) {
+            out.println("Usage: login <apiKey>");
+            return;
+        }
+        session.switchTo(openSession(parts[1]).ownerUuid());
+        out.println("Logged in as: " + session.ownerUuid());
+    }
+
+    private void handleApiKey(Session session, PrintWriter out) {
+        String key = registry.issueKey(session.ownerUuid());
+        out.println("New API key for " + session.ownerUuid() + ": " + key);
     }
 
     // -------- links --------
 
-    private void handleCreate(String[] parts) {
+    private void handleCreate(String[] parts, String owner, PrintWriter out) {
         if (parts.length < 2) {
-            System.out.println("Usage: create <url> [maxClicks]");
+            out.println("Usage: create <url> [maxClicks]");
             return;
         }
 
@@ -139,57 +198,92 @@ public class ConsoleCli {
         ShortLink link;
         if (parts.length >= 3) {
             int maxClicks = Integer.parseInt(parts[2]);
-            link = service.create(url, currentUser(), maxClicks);
+            link = service.create(url, owner, maxClicks);
         } else {
-            link = service.create(url, currentUser());
+            link = service.create(url, owner);
         }
 
-        System.out.println("Created short link:");
-        System.out.println("  shortKey: " + link.getShortKey());
-        System.out.println("  original: " + link.getOriginalUrl());
-        System.out.println("  maxClicks: " + link.getMaxClicks());
-        System.out.println("  expiresAt: " + TIME_FORMAT.format(link.getExpiresAt()));
+        out.println("Created short link:");
+        out.println("  shortKey: " + link.getShortKey());
+        out.println("  original: " + link.getOriginalUrl());
+        out.println("  maxClicks: " + link.getMaxClicks());
+        out.println("  expiresAt: " + TIME_FORMAT.format(link.getExpiresAt()));
     }
 
-    private void handleOpen(String[] parts) throws Exception {
+    private void handleOpen(String[] parts, PrintWriter out, boolean interactive) throws Exception {
         if (parts.length != 2) {
-            System.out.println("Usage: open <shortKey>");
+            out.println("Usage: open <shortKey>");
             return;
         }
 
         String shortKey = parts[1];
         String url = service.resolve(shortKey);
 
-        System.out.println("Open: " + url);
+        out.println("Open: " + url);
+
+        // В пакетном режиме браузер не открываем
+        if (!interactive) {
+            return;
+        }
 
         // На сервере Desktop может быть недоступен — тогда просто печатаем URL.
         if (Desktop.isDesktopSupported()) {
             Desktop.getDesktop().browse(new URI(url));
         } else {
-            System.out.println("(Desktop is not supported, URL printed only)");
+            out.println("(Desktop is not supported, URL printed only)");
         }
     }
 
-    private void handleList() {
-        List<ShortLink> links = repository.findByOwnerUuid(currentUser());
+    private void handleList(String owner, PrintWriter out) {
+        List<ShortLink> links = service.listByOwner(owner);
         if (links.isEmpty()) {
-            System.out.println("No links for current user.");
+            out.println("No links for current user.");
             return;
         }
 
         for (ShortLink l : links) {
-            System.out.println("- " + l.getShortKey()
+            out.println("- " + l.getShortKey()
                     + " -> " + l.getOriginalUrl()
                     + " | clicks: " + l.getClicks() + "/" + l.getMaxClicks()
                     + " | status: " + l.getStatus());
         }
     }
 
-    private void handleListAll() {
-        List<ShortLink> links = repository.findAll();
+    private void handleStats(String owner, PrintWriter out) {
+        OwnerStats stats = service.ownerStats(owner);
+        int quota = service.ownerQuota();
+        out.println("Active links: " + stats.getActiveLinks() + (quota > 0 ? " / " + quota : ""));
+        out.println("Expired links: " + stats.getExpiredLinks());
+        out.println("Total clicks: " + stats.getTotalClicks());
+    }
 
+    private void handleExpiring(String[] parts, String owner, PrintWriter out) {
+        long minutes = parts.length >= 2 ? Long.parseLong(parts[1]) : 60;
+        if (minutes <= 0) {
+            out.println("Minutes must be positive.");
+            return;
+        }
+        List<ShortLink> links = service.findExpiringSoon(owner, Duration.ofMinutes(minutes), 100);
         if (links.isEmpty()) {
-            System.out.println("No links in system.");
+            out.println("No links expiring in the next " + minutes + " min.");
+            return;
+        }
+        for (ShortLink l : links) {
+            out.println("- " + l.getShortKey()
+                    + " expires " + TIME_FORMAT.format(l.getExpiresAt())
+                    + " | clicks: " + l.getClicks() + "/" + l.getMaxClicks());
+        }
+    }
+
+    private void handleCounts(PrintWriter out) {
+        service.countByStatus().forEach((status, count) -> out.println(status + ": " + count));
+    }
+
+    private void handleListAll(PrintWriter out) {
+        List<ShortLink> links = service.listAll();
+
+        if (links.isEmpty()) {
+            out.println("No links in system.");
             return;
         }
 
@@ -201,11 +295,11 @@ public class ConsoleCli {
                 .toList();
 
         // Заголовок
-        System.out.printf(
+        out.printf(
                 "%-36s  %-10s  %-7s  %-12s  %-19s  %s%n",
                 "OWNER UUID", "SHORTKEY", "STATUS", "CLICKS", "EXPIRES AT", "ORIGINAL"
         );
-        System.out.println("-".repeat(36 + 2 + 10 + 2 + 7 + 2 + 12 + 2 + 19 + 2 + 30));
+        out.println("-".repeat(36 + 2 + 10 + 2 + 7 + 2 + 12 + 2 + 19 + 2 + 30));
 
         for (ShortLink l : links) {
             String clicks = l.getClicks() + "/" + l.getMaxClicks();
@@ -217,7 +311,7 @@ public class ConsoleCli {
                 original = original.substring(0, 57) + "...";
             }
 
-            System.out.printf(
+            out.printf(
                     "%-36s  %-10s  %-7s  %-12s  %-19s  %s%n",
                     l.getOwnerUuid(),
                     l.getShortKey(),
@@ -230,49 +324,89 @@ public class ConsoleCli {
     }
 
 
-    private void handleSetLimit(String[] parts) {
+    private void handleSetLimit(String[] parts, String owner, PrintWriter out) {
         if (parts.length != 3) {
-            System.out.println("Usage: set-limit <shortKey> <newMaxClicks>");
+            out.println("Usage: set-limit <shortKey> <newMaxClicks>");
             return;
         }
 
         String shortKey = parts[1];
         int newMaxClicks = Integer.parseInt(parts[2]);
 
-        ShortLink updated = service.updateMaxClicks(shortKey, currentUser(), newMaxClicks);
-        System.out.println("Updated: " + updated.getShortKey() + " maxClicks=" + updated.getMaxClicks());
+        ShortLink updated = service.updateMaxClicks(shortKey, owner, newMaxClicks);
+        out.println("Updated: " + updated.getShortKey() + " maxClicks=" + updated.getMaxClicks());
 
         if (updated.getStatus() == LinkStatus.EXPIRED_BY_CLICKS) {
-            System.out.println("Notice: link is now unavailable because clicks (" +
+            out.println("Notice: link is now unavailable because clicks (" +
                     updated.getClicks() + ") already reached/exceeded the new limit.");
         }
     }
 
-    private void handleDelete(String[] parts) {
+    private void handleDelete(String[] parts, String owner, PrintWriter out) {
+        if (parts.length != 2) {
+            out.println("Usage: delete <shortKey>");
+            return;
+        }
+
+        boolean deleted = service.deleteByOwner(parts[1], owner);
+        out.println(deleted ? "Deleted " + parts[1] + '.': "Nothing deleted.");
+    }
+
+    private void handleDeleteAll(String owner, PrintWriter out) {
+        int deleted = service.deleteAllByOwner(owner);
+        out.println("Deleted " + deleted + " link(s).");
+    }
+
+    private void handleSetLimitAll(String[] parts, String owner, PrintWriter out) {
         if (parts.length != 2) {
-            System.out.println("Usage: delete <shortKey>");
+            out.println("Usage: set-limit-all <newMaxClicks>");
             return;
         }
+        int updated = service.updateMaxClicksForOwner(owner, Integer.parseInt(parts[1]));
+        out.println("Updated limit of " + updated + " active link(s).");
+    }
 
-        boolean deleted = service.deleteByOwner(parts[1], currentUser());
-        System.out.println(deleted ? "Deleted " + parts[1] + '.': "Nothing deleted.");
+    private void handleExtendAll(String[] parts, String owner, PrintWriter out) {
+        if (parts.length != 2) {
+            out.println("Usage: extend-all <minutes>");
+            return;
+        }
+        long minutes = Long.parseLong(parts[1]);
+        if (minutes <= 0) {
+            out.println("Minutes must be positive.");
+            return;
+        }
+        int extended = service.extendTtlForOwner(owner, Duration.ofMinutes(minutes));
+        out.println("Extended " + extended + " active link(s) by " + minutes + " min.");
     }
 
-    private void printHelp() {
-        System.out.println("""
+    private void printHelp(PrintWriter out) {
+        out.println("""
                 User:
                   whoami
                   new-user
                   switch-user <uuid>
+                  login <apiKey>   act as the owner of the API key
+                  api-key          issue an API key for current user
 
                 Links:
                   create <url> [maxClicks]
                   open <shortKey>
                   list         (debug) mini
                   list-all
+                  counts       links in system by status
+                  stats        active/expired links and clicks of current user
+                  expiring [minutes]   links expiring soon (default 60 min)
                   set-limit <shortKey> <newMaxClicks>
                   delete <shortKey>
 
+                Bulk (all links of current user):
+                  delete-all
+                  set-limit-all <newMaxClicks>   active links only
+                  extend-all <minutes>           extend TTL of active links
+
+                Batch scripts: prefix a line with @<apiKey> to run it as the key's owner.
+
                 Other:
                   help
                   exit
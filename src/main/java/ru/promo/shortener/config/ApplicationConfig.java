@@ -10,17 +10,236 @@ public class ApplicationConfig {
 
     public final int cleanupIntervalSeconds;
 
+    public final int urlStemsMax;
+    public final int urlDeflateMinTail;
+
+    public final String snapshotPath;
+    public final int snapshotLoadThreads;
+
+    public final String trafficLogPath;
+    public final int trafficLogBuffer;
+
+    public final long tombstoneRetentionSeconds;
+
+    public final int ownerActiveLinksQuota;
+
+    // 0 — клики пишутся в хранилище сразу, без отложенной записи
+    public final int clicksFlushIntervalMillis;
+
+    // 0 — изменения выполняются в вызывающем потоке, без дорожек
+    public final int mutationLanes;
+
+    // пустой путь — случайные ключи с проверкой по хранилищу, без аренды блоков
+    public final String keyLeasePath;
+    public final int keyLeaseSeconds;
+
+    // 0 — без контроля допуска: запросы не отклоняются при перегрузке
+    public final int admissionLimitMax;
+    public final int admissionLatencyTargetMillis;
+
+    // "indexed" — InMemoryShortLinkRepository, "columnar" — ColumnarShortLinkRepository
+    public final String repositoryLayout;
+
+    // false — события JFR не создаются, доменные операции не видны в записи
+    public final boolean jfrEventsEnabled;
+
+    // true — хранилище, пользователи и ключи загружаются при старте параллельно, генератор ключей — в фоне
+    public final boolean startupFast;
+
     public ApplicationConfig(int initialKeyLength,
                              int maxKeyLength,
                              int attemptsPerLength,
                              long ttlSeconds,
                              int defaultMaxClicks,
                              int cleanupIntervalSeconds) {
-        this.initialKeyLength = initialKeyLength;
-        this.maxKeyLength = maxKeyLength;
-        this.attemptsPerLength = attemptsPerLength;
-        this.ttlSeconds = ttlSeconds;
-        this.defaultMaxClicks = defaultMaxClicks;
-        this.cleanupIntervalSeconds = cleanupIntervalSeconds;
+        this(builder()
+                .initialKeyLength(initialKeyLength)
+                .maxKeyLength(maxKeyLength)
+                .attemptsPerLength(attemptsPerLength)
+                .ttlSeconds(ttlSeconds)
+                .defaultMaxClicks(defaultMaxClicks)
+                .cleanupIntervalSeconds(cleanupIntervalSeconds));
+    }
+
+    private ApplicationConfig(Builder builder) {
+        this.initialKeyLength = builder.initialKeyLength;
+        this.maxKeyLength = builder.maxKeyLength;
+        this.attemptsPerLength = builder.attemptsPerLength;
+        this.ttlSeconds = builder.ttlSeconds;
+        this.defaultMaxClicks = builder.defaultMaxClicks;
+        this.cleanupIntervalSeconds = builder.cleanupIntervalSeconds;
+        this.urlStemsMax = builder.urlStemsMax;
+        this.urlDeflateMinTail = builder.urlDeflateMinTail;
+        this.snapshotPath = builder.snapshotPath;
+        this.snapshotLoadThreads = builder.snapshotLoadThreads;
+        this.trafficLogPath = builder.trafficLogPath;
+        this.trafficLogBuffer = builder.trafficLogBuffer;
+        this.tombstoneRetentionSeconds = builder.tombstoneRetentionSeconds;
+        this.ownerActiveLinksQuota = builder.ownerActiveLinksQuota;
+        this.clicksFlushIntervalMillis = builder.clicksFlushIntervalMillis;
+        this.mutationLanes = builder.mutationLanes;
+        this.keyLeasePath = builder.keyLeasePath;
+        this.keyLeaseSeconds = builder.keyLeaseSeconds;
+        this.admissionLimitMax = builder.admissionLimitMax;
+        this.admissionLatencyTargetMillis = builder.admissionLatencyTargetMillis;
+        this.repositoryLayout = builder.repositoryLayout;
+        this.jfrEventsEnabled = builder.jfrEventsEnabled;
+        this.startupFast = builder.startupFast;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Пошаговая сборка конфигурации: не заданные параметры берут значения по умолчанию,
+     * при которых соответствующая возможность выключена.
+     */
+    public static final class Builder {
+        private int initialKeyLength = 0;
+        private int maxKeyLength = 0;
+        private int attemptsPerLength = 0;
+        private long ttlSeconds = 0;
+        private int defaultMaxClicks = 0;
+        private int cleanupIntervalSeconds = 0;
+        private int urlStemsMax = 0;
+        private int urlDeflateMinTail = 0;
+        private String snapshotPath = "";
+        private int snapshotLoadThreads = 1;
+        private String trafficLogPath = "";
+        private int trafficLogBuffer = 0;
+        private long tombstoneRetentionSeconds = 7 * 24 * 3600;
+        private int ownerActiveLinksQuota = 0;
+        private int clicksFlushIntervalMillis = 0;
+        private int mutationLanes = 0;
+        private String keyLeasePath = "";
+        private int keyLeaseSeconds = 300;
+        private int admissionLimitMax = 0;
+        private int admissionLatencyTargetMillis = 50;
+        private String repositoryLayout = "indexed";
+        private boolean jfrEventsEnabled = false;
+        private boolean startupFast = false;
+
+        private Builder() {
+        }
+
+        public Builder initialKeyLength(int initialKeyLength) {
+            this.initialKeyLength = initialKeyLength;
+            return this;
+        }
+
+        public Builder maxKeyLength(int maxKeyLength) {
+            this.maxKeyLength = maxKeyLength;
+            return this;
+        }
+
+        public Builder attemptsPerLength(int attemptsPerLength) {
+            this.attemptsPerLength = attemptsPerLength;
+            return this;
+        }
+
+        public Builder ttlSeconds(long ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+            return this;
+        }
+
+        public Builder defaultMaxClicks(int defaultMaxClicks) {
+            this.defaultMaxClicks = defaultMaxClicks;
+            return this;
+        }
+
+        public Builder cleanupIntervalSeconds(int cleanupIntervalSeconds) {
+            this.cleanupIntervalSeconds = cleanupIntervalSeconds;
+            return this;
+        }
+
+        public Builder urlStemsMax(int urlStemsMax) {
+            this.urlStemsMax = urlStemsMax;
+            return this;
+        }
+
+        public Builder urlDeflateMinTail(int urlDeflateMinTail) {
+            this.urlDeflateMinTail = urlDeflateMinTail;
+            return this;
+        }
+
+        public Builder snapshotPath(String snapshotPath) {
+            this.snapshotPath = snapshotPath;
+            return this;
+        }
+
+        public Builder snapshotLoadThreads(int snapshotLoadThreads) {
+            this.snapshotLoadThreads = snapshotLoadThreads;
+            return this;
+        }
+
+        public Builder trafficLogPath(String trafficLogPath) {
+            this.trafficLogPath = trafficLogPath;
+            return this;
+        }
+
+        public Builder trafficLogBuffer(int trafficLogBuffer) {
+            this.trafficLogBuffer = trafficLogBuffer;
+            return this;
+        }
+
+        public Builder tombstoneRetentionSeconds(long tombstoneRetentionSeconds) {
+            this.tombstoneRetentionSeconds = tombstoneRetentionSeconds;
+            return this;
+        }
+
+        public Builder ownerActiveLinksQuota(int ownerActiveLinksQuota) {
+            this.ownerActiveLinksQuota = ownerActiveLinksQuota;
+            return this;
+        }
+
+        public Builder clicksFlushIntervalMillis(int clicksFlushIntervalMillis) {
+            this.clicksFlushIntervalMillis = clicksFlushIntervalMillis;
+            return this;
+        }
+
+        public Builder mutationLanes(int mutationLanes) {
+            this.mutationLanes = mutationLanes;
+            return this;
+        }
+
+        public Builder keyLeasePath(String keyLeasePath) {
+            this.keyLeasePath = keyLeasePath;
+            return this;
+        }
+
+        public Builder keyLeaseSeconds(int keyLeaseSeconds) {
+            this.keyLeaseSeconds = keyLeaseSeconds;
+            return this;
+        }
+
+        public Builder admissionLimitMax(int admissionLimitMax) {
+            this.admissionLimitMax = admissionLimitMax;
+            return this;
+        }
+
+        public Builder admissionLatencyTargetMillis(int admissionLatencyTargetMillis) {
+            this.admissionLatencyTargetMillis = admissionLatencyTargetMillis;
+            return this;
+        }
+
+        public Builder repositoryLayout(String repositoryLayout) {
+            this.repositoryLayout = repositoryLayout;
+            return this;
+        }
+
+        public Builder jfrEventsEnabled(boolean jfrEventsEnabled) {
+            this.jfrEventsEnabled = jfrEventsEnabled;
+            return this;
+        }
+
+        public Builder startupFast(boolean startupFast) {
+            this.startupFast = startupFast;
+            return this;
+        }
+
+        public ApplicationConfig build() {
+            return new ApplicationConfig(this);
+        }
     }
 }
@@ -17,6 +17,13 @@ public class ApplicationConfigLoader {
         } catch (Exception e) {
             throw new IllegalStateException("Failed to load application.properties", e);
         }
+        // параметр из файла можно переопределить при запуске: java -Dstartup.fast=true ...
+        for (String key : props.stringPropertyNames()) {
+            String override = System.getProperty(key);
+            if (override != null) {
+                props.setProperty(key, override);
+            }
+        }
 
         int initialKeyLength = Integer.parseInt(props.getProperty("shortkey.length.initial"));
         int maxKeyLength = Integer.parseInt(props.getProperty("shortkey.length.max"));
@@ -27,13 +34,66 @@ public class ApplicationConfigLoader {
 
         int cleanupIntervalSeconds = Integer.parseInt(props.getProperty("cleanup.interval.seconds"));
 
-        return new ApplicationConfig(
-                initialKeyLength,
-                maxKeyLength,
-                attemptsPerLength,
-                ttlSeconds,
-                defaultMaxClicks,
-                cleanupIntervalSeconds
-        );
+        int urlStemsMax = intProperty(props, "url.stems.max", 0);
+        int urlDeflateMinTail = intProperty(props, "url.deflate.min-tail", 0);
+
+        String snapshotPath = props.getProperty("snapshot.path", "").trim();
+        int snapshotLoadThreads = intProperty(props, "snapshot.load.threads",
+                Runtime.getRuntime().availableProcessors());
+
+        String trafficLogPath = props.getProperty("traffic.log.path", "").trim();
+        int trafficLogBuffer = intProperty(props, "traffic.log.buffer", 1 << 16);
+
+        long tombstoneRetentionSeconds = intProperty(props, "tombstone.retention.seconds", 7 * 24 * 3600);
+
+        int ownerActiveLinksQuota = intProperty(props, "owner.quota.active-links", 0);
+
+        int clicksFlushIntervalMillis = intProperty(props, "clicks.flush.interval.millis", 0);
+
+        int mutationLanes = intProperty(props, "mutation.lanes", 0);
+
+        String keyLeasePath = props.getProperty("shortkey.lease.path", "").trim();
+        int keyLeaseSeconds = intProperty(props, "shortkey.lease.seconds", 300);
+
+        int admissionLimitMax = intProperty(props, "admission.limit.max", 0);
+        int admissionLatencyTargetMillis = intProperty(props, "admission.latency.target.millis", 50);
+
+        String repositoryLayout = props.getProperty("repository.layout", "indexed").trim();
+
+        boolean jfrEventsEnabled = Boolean.parseBoolean(props.getProperty("jfr.events.enabled", "false").trim());
+
+        boolean startupFast = Boolean.parseBoolean(props.getProperty("startup.fast", "false").trim());
+
+        return ApplicationConfig.builder()
+                .initialKeyLength(initialKeyLength)
+                .maxKeyLength(maxKeyLength)
+                .attemptsPerLength(attemptsPerLength)
+                .ttlSeconds(ttlSeconds)
+                .defaultMaxClicks(defaultMaxClicks)
+                .cleanupIntervalSeconds(cleanupIntervalSeconds)
+                .urlStemsMax(urlStemsMax)
+                .urlDeflateMinTail(urlDeflateMinTail)
+                .snapshotPath(snapshotPath)
+                .snapshotLoadThreads(snapshotLoadThreads)
+                .trafficLogPath(trafficLogPath)
+                .trafficLogBuffer(trafficLogBuffer)
+                .tombstoneRetentionSeconds(tombstoneRetentionSeconds)
+                .ownerActiveLinksQuota(ownerActiveLinksQuota)
+                .clicksFlushIntervalMillis(clicksFlushIntervalMillis)
+                .mutationLanes(mutationLanes)
+                .keyLeasePath(keyLeasePath)
+                .keyLeaseSeconds(keyLeaseSeconds)
+                .admissionLimitMax(admissionLimitMax)
+                .admissionLatencyTargetMillis(admissionLatencyTargetMillis)
+                .repositoryLayout(repositoryLayout)
+                .jfrEventsEnabled(jfrEventsEnabled)
+                .startupFast(startupFast)
+                .build();
+    }
+
+    // необязательные параметры: при отсутствии берётся значение по умолчанию
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
     }
 }
@@ -0,0 +1,92 @@
+package ru.promo.shortener.core.model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Интернированный идентификатор владельца: каждому владельцу соответствует один экземпляр
+ * с единственной строкой владельца, общей для всех его ссылок, счётчиков и индексов.
+ *
+ * Таблица интернирования держит экземпляры слабо: владелец, на которого больше не ссылаются
+ * ни ссылки, ни счётчики, ни индексы репозиториев, освобождается сборщиком, и таблица не растёт
+ * вместе со всеми владельцами, когда-либо встречавшимися процессу.
+ */
+public final class OwnerId {
+
+    private static final ConcurrentHashMap<String, Ref> INTERNED = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<OwnerId> COLLECTED = new ReferenceQueue<>();
+
+    private final String text;
+
+    private OwnerId(String text) {
+        this.text = text;
+    }
+
+    // Возвращает интернированный экземпляр, при необходимости регистрируя нового владельца
+    public static OwnerId of(String owner) {
+        Objects.requireNonNull(owner, "owner");
+        OwnerId existing = find(owner);
+        if (existing != null) {
+            return existing;
+        }
+        expungeCollected();
+        OwnerId created = new OwnerId(owner);
+        while (true) {
+            Ref ref = INTERNED.putIfAbsent(owner, new Ref(created, COLLECTED));
+            if (ref == null) {
+                return created;
+            }
+            OwnerId other = ref.get();
+            if (other != null) {
+                return other;
+            }
+            // прежний экземпляр уже собран, но запись ещё не вычищена — заменяем её
+            INTERNED.remove(owner, ref);
+        }
+    }
+
+    // Только поиск: неизвестный владелец не регистрируется (null)
+    public static OwnerId find(String owner) {
+        if (owner == null || owner.isBlank()) {
+            return null;
+        }
+        Ref ref = INTERNED.get(owner);
+        return ref == null ? null : ref.get();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OwnerId other)) return false;
+        return text.equals(other.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    // записи собранных владельцев удаляются при регистрации новых
+    private static void expungeCollected() {
+        Ref ref;
+        while ((ref = (Ref) COLLECTED.poll()) != null) {
+            INTERNED.remove(ref.owner, ref);
+        }
+    }
+
+    private static final class Ref extends WeakReference<OwnerId> {
+        final String owner;
+
+        Ref(OwnerId id, ReferenceQueue<OwnerId> queue) {
+            super(id, queue);
+            this.owner = id.text;
+        }
+    }
+}
@@ -1,18 +1,24 @@
 package ru.promo.shortener.core.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Objects;
 
 public final class ShortLink {
     private final String shortKey;      // уникальная короткая часть ссылки (например AbC123)
-    private final String originalUrl;   // исходный URL
-    private final String ownerUuid;     // UUID пользователя
+    private final UrlStem urlStem;      // общий префикс исходного URL
+    private final byte[] urlTail;       // остаток URL после префикса (см. UrlStem)
+    private final OwnerId owner;        // UUID пользователя (интернированный)
     private final Instant createdAt;    // момент создания
-    private final Instant expiresAt;    // createdAt + TTL
+    private volatile Instant expiresAt; // createdAt + TTL (+ продления владельцем)
 
     private int maxClicks;              // лимит переходов
     private int clicks;                 // сколько уже переходов
-    private LinkStatus status;
+    private volatile LinkStatus status; // переходы из ACTIVE — через CAS, см. expire()
+
+    private int recordId = -1;          // номер записи в хранилище (назначает репозиторий)
 
     public ShortLink(String shortKey,
                      String originalUrl,
@@ -20,9 +26,21 @@ public final class ShortLink {
                      Instant createdAt,
                      Instant expiresAt,
                      int maxClicks) {
+        this(shortKey, originalUrl, ownerUuid, createdAt, expiresAt, maxClicks, UrlStem.NONE);
+    }
+
+    public ShortLink(String shortKey,
+                     String originalUrl,
+                     String ownerUuid,
+                     Instant createdAt,
+                     Instant expiresAt,
+                     int maxClicks,
+                     UrlStem urlStem) {
         this.shortKey = Objects.requireNonNull(shortKey, "shortKey");
-        this.originalUrl = Objects.requireNonNull(originalUrl, "originalUrl");
-        this.ownerUuid = Objects.requireNonNull(ownerUuid, "ownerUuid");
+        Objects.requireNonNull(originalUrl, "originalUrl");
+        this.urlStem = Objects.requireNonNull(urlStem, "urlStem");
+        this.urlTail = urlStem.encode(originalUrl);
+        this.owner = OwnerId.of(Objects.requireNonNull(ownerUuid, "ownerUuid"));
         this.createdAt = Objects.requireNonNull(createdAt, "createdAt");
         this.expiresAt = Objects.requireNonNull(expiresAt, "expiresAt");
 
@@ -31,14 +49,37 @@ public final class ShortLink {
         this.status = LinkStatus.ACTIVE;
     }
 
+    // восстановление сохранённого состояния (снимок хранилища)
+    public static ShortLink restore(String shortKey,
+                                    String originalUrl,
+                                    String ownerUuid,
+                                    Instant createdAt,
+                                    Instant expiresAt,
+                                    int maxClicks,
+                                    int clicks,
+                                    LinkStatus status,
+                                    UrlStem urlStem) {
+        ShortLink link = new ShortLink(shortKey, originalUrl, ownerUuid, createdAt, expiresAt, maxClicks, urlStem);
+        link.clicks = clicks;
+        link.status = Objects.requireNonNull(status, "status");
+        return link;
+    }
+
     public String getShortKey() { return shortKey; }
-    public String getOriginalUrl() { return originalUrl; }
-    public String getOwnerUuid() { return ownerUuid; }
+    public String getOriginalUrl() { return urlStem.decode(urlTail); }
+    public String getOwnerUuid() { return owner.toString(); }
+    public OwnerId getOwnerId() { return owner; }
     public Instant getCreatedAt() { return createdAt; }
     public Instant getExpiresAt() { return expiresAt; }
     public int getMaxClicks() { return maxClicks; }
     public int getClicks() { return clicks; }
     public LinkStatus getStatus() { return status; }
+    public int getRecordId() { return recordId; }
+
+    // используется только реализациями репозитория (-1 — запись не проиндексирована)
+    public void bindRecordId(int recordId) {
+        this.recordId = recordId;
+    }
 
     public boolean isActive() {
         return status == LinkStatus.ACTIVE;
@@ -48,29 +89,51 @@ public final class ShortLink {
         return now.isAfter(expiresAt);
     }
 
-    public void markExpiredByTtl() {
-        if (status == LinkStatus.ACTIVE)
-            status = LinkStatus.EXPIRED_BY_TTL;
+    // то же по миллисекундам epoch — без создания Instant на горячем пути
+    public boolean isExpiredByTtl(long nowEpochMillis) {
+        return nowEpochMillis > expiresAt.toEpochMilli();
     }
 
-    public void markExpiredByClicks() {
-        if (status == LinkStatus.ACTIVE)
-            status = LinkStatus.EXPIRED_BY_CLICKS;
+    // true — именно этот вызов перевёл ссылку из ACTIVE (для счётчиков владельца)
+    public boolean markExpiredByTtl() {
+        return expire(LinkStatus.EXPIRED_BY_TTL);
+    }
+
+    public boolean markExpiredByClicks() {
+        return expire(LinkStatus.EXPIRED_BY_CLICKS);
     }
 
     public void markDeleted() {
         status = LinkStatus.DELETED;
     }
 
-    public void setMaxClicks(int maxClicks) {
+    // true — новый лимит сразу исчерпал ссылку и она перешла в EXPIRED_BY_CLICKS
+    public boolean setMaxClicks(int maxClicks) {
         this.maxClicks = maxClicks;
         // если новый лимит уже меньше/равен текущим кликам — ссылка должна стать недоступной
-        if (this.clicks >= this.maxClicks && status == LinkStatus.ACTIVE) {
-            markExpiredByClicks();
-        }
+        return this.clicks >= this.maxClicks && markExpiredByClicks();
+    }
+
+    // продлить срок жизни; индекс истечения обновляет репозиторий (см. ShortLinkRepository.extendExpiration)
+    public void extendExpiration(Duration extension) {
+        this.expiresAt = expiresAt.plus(extension);
     }
 
     public void registerClick() {
         this.clicks++;
     }
+
+    private boolean expire(LinkStatus expired) {
+        return STATUS.compareAndSet(this, LinkStatus.ACTIVE, expired);
+    }
+
+    private static final VarHandle STATUS;
+
+    static {
+        try {
+            STATUS = MethodHandles.lookup().findVarHandle(ShortLink.class, "status", LinkStatus.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package ru.promo.shortener.core.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Общий префикс URL (схема + host + путь до последнего '/'), разделяемый многими ссылками.
+ * Ссылка хранит только ссылку на stem и хвост URL в байтах; длинные хвосты могут сжиматься
+ * Deflate с предустановленным словарём.
+ *
+ * Формат хвоста: UTF-8 байты, либо 0x00 + raw deflate (URL не содержит управляющих символов,
+ * поэтому нулевой первый байт однозначно означает сжатый хвост).
+ */
+public final class UrlStem {
+
+    public static final UrlStem NONE = new UrlStem("", null, 0);
+
+    private static final byte DEFLATED = 0;
+
+    private static final ThreadLocal<Deflater> DEFLATER =
+            ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATER =
+            ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final String prefix;
+    private final byte[] dictionary;     // preset-словарь Deflate (общий для всех stem) или null
+    private final int deflateMinTail;    // сжимаем хвосты не короче этой длины (0 — не сжимаем)
+
+    public UrlStem(String prefix, byte[] dictionary, int deflateMinTail) {
+        this.prefix = prefix;
+        this.dictionary = dictionary;
+        this.deflateMinTail = dictionary == null ? 0 : deflateMinTail;
+    }
+
+    public String prefix() {
+        return prefix;
+    }
+
+    public byte[] encode(String url) {
+        if (!url.startsWith(prefix)) {
+            throw new IllegalArgumentException("URL does not start with stem prefix: " + prefix);
+        }
+        byte[] raw = url.substring(prefix.length()).getBytes(StandardCharsets.UTF_8);
+        if (deflateMinTail <= 0 || raw.length < deflateMinTail) {
+            return raw;
+        }
+
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setDictionary(dictionary);
+        deflater.setInput(raw);
+        deflater.finish();
+
+        byte[] buffer = new byte[raw.length];
+        int size = 1;
+        while (!deflater.finished() && size < buffer.length) {
+            size += deflater.deflate(buffer, size, buffer.length - size);
+        }
+        // сжатие не дало выигрыша — храним как есть
+        if (!deflater.finished() || size >= raw.length) {
+            return raw;
+        }
+
+        byte[] packed = new byte[size];
+        System.arraycopy(buffer, 1, packed, 1, size - 1);
+        packed[0] = DEFLATED;
+        return packed;
+    }
+
+    public String decode(byte[] tail) {
+        if (tail.length == 0) {
+            return prefix;
+        }
+        if (tail[0] != DEFLATED) {
+            return prefix.concat(new String(tail, StandardCharsets.UTF_8));
+        }
+
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setDictionary(dictionary);
+        inflater.setInput(tail, 1, tail.length - 1);
+
+        byte[] buffer = new byte[Math.max(64, tail.length * 4)];
+        int size = 0;
+        try {
+            while (!inflater.finished()) {
+                if (size == buffer.length) {
+                    byte[] grown = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, grown, 0, size);
+                    buffer = grown;
+                }
+                int n = inflater.inflate(buffer, size, buffer.length - size);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed URL tail");
+                }
+                size += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed URL tail", e);
+        }
+        return prefix.concat(new String(buffer, 0, size, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,35 @@
+package ru.promo.shortener.core.service;
+
+/**
+ * Контроль допуска запросов к сервису при перегрузке.
+ * acquire либо сразу пропускает запрос, либо сразу отказывает {@link
+ * ru.promo.shortener.core.service.exceptions.OverloadedException} — запрос не ждёт в очереди.
+ * Каждый пропущенный запрос обязан вызвать release с тем же приоритетом и значением из acquire.
+ */
+public interface AdmissionControl {
+
+    // пропускает всё (поведение по умолчанию)
+    AdmissionControl UNLIMITED = new AdmissionControl() {
+        @Override
+        public long acquire(Priority priority) {
+            return 0;
+        }
+
+        @Override
+        public void release(Priority priority, long permit) {
+        }
+    };
+
+    // в порядке убывания важности: при перегрузке первыми отклоняются отчёты, затем создание
+    enum Priority {
+        REDIRECT,
+        CREATE,
+        ADMIN
+    }
+
+    // пропустить запрос или отказать; возвращает отметку для release (без выделения памяти)
+    long acquire(Priority priority);
+
+    // запрос завершён (успешно или с ошибкой)
+    void release(Priority priority, long permit);
+}
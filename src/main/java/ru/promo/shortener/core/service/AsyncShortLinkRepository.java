@@ -0,0 +1,34 @@
+package ru.promo.shortener.core.service;
+
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Асинхронный SPI хранилища: операции не блокируют вызывающий поток,
+ * что позволяет неблокирующим движкам хранения держать много операций в полёте.
+ */
+public interface AsyncShortLinkRepository {
+
+    CompletionStage<Void> saveAsync(ShortLink link);
+
+    CompletionStage<Optional<ShortLink>> findByShortKeyAsync(String shortKey);
+
+    // записать клик найденной ссылки (см. ShortLinkRepository.recordClick)
+    CompletionStage<Void> recordClickAsync(ShortLink link);
+
+    // статус, с которым ссылка была удалена, пока хранится надгробие; null — надгробия нет
+    CompletionStage<LinkStatus> findTombstoneStatusAsync(String shortKey);
+
+    CompletionStage<List<ShortLink>> findByOwnerUuidAsync(String ownerUuid);
+
+    CompletionStage<Boolean> deleteByShortKeyAsync(String shortKey);
+
+    CompletionStage<List<ShortLink>> findExpiredAsync(Instant now);
+
+    CompletionStage<List<ShortLink>> findAllAsync();
+}
@@ -0,0 +1,290 @@
+package ru.promo.shortener.core.service;
+
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.OwnerId;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронный вариант ShortLinkService поверх AsyncShortLinkRepository.
+ * Правила те же (LinkRules): квота владельца по общим с синхронным сервисом счётчикам, надгробия удалённых
+ * ссылок, дорожки изменений, контроль допуска, журнал переходов и события операций.
+ * Ошибки валидации, поиска и перегрузки возвращаются как исключительно завершённые стадии.
+ */
+public class AsyncShortLinkService {
+
+    private final AsyncShortLinkRepository repository;
+    private final ShortKeyGenerator generator;
+    private final UrlCodec urlCodec;
+    private final TrafficRecorder traffic;
+    private final OwnerCounters ownerCounters;
+    private final MutationExecutor mutations;
+    private final AdmissionControl admission;
+    private final OperationEvents events;
+
+    private final long ttlSeconds;
+    private final int defaultMaxClicks;
+    private final int ownerQuota;
+
+    private final int initialKeyLength;
+    private final int maxKeyLength;
+    private final int attemptsPerLength;
+
+    private final Clock clock;
+
+    public AsyncShortLinkService(AsyncShortLinkRepository repository,
+                                 ShortKeyGenerator generator,
+                                 ApplicationConfig config) {
+        this(builder(repository, generator, config));
+    }
+
+    private AsyncShortLinkService(Builder builder) {
+        this.repository = Objects.requireNonNull(builder.repository, "repository");
+        this.generator = Objects.requireNonNull(builder.generator, "generator");
+        this.urlCodec = Objects.requireNonNull(builder.urlCodec, "urlCodec");
+        this.traffic = Objects.requireNonNull(builder.traffic, "traffic");
+        this.ownerCounters = Objects.requireNonNull(builder.ownerCounters, "ownerCounters");
+        this.mutations = Objects.requireNonNull(builder.mutations, "mutations");
+        this.admission = Objects.requireNonNull(builder.admission, "admission");
+        this.events = Objects.requireNonNull(builder.events, "events");
+        ApplicationConfig config = Objects.requireNonNull(builder.config, "config");
+        this.clock = Objects.requireNonNull(builder.clock, "clock");
+
+        LinkRules.validateConfig(config);
+
+        this.ttlSeconds = config.ttlSeconds;
+        this.defaultMaxClicks = config.defaultMaxClicks;
+        this.ownerQuota = config.ownerActiveLinksQuota;
+        this.initialKeyLength = config.initialKeyLength;
+        this.maxKeyLength = config.maxKeyLength;
+        this.attemptsPerLength = config.attemptsPerLength;
+    }
+
+    public static Builder builder(AsyncShortLinkRepository repository,
+                                  ShortKeyGenerator generator,
+                                  ApplicationConfig config) {
+        return new Builder(repository, generator, config);
+    }
+
+    /**
+     * Сборка сервиса с необязательными зависимостями, как у ShortLinkService.Builder.
+     * Рядом с синхронным сервисом над тем же хранилищем передаются те же OwnerCounters, дорожки и допуск —
+     * иначе квота и порядок изменений ключа соблюдаются каждым сервисом по отдельности.
+     */
+    public static final class Builder {
+        private final AsyncShortLinkRepository repository;
+        private final ShortKeyGenerator generator;
+        private final ApplicationConfig config;
+        private Clock clock = Clock.systemUTC();
+        private UrlCodec urlCodec = UrlCodec.PLAIN;
+        private TrafficRecorder traffic = TrafficRecorder.NONE;
+        private OwnerCounters ownerCounters = new OwnerCounters();
+        private MutationExecutor mutations = MutationExecutor.DIRECT;
+        private AdmissionControl admission = AdmissionControl.UNLIMITED;
+        private OperationEvents events = OperationEvents.NONE;
+
+        private Builder(AsyncShortLinkRepository repository, ShortKeyGenerator generator, ApplicationConfig config) {
+            this.repository = repository;
+            this.generator = generator;
+            this.config = config;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public Builder urlCodec(UrlCodec urlCodec) {
+            this.urlCodec = urlCodec;
+            return this;
+        }
+
+        public Builder traffic(TrafficRecorder traffic) {
+            this.traffic = traffic;
+            return this;
+        }
+
+        public Builder ownerCounters(OwnerCounters ownerCounters) {
+            this.ownerCounters = ownerCounters;
+            return this;
+        }
+
+        public Builder mutations(MutationExecutor mutations) {
+            this.mutations = mutations;
+            return this;
+        }
+
+        public Builder admission(AdmissionControl admission) {
+            this.admission = admission;
+            return this;
+        }
+
+        public Builder events(OperationEvents events) {
+            this.events = events;
+            return this;
+        }
+
+        public AsyncShortLinkService build() {
+            return new AsyncShortLinkService(this);
+        }
+    }
+
+    public CompletionStage<ShortLink> createAsync(String originalUrl, String ownerUuid) {
+        return createAsync(originalUrl, ownerUuid, defaultMaxClicks);
+    }
+
+    public CompletionStage<ShortLink> createAsync(String originalUrl, String ownerUuid, int maxClicks) {
+        long permit;
+        try {
+            permit = admission.acquire(AdmissionControl.Priority.CREATE);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return released(AdmissionControl.Priority.CREATE, permit,
+                () -> createAdmitted(originalUrl, ownerUuid, maxClicks));
+    }
+
+    private CompletionStage<ShortLink> createAdmitted(String originalUrl, String ownerUuid, int maxClicks) {
+        Object event = events.begin(OperationEvents.Operation.CREATE);
+        String url = UrlCanonicalizer.canonicalize(originalUrl);
+        LinkRules.validateOwner(ownerUuid);
+        LinkRules.validateMaxClicks(maxClicks);
+
+        OwnerId owner = OwnerId.of(ownerUuid);
+        if (!ownerCounters.tryReserve(owner, ownerQuota)) {
+            throw new ValidationException("Active link quota exceeded (max " + ownerQuota + " per owner)");
+        }
+
+        Instant now = Instant.now(clock);
+        Instant expiresAt = now.plusSeconds(ttlSeconds);
+
+        Object keyEvent = events.begin(OperationEvents.Operation.KEY_GENERATION);
+        CompletionStage<ShortLink> created;
+        try {
+            created = generateUniqueShortKey(keyEvent, initialKeyLength, 0, 0).thenCompose(shortKey -> {
+                ShortLink link = new ShortLink(shortKey, url, ownerUuid, now, expiresAt, maxClicks,
+                        urlCodec.stemFor(url));
+                return repository.saveAsync(link).thenApply(ignored -> link);
+            });
+        } catch (RuntimeException e) {
+            created = CompletableFuture.failedFuture(e);
+        }
+        return created.whenComplete((link, error) -> {
+            if (error != null) {
+                ownerCounters.release(owner);
+                return;
+            }
+            traffic.onCreate(link.getShortKey(), maxClicks);
+            events.created(event, link.getShortKey(), maxClicks);
+        });
+    }
+
+    public CompletionStage<String> resolveAsync(String shortKey) {
+        return resolveResultAsync(shortKey).thenCompose(result -> result.isFound()
+                ? CompletableFuture.completedFuture(result.getOriginalUrl())
+                : CompletableFuture.failedFuture(LinkRules.failure(shortKey, result)));
+    }
+
+    // переход без исключений на промахах; некорректный ключ и перегрузка — исключительно завершённые стадии
+    public CompletionStage<ResolveResult> resolveResultAsync(String shortKey) {
+        long permit;
+        try {
+            permit = admission.acquire(AdmissionControl.Priority.REDIRECT);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Object event = events.begin(OperationEvents.Operation.RESOLVE);
+        return released(AdmissionControl.Priority.REDIRECT, permit, () -> resolveAdmitted(shortKey))
+                .whenComplete((result, error) -> {
+                    if (result != null) {
+                        events.resolved(event, shortKey, result.getStatus());
+                    }
+                });
+    }
+
+    private CompletionStage<ResolveResult> resolveAdmitted(String shortKey) {
+        try {
+            LinkRules.validateShortKey(shortKey);
+        } catch (ValidationException e) {
+            traffic.onResolve(shortKey, TrafficRecorder.Outcome.INVALID);
+            throw e;
+        }
+
+        return repository.findByShortKeyAsync(shortKey).thenCompose(found -> found.isEmpty()
+                ? resolveRemoved(shortKey)
+                // изменение ссылки и запуск его записи — на дорожке ключа, как в синхронном сервисе;
+                // submit не занимает поток, ожидающий дорожку
+                : mutations.submit(shortKey, () -> click(found.get())));
+    }
+
+    private CompletionStage<ResolveResult> click(ShortLink link) {
+        String shortKey = link.getShortKey();
+        if (link.getStatus() == LinkStatus.DELETED) {
+            // удалена между поиском и переходом: не сохранять заново
+            return resolveRemoved(shortKey);
+        }
+
+        LinkRules.ClickOutcome outcome = LinkRules.registerClick(link, clock.millis(), ownerCounters);
+        CompletionStage<Void> saved = outcome.changed()
+                ? repository.recordClickAsync(link)
+                : CompletableFuture.completedFuture(null);
+
+        return saved.thenApply(ignored -> {
+            traffic.onResolve(shortKey, outcome.traffic());
+            return outcome.accepted() ? ResolveResult.found(link.getOriginalUrl()) : outcome.result(link);
+        });
+    }
+
+    // ссылки нет: либо удалена и от неё осталось надгробие, либо ключ не существовал
+    private CompletionStage<ResolveResult> resolveRemoved(String shortKey) {
+        return repository.findTombstoneStatusAsync(shortKey).thenApply(status -> {
+            ResolveResult result = LinkRules.removed(status);
+            traffic.onResolve(shortKey, LinkRules.traffic(result));
+            return result;
+        });
+    }
+
+    // разрешение допуска держится до завершения стадии, а не до возврата из метода
+    private <T> CompletionStage<T> released(AdmissionControl.Priority priority, long permit,
+                                            Supplier<CompletionStage<T>> request) {
+        CompletionStage<T> stage;
+        try {
+            stage = request.get();
+        } catch (RuntimeException e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        return stage.whenComplete((result, error) -> admission.release(priority, permit));
+    }
+
+    // Та же стратегия, что и в синхронном сервисе: attemptsPerLength попыток на каждую длину,
+    // ключи живых ссылок и ссылок с надгробием заняты
+    private CompletionStage<String> generateUniqueShortKey(Object event, int length, int attempt, int probes) {
+        if (length > maxKeyLength) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Unable to generate unique shortKey"));
+        }
+        if (attempt >= attemptsPerLength) {
+            return generateUniqueShortKey(event, length + 1, 0, probes);
+        }
+
+        String candidate = generator.generate(length);
+        return repository.findByShortKeyAsync(candidate)
+                .thenCompose(existing -> existing.isPresent()
+                        ? CompletableFuture.completedFuture(Boolean.TRUE)
+                        : repository.findTombstoneStatusAsync(candidate).thenApply(status -> status != null))
+                .thenCompose(taken -> {
+                    if (taken) {
+                        return generateUniqueShortKey(event, length, attempt + 1, probes + 1);
+                    }
+                    events.keyGenerated(event, length, probes + 1, length - initialKeyLength);
+                    return CompletableFuture.completedFuture(candidate);
+                });
+    }
+}
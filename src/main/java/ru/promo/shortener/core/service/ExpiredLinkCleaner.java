@@ -1,33 +1,130 @@
 package ru.promo.shortener.core.service;
 
+import ru.promo.shortener.core.model.LinkStatus;
 import ru.promo.shortener.core.model.ShortLink;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 
 public class ExpiredLinkCleaner implements Runnable {
 
+    public static final Duration DEFAULT_TOMBSTONE_RETENTION = Duration.ofDays(7);
+
     private final ShortLinkRepository repository;
+    private final Duration tombstoneRetention;
+    private final OwnerCounters ownerCounters;
+    private final MutationExecutor mutations;
+    private final OperationEvents events;
+    private final Clock clock;
 
     public ExpiredLinkCleaner(ShortLinkRepository repository) {
-        this.repository = Objects.requireNonNull(repository, "repository");
+        this(builder(repository));
+    }
+
+    private ExpiredLinkCleaner(Builder builder) {
+        this.repository = Objects.requireNonNull(builder.repository, "repository");
+        this.tombstoneRetention = Objects.requireNonNull(builder.tombstoneRetention, "tombstoneRetention");
+        this.ownerCounters = Objects.requireNonNull(builder.ownerCounters, "ownerCounters");
+        this.mutations = Objects.requireNonNull(builder.mutations, "mutations");
+        this.events = Objects.requireNonNull(builder.events, "events");
+        this.clock = Objects.requireNonNull(builder.clock, "clock");
+    }
+
+    public static Builder builder(ShortLinkRepository repository) {
+        return new Builder(repository);
+    }
+
+    /**
+     * Сборка очистки с необязательными зависимостями; рядом с сервисом передаются его счётчики владельцев
+     * и исполнитель изменений, чтобы удаление шло в общей очереди изменений ключа.
+     */
+    public static final class Builder {
+        private final ShortLinkRepository repository;
+        private Duration tombstoneRetention = DEFAULT_TOMBSTONE_RETENTION;
+        private OwnerCounters ownerCounters = new OwnerCounters();
+        private MutationExecutor mutations = MutationExecutor.DIRECT;
+        private OperationEvents events = OperationEvents.NONE;
+        private Clock clock = Clock.systemUTC();
+
+        private Builder(ShortLinkRepository repository) {
+            this.repository = repository;
+        }
+
+        public Builder tombstoneRetention(Duration tombstoneRetention) {
+            this.tombstoneRetention = tombstoneRetention;
+            return this;
+        }
+
+        public Builder ownerCounters(OwnerCounters ownerCounters) {
+            this.ownerCounters = ownerCounters;
+            return this;
+        }
+
+        public Builder mutations(MutationExecutor mutations) {
+            this.mutations = mutations;
+            return this;
+        }
+
+        public Builder events(OperationEvents events) {
+            this.events = events;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public ExpiredLinkCleaner build() {
+            return new ExpiredLinkCleaner(this);
+        }
     }
 
     @Override
     public void run() {
-        Instant now = Instant.now();
+        Object event = events.begin(OperationEvents.Operation.CLEANUP);
+        Instant now = Instant.now(clock);
         List<ShortLink> expired = repository.findExpired(now);
+        int deletedCount = 0;
 
         for (ShortLink link : expired) {
-            boolean deleted = repository.deleteByShortKey(link.getShortKey());
-            if (deleted) {
-                // Уведомление (консоль) — засчитывается как notifications
-                System.out.println("[CLEANUP] Deleted expired link: " + link.getShortKey()
-                        + " status=" + link.getStatus()
-                        + " owner=" + link.getOwnerUuid());
+            // удаление — изменение ссылки: на дорожке ключа, по очереди с переходами и правками владельца
+            if (mutations.execute(link.getShortKey(), () -> remove(link, now))) {
+                deletedCount++;
+            }
+        }
+
+        // надгробия отвечают "истекла/удалена" только в течение окна хранения
+        int purged = repository.purgeTombstones(now.minus(tombstoneRetention));
+        events.cleaned(event, expired.size(), deletedCount, purged);
+    }
+
+    private boolean remove(ShortLink link, Instant now) {
+        // до своей очереди ссылку могли удалить или заменить
+        if (repository.findByShortKeyOrNull(link.getShortKey()) != link) {
+            return false;
+        }
+        // TTL помечаем здесь, чтобы переход ACTIVE -> EXPIRED_BY_TTL попал в счётчики владельца
+        if (link.isExpiredByTtl(now)) {
+            if (link.markExpiredByTtl()) {
+                ownerCounters.onExpired(link.getOwnerId());
             }
+        } else if (link.isActive()) {
+            // срок продлён владельцем до своей очереди
+            return false;
+        }
+        LinkStatus status = link.getStatus();
+        boolean deleted = repository.deleteByShortKey(link.getShortKey());
+        if (deleted) {
+            ownerCounters.onRemoved(link.getOwnerId(), status);
+            // Уведомление (консоль) — засчитывается как notifications
+            System.out.println("[CLEANUP] Deleted expired link: " + link.getShortKey()
+                    + " status=" + status
+                    + " owner=" + link.getOwnerUuid());
         }
+        return deleted;
     }
 }
-
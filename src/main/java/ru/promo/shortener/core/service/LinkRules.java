@@ -0,0 +1,161 @@
+package ru.promo.shortener.core.service;
+
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.exceptions.NotFoundException;
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+
+
+/**
+ * Общие бизнес-правила синхронного и асинхронного сервисов: проверки входных данных
+ * и переход по ссылке (TTL, лимит кликов, учёт клика).
+ */
+final class LinkRules {
+
+    enum ClickOutcome {
+        ACCEPTED,
+        ACCEPTED_LAST,      // клик учтён и исчерпал лимит — ссылка помечена EXPIRED_BY_CLICKS
+        EXPIRED_TTL,
+        EXPIRED_CLICKS,
+        INACTIVE;
+
+        boolean accepted() {
+            return this == ACCEPTED || this == ACCEPTED_LAST;
+        }
+
+        // состояние ссылки изменилось и должно быть сохранено
+        boolean changed() {
+            return this != INACTIVE;
+        }
+
+        // заранее созданный результат для отказа
+        ResolveResult result(ShortLink link) {
+            return switch (this) {
+                case EXPIRED_TTL -> ResolveResult.EXPIRED_TTL;
+                case EXPIRED_CLICKS -> ResolveResult.EXPIRED_CLICKS;
+                case INACTIVE -> ResolveResult.inactive(link.getStatus());
+                default -> throw new IllegalArgumentException("Not a rejection: " + this);
+            };
+        }
+
+        TrafficRecorder.Outcome traffic() {
+            return switch (this) {
+                case ACCEPTED, ACCEPTED_LAST -> TrafficRecorder.Outcome.OK;
+                case EXPIRED_TTL -> TrafficRecorder.Outcome.EXPIRED_TTL;
+                case EXPIRED_CLICKS -> TrafficRecorder.Outcome.EXPIRED_CLICKS;
+                case INACTIVE -> TrafficRecorder.Outcome.INACTIVE;
+            };
+        }
+    }
+
+    private LinkRules() {
+    }
+
+    static void validateConfig(ApplicationConfig config) {
+        if (config.ttlSeconds <= 0) throw new ValidationException("link.ttl.seconds must be positive");
+        if (config.defaultMaxClicks <= 0) throw new ValidationException("link.default.max-clicks must be positive");
+        if (config.initialKeyLength <= 0) throw new ValidationException("shortkey.length.initial must be positive");
+        if (config.maxKeyLength < config.initialKeyLength) {
+            throw new ValidationException("shortkey.length.max must be >= shortkey.length.initial");
+        }
+        if (config.attemptsPerLength <= 0) throw new ValidationException("shortkey.attempts.per.length must be positive");
+        // арендованные блоки ключей — одной длины: увеличивать длину при коллизиях некуда
+        if (!config.keyLeasePath.isEmpty() && config.maxKeyLength != config.initialKeyLength) {
+            throw new ValidationException(
+                    "shortkey.length.max must equal shortkey.length.initial when shortkey.lease.path is set");
+        }
+    }
+
+    static void validateShortKey(String shortKey) {
+        if (shortKey == null || shortKey.isBlank()) {
+            throw new ValidationException("shortKey must not be empty");
+        }
+        if (shortKey.contains(" ")) {
+            throw new ValidationException("shortKey must not contain spaces");
+        }
+    }
+
+    static void validateOwner(String ownerUuid) {
+        if (ownerUuid == null || ownerUuid.isBlank()) throw new ValidationException("ownerUuid must not be blank");
+    }
+
+    static void validateMaxClicks(int maxClicks) {
+        if (maxClicks <= 0) {
+            throw new ValidationException("maxClicks must be greater than 0");
+        }
+    }
+
+    // переход по ссылке: проверка TTL/лимита и регистрация клика; переходы состояния учитываются в counters
+    static ClickOutcome registerClick(ShortLink link, long nowEpochMillis, OwnerCounters counters) {
+        // TTL
+        if (link.isExpiredByTtl(nowEpochMillis)) {
+            if (link.markExpiredByTtl()) {
+                counters.onExpired(link.getOwnerId());
+            }
+            return ClickOutcome.EXPIRED_TTL;
+        }
+
+        // Если уже не активна (удалена/протухла)
+        if (!link.isActive()) {
+            return ClickOutcome.INACTIVE;
+        }
+
+        // КЛЮЧЕВАЯ ПРОВЕРКА: если лимит уже исчерпан — блокируем
+        if (link.getClicks() >= link.getMaxClicks()) {
+            if (link.markExpiredByClicks()) {
+                counters.onExpired(link.getOwnerId());
+            }
+            return ClickOutcome.EXPIRED_CLICKS;
+        }
+
+        // Разрешаем переход и учитываем клик
+        link.registerClick();
+        counters.onClick(link.getOwnerId());
+
+        // Если это был последний разрешённый клик — пометим, чтобы следующий уже блокировался
+        if (link.getClicks() >= link.getMaxClicks()) {
+            if (link.markExpiredByClicks()) {
+                counters.onExpired(link.getOwnerId());
+            }
+
+            System.out.println("Link " + link.getShortKey()
+                    + " expired: click limit reached (" + link.getMaxClicks() + ")");
+            return ClickOutcome.ACCEPTED_LAST;
+        }
+        return ClickOutcome.ACCEPTED;
+    }
+
+    // ссылки нет: исход по статусу надгробия; null — ключ не существовал
+    static ResolveResult removed(LinkStatus tombstone) {
+        if (tombstone == null) {
+            return ResolveResult.NOT_FOUND;
+        }
+        return switch (tombstone) {
+            case EXPIRED_BY_TTL -> ResolveResult.EXPIRED_TTL;
+            case EXPIRED_BY_CLICKS -> ResolveResult.EXPIRED_CLICKS;
+            default -> ResolveResult.inactive(tombstone);
+        };
+    }
+
+    static TrafficRecorder.Outcome traffic(ResolveResult result) {
+        return switch (result.getStatus()) {
+            case FOUND -> TrafficRecorder.Outcome.OK;
+            case NOT_FOUND -> TrafficRecorder.Outcome.NOT_FOUND;
+            case EXPIRED_TTL -> TrafficRecorder.Outcome.EXPIRED_TTL;
+            case EXPIRED_CLICKS -> TrafficRecorder.Outcome.EXPIRED_CLICKS;
+            case INACTIVE -> TrafficRecorder.Outcome.INACTIVE;
+        };
+    }
+
+    // несостоявшийся переход как исключение API с исключениями
+    static RuntimeException failure(String shortKey, ResolveResult result) {
+        return switch (result.getStatus()) {
+            case NOT_FOUND -> new NotFoundException("Short link not found: " + shortKey);
+            case EXPIRED_TTL -> new ValidationException("Link expired by TTL");
+            case EXPIRED_CLICKS -> new ValidationException("Link expired by clicks limit");
+            case INACTIVE -> new ValidationException("Link is not active. Status: " + result.getLinkStatus());
+            case FOUND -> throw new IllegalArgumentException("Not a failure: " + result);
+        };
+    }
+}
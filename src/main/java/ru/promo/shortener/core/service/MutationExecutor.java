@@ -0,0 +1,38 @@
+package ru.promo.shortener.core.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+/**
+ * Исполнитель изменений ссылок: все изменения одного ключа выполняются строго по очереди.
+ * Чтение через него не проходит. Исключение изменения пробрасывается вызывающему.
+ */
+public interface MutationExecutor {
+
+    // в вызывающем потоке, без упорядочивания (поведение по умолчанию)
+    MutationExecutor DIRECT = new MutationExecutor() {
+        @Override
+        public <T> T execute(String shortKey, Supplier<T> mutation) {
+            return mutation.get();
+        }
+    };
+
+    // номер очереди ключа: изменения ключей с одним номером выполняются одной очередью (для пакетов)
+    default int laneOf(String shortKey) {
+        return 0;
+    }
+
+    // выполнить изменение ссылки shortKey и дождаться результата
+    <T> T execute(String shortKey, Supplier<T> mutation);
+
+    // поставить изменение ссылки shortKey в очередь, не дожидаясь его; стадия завершается вместе со стадией,
+    // которую вернуло изменение. По умолчанию изменение запускается через execute
+    default <T> CompletionStage<T> submit(String shortKey, Supplier<? extends CompletionStage<T>> mutation) {
+        try {
+            return execute(shortKey, mutation::get);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package ru.promo.shortener.core.service;
+
+/**
+ * События доменных операций для профилировщика (реализация — события JFR).
+ * Операция открывается {@link #begin(Operation)} в начале и по завершении передаёт полученную метку
+ * вместе с результатом. Метка непрозрачна: это само событие, начатое реализацией, или null,
+ * если событие не записывается. Вызывается на горячем пути: {@link #NONE} не читает часы и ничего не создаёт.
+ */
+public interface OperationEvents {
+
+    enum Operation { CREATE, RESOLVE, KEY_GENERATION, CLEANUP, FLUSH }
+
+    OperationEvents NONE = new OperationEvents() {
+        @Override
+        public Object begin(Operation operation) {
+            return null;
+        }
+
+        @Override
+        public void created(Object event, String shortKey, int maxClicks) {
+        }
+
+        @Override
+        public void resolved(Object event, String shortKey, ResolveResult.Status status) {
+        }
+
+        @Override
+        public void keyGenerated(Object event, int length, int probes, int escalations) {
+        }
+
+        @Override
+        public void cleaned(Object event, int expired, int deleted, int tombstonesPurged) {
+        }
+
+        @Override
+        public void flushed(Object event, String target, int records) {
+        }
+    };
+
+    // начало операции; метка передаётся в парный метод завершения
+    Object begin(Operation operation);
+
+    // ссылка создана
+    void created(Object event, String shortKey, int maxClicks);
+
+    // переход по ссылке с исходом
+    void resolved(Object event, String shortKey, ResolveResult.Status status);
+
+    // ключ выбран за probes проверок по хранилищу; escalations — сколько раз росла длина
+    void keyGenerated(Object event, int length, int probes, int escalations);
+
+    // проход очистки: найдено истёкших, удалено ссылок, снято надгробий
+    void cleaned(Object event, int expired, int deleted, int tombstonesPurged);
+
+    // сброс на диск или в хранилище: target — что сбрасывалось, records — сколько записей
+    void flushed(Object event, String target, int records);
+}
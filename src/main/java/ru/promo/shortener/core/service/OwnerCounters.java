@@ -0,0 +1,100 @@
+package ru.promo.shortener.core.service;
+
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.OwnerId;
+import ru.promo.shortener.core.model.ShortLink;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Инкрементальные счётчики по владельцам: активные и истёкшие ссылки, суммарные клики.
+ *
+ * Обновляются на каждом переходе состояния (создание, клик, истечение, удаление), так что
+ * {@link #stats} и проверка квоты — O(1) без обхода ссылок. Квота резервируется CAS на счётчике
+ * активных ссылок своего владельца; клики копятся в LongAdder — разные владельцы и
+ * параллельные переходы по одной ссылке не конкурируют за общий счётчик.
+ */
+public final class OwnerCounters {
+
+    private static final class Counters {
+        final AtomicLong active = new AtomicLong();
+        final AtomicLong expired = new AtomicLong();
+        final LongAdder clicks = new LongAdder();
+    }
+
+    private final ConcurrentHashMap<OwnerId, Counters> byOwner = new ConcurrentHashMap<>();
+
+    // занять место под новую активную ссылку; false — квота исчерпана (quota <= 0 — без ограничений)
+    public boolean tryReserve(OwnerId owner, int quota) {
+        AtomicLong active = counters(owner).active;
+        if (quota <= 0) {
+            active.incrementAndGet();
+            return true;
+        }
+        long current;
+        do {
+            current = active.get();
+            if (current >= quota) {
+                return false;
+            }
+        } while (!active.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    // вернуть резерв, если ссылка так и не была сохранена
+    public void release(OwnerId owner) {
+        counters(owner).active.decrementAndGet();
+    }
+
+    public void onClick(OwnerId owner) {
+        counters(owner).clicks.increment();
+    }
+
+    // ссылка перешла из ACTIVE в истёкшее состояние
+    public void onExpired(OwnerId owner) {
+        Counters counters = counters(owner);
+        counters.active.decrementAndGet();
+        counters.expired.incrementAndGet();
+    }
+
+    // ссылка удалена из хранилища; status — её статус до удаления
+    public void onRemoved(OwnerId owner, LinkStatus status) {
+        Counters counters = counters(owner);
+        if (status == LinkStatus.ACTIVE) {
+            counters.active.decrementAndGet();
+        } else {
+            counters.expired.decrementAndGet();
+        }
+    }
+
+    public OwnerStats stats(String ownerUuid) {
+        OwnerId owner = OwnerId.find(ownerUuid);
+        Counters counters = owner == null ? null : byOwner.get(owner);
+        if (counters == null) {
+            return OwnerStats.EMPTY;
+        }
+        return new OwnerStats(counters.active.get(), counters.expired.get(), counters.clicks.sum());
+    }
+
+    // пересчитать с нуля по содержимому хранилища (после загрузки снимка)
+    public void recount(Collection<ShortLink> links) {
+        byOwner.clear();
+        for (ShortLink link : links) {
+            Counters counters = counters(link.getOwnerId());
+            if (link.isActive()) {
+                counters.active.incrementAndGet();
+            } else {
+                counters.expired.incrementAndGet();
+            }
+            counters.clicks.add(link.getClicks());
+        }
+    }
+
+    private Counters counters(OwnerId owner) {
+        Counters counters = byOwner.get(owner);
+        return counters != null ? counters : byOwner.computeIfAbsent(owner, o -> new Counters());
+    }
+}
@@ -0,0 +1,31 @@
+package ru.promo.shortener.core.service;
+
+/**
+ * Счётчики владельца на момент запроса.
+ */
+public final class OwnerStats {
+
+    public static final OwnerStats EMPTY = new OwnerStats(0, 0, 0);
+
+    private final long activeLinks;
+    private final long expiredLinks;
+    private final long totalClicks;
+
+    public OwnerStats(long activeLinks, long expiredLinks, long totalClicks) {
+        this.activeLinks = activeLinks;
+        this.expiredLinks = expiredLinks;
+        this.totalClicks = totalClicks;
+    }
+
+    // активные ссылки (на них действует квота)
+    public long getActiveLinks() { return activeLinks; }
+    // истёкшие ссылки, ещё не удалённые очисткой
+    public long getExpiredLinks() { return expiredLinks; }
+    // все учтённые переходы по ссылкам владельца, включая удалённые
+    public long getTotalClicks() { return totalClicks; }
+
+    @Override
+    public String toString() {
+        return "active=" + activeLinks + " expired=" + expiredLinks + " clicks=" + totalClicks;
+    }
+}
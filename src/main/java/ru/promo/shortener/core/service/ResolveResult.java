@@ -0,0 +1,67 @@
+package ru.promo.shortener.core.service;
+
+import ru.promo.shortener.core.model.LinkStatus;
+
+/**
+ * Результат перехода по ссылке без исключений.
+ *
+ * Для всех исходов, кроме FOUND, возвращаются заранее созданные экземпляры —
+ * промах (нет ключа, истёк TTL, исчерпан лимит) не аллоцирует ничего.
+ */
+public final class ResolveResult {
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND,
+        EXPIRED_TTL,
+        EXPIRED_CLICKS,
+        INACTIVE
+    }
+
+    static final ResolveResult NOT_FOUND = new ResolveResult(Status.NOT_FOUND, null, null);
+    static final ResolveResult EXPIRED_TTL = new ResolveResult(Status.EXPIRED_TTL, null, LinkStatus.EXPIRED_BY_TTL);
+    static final ResolveResult EXPIRED_CLICKS =
+            new ResolveResult(Status.EXPIRED_CLICKS, null, LinkStatus.EXPIRED_BY_CLICKS);
+
+    // INACTIVE — по экземпляру на каждый статус ссылки, чтобы сохранить его в сообщении об ошибке
+    private static final ResolveResult[] INACTIVE = new ResolveResult[LinkStatus.values().length];
+
+    static {
+        for (LinkStatus status : LinkStatus.values()) {
+            INACTIVE[status.ordinal()] = new ResolveResult(Status.INACTIVE, null, status);
+        }
+    }
+
+    private final Status status;
+    private final String originalUrl;
+    private final LinkStatus linkStatus;
+
+    private ResolveResult(Status status, String originalUrl, LinkStatus linkStatus) {
+        this.status = status;
+        this.originalUrl = originalUrl;
+        this.linkStatus = linkStatus;
+    }
+
+    static ResolveResult found(String originalUrl) {
+        return new ResolveResult(Status.FOUND, originalUrl, LinkStatus.ACTIVE);
+    }
+
+    static ResolveResult inactive(LinkStatus linkStatus) {
+        return INACTIVE[linkStatus.ordinal()];
+    }
+
+    public Status getStatus() { return status; }
+
+    public boolean isFound() { return status == Status.FOUND; }
+
+    // исходный URL; null, если переход не состоялся
+    public String getOriginalUrl() { return originalUrl; }
+
+    // статус ссылки после перехода; null, если ссылка не найдена
+    public LinkStatus getLinkStatus() { return linkStatus; }
+
+    @Override
+    public String toString() {
+        return status == Status.FOUND ? "FOUND " + originalUrl : status.name();
+    }
+}
@@ -7,4 +7,10 @@ public interface ShortKeyGenerator {
     default String generate() {
         return generate(6);
     }
+
+    // true — генератор не повторяет собственных ключей. Сервис всё равно проверяет ключ по хранилищу
+    // и надгробиям: ключи, выданные до генератора или другим генератором, ему неизвестны
+    default boolean isCollisionFree() {
+        return false;
+    }
 }
\ No newline at end of file
@@ -1,22 +1,140 @@
 package ru.promo.shortener.core.service;
 
+import ru.promo.shortener.core.model.LinkStatus;
 import ru.promo.shortener.core.model.ShortLink;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ShortLinkRepository {
 
+    // сохранить ссылку; ссылка, уже удалённая из хранилища (статус DELETED), не сохраняется,
+    // а надгробие ключа не снимается — удалённые ключи не оживают от запоздалой записи
     void save(ShortLink link);
 
+    // вернуть ссылку из снимка: в отличие от save, снимает надгробие ключа
+    default void restore(ShortLink link) {
+        save(link);
+    }
+
+    // сохранить ссылку после перехода (клики и, возможно, статус); отдельный вызов — чтобы
+    // реализации могли отличить частые обновления кликов от прочих изменений
+    default void recordClick(ShortLink link) {
+        save(link);
+    }
+
     Optional<ShortLink> findByShortKey(String shortKey);
 
+    // то же без обёртки Optional, для горячего пути resolve; null — ссылки нет
+    default ShortLink findByShortKeyOrNull(String shortKey) {
+        return findByShortKey(shortKey).orElse(null);
+    }
+
     List<ShortLink> findByOwnerUuid(String ownerUuid);
 
     boolean deleteByShortKey(String shortKey);
 
+    // пакетные операции: реализации с дорогой записью могут выполнить пакет одним обращением к хранилищу
+    default void saveAll(Collection<ShortLink> links) {
+        for (ShortLink link : links) {
+            save(link);
+        }
+    }
+
+    // удалить ссылки, если они ещё хранятся; возвращает удалённые
+    default List<ShortLink> deleteAll(Collection<ShortLink> links) {
+        List<ShortLink> deleted = new ArrayList<>(links.size());
+        for (ShortLink link : links) {
+            if (deleteByShortKey(link.getShortKey())) {
+                deleted.add(link);
+            }
+        }
+        return deleted;
+    }
+
+    // продлить срок жизни ссылок на extension с обновлением индекса истечения
+    default void extendExpiration(Collection<ShortLink> links, Duration extension) {
+        for (ShortLink link : links) {
+            link.extendExpiration(extension);
+            save(link);
+        }
+    }
+
+    // ссылки с истёкшим TTL или исчерпанным лимитом; статус не меняет
     List<ShortLink> findExpired(Instant now);
 
     List<ShortLink> findAll();
+
+    // число хранимых ссылок по статусам (без надгробий)
+    default Map<LinkStatus, Integer> countByStatus() {
+        Map<LinkStatus, Integer> counts = new EnumMap<>(LinkStatus.class);
+        for (LinkStatus status : LinkStatus.values()) {
+            counts.put(status, 0);
+        }
+        for (ShortLink link : findAll()) {
+            counts.merge(link.getStatus(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    // ссылки с expiresAt в [from, to) в порядке истечения; поток ленивый, без полного обхода в индексных реализациях
+    default Stream<ShortLink> streamExpiringBetween(Instant from, Instant to) {
+        return findAll().stream()
+                .filter(link -> !link.getExpiresAt().isBefore(from) && link.getExpiresAt().isBefore(to))
+                .sorted(Comparator.comparing(ShortLink::getExpiresAt));
+    }
+
+    default List<ShortLink> findExpiringBetween(Instant from, Instant to, int limit) {
+        try (Stream<ShortLink> links = streamExpiringBetween(from, to)) {
+            return links.limit(limit).toList();
+        }
+    }
+
+    // ссылки, ведущие на host (канонический, в нижнем регистре)
+    default List<ShortLink> findByTargetHost(String host) {
+        return findAll().stream()
+                .filter(link -> host.equals(UrlCanonicalizer.hostOf(link.getOriginalUrl())))
+                .toList();
+    }
+
+    // ссылки на любой host внутри регистрируемого домена (см. UrlCanonicalizer.registrableDomain)
+    default List<ShortLink> findByTargetDomain(String domain) {
+        return findAll().stream()
+                .filter(link -> {
+                    String host = UrlCanonicalizer.hostOf(link.getOriginalUrl());
+                    return host != null && domain.equals(UrlCanonicalizer.registrableDomain(host));
+                })
+                .toList();
+    }
+
+    // статус удалённой ссылки, пока хранится её надгробие; null — ключ неизвестен
+    default LinkStatus findTombstoneStatus(String shortKey) {
+        return null;
+    }
+
+    // удалить надгробия старше указанного момента; возвращает число удалённых
+    default int purgeTombstones(Instant olderThan) {
+        return 0;
+    }
+
+    // обойти надгробия для снимка; ключ передаётся хэшем, которым его хранит реализация
+    default void forEachTombstone(TombstoneConsumer consumer) {
+    }
+
+    // вернуть надгробие из снимка (хэш из forEachTombstone); реализации без надгробий его пропускают
+    default void restoreTombstone(long keyHash, LinkStatus status, long deletedAtEpochSecond) {
+    }
+
+    @FunctionalInterface
+    interface TombstoneConsumer {
+        void accept(long keyHash, LinkStatus status, long deletedAtEpochSecond);
+    }
 }
@@ -1,30 +1,48 @@
 package ru.promo.shortener.core.service;
 
 import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.OwnerId;
 import ru.promo.shortener.core.model.ShortLink;
 import ru.promo.shortener.core.service.exceptions.AccessDeniedException;
 import ru.promo.shortener.core.service.exceptions.NotFoundException;
 import ru.promo.shortener.core.service.exceptions.ValidationException;
 
-import java.time.Instant;
 import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
-import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
 
 public class ShortLinkService {
 
     private final ShortLinkRepository repository;
     private final ShortKeyGenerator generator;
+    private final UrlCodec urlCodec;
+    private final TrafficRecorder traffic;
+    private final OwnerCounters ownerCounters;
+    private final MutationExecutor mutations;
+    private final AdmissionControl admission;
+    private final OperationEvents events;
 
     private final long ttlSeconds;
     private final int defaultMaxClicks;
+    private final int ownerQuota;
 
     private final int initialKeyLength;
     private final int maxKeyLength;
     private final int attemptsPerLength;
 
-    private static final int MAX_URL_LENGTH = 2048;
-
     private final Clock clock;
 
     public ShortLinkService(ShortLinkRepository repository,
@@ -37,26 +55,99 @@ public class ShortLinkService {
                             ShortKeyGenerator generator,
                             ApplicationConfig config,
                             Clock clock) {
-        this.repository = Objects.requireNonNull(repository, "repository");
-        this.generator = Objects.requireNonNull(generator, "generator");
-        Objects.requireNonNull(config, "config");
-        this.clock = Objects.requireNonNull(clock, "clock");
+        this(builder(repository, generator, config).clock(clock));
+    }
 
-        if (config.ttlSeconds <= 0) throw new ValidationException("link.ttl.seconds must be positive");
-        if (config.defaultMaxClicks <= 0) throw new ValidationException("link.default.max-clicks must be positive");
-        if (config.initialKeyLength <= 0) throw new ValidationException("shortkey.length.initial must be positive");
-        if (config.maxKeyLength < config.initialKeyLength) {
-            throw new ValidationException("shortkey.length.max must be >= shortkey.length.initial");
-        }
-        if (config.attemptsPerLength <= 0) throw new ValidationException("shortkey.attempts.per.length must be positive");
+    private ShortLinkService(Builder builder) {
+        this.repository = Objects.requireNonNull(builder.repository, "repository");
+        this.generator = Objects.requireNonNull(builder.generator, "generator");
+        this.urlCodec = Objects.requireNonNull(builder.urlCodec, "urlCodec");
+        this.traffic = Objects.requireNonNull(builder.traffic, "traffic");
+        this.ownerCounters = Objects.requireNonNull(builder.ownerCounters, "ownerCounters");
+        this.mutations = Objects.requireNonNull(builder.mutations, "mutations");
+        this.admission = Objects.requireNonNull(builder.admission, "admission");
+        this.events = Objects.requireNonNull(builder.events, "events");
+        ApplicationConfig config = Objects.requireNonNull(builder.config, "config");
+        this.clock = Objects.requireNonNull(builder.clock, "clock");
+
+        LinkRules.validateConfig(config);
 
         this.ttlSeconds = config.ttlSeconds;
         this.defaultMaxClicks = config.defaultMaxClicks;
+        this.ownerQuota = config.ownerActiveLinksQuota;
         this.initialKeyLength = config.initialKeyLength;
         this.maxKeyLength = config.maxKeyLength;
         this.attemptsPerLength = config.attemptsPerLength;
     }
 
+    public static Builder builder(ShortLinkRepository repository,
+                                  ShortKeyGenerator generator,
+                                  ApplicationConfig config) {
+        return new Builder(repository, generator, config);
+    }
+
+    /**
+     * Сборка сервиса с необязательными зависимостями: всё, что не задано, берёт
+     * выключенную реализацию (PLAIN, NONE, DIRECT, UNLIMITED) и собственные счётчики владельцев.
+     */
+    public static final class Builder {
+        private final ShortLinkRepository repository;
+        private final ShortKeyGenerator generator;
+        private final ApplicationConfig config;
+        private Clock clock = Clock.systemUTC();
+        private UrlCodec urlCodec = UrlCodec.PLAIN;
+        private TrafficRecorder traffic = TrafficRecorder.NONE;
+        private OwnerCounters ownerCounters = new OwnerCounters();
+        private MutationExecutor mutations = MutationExecutor.DIRECT;
+        private AdmissionControl admission = AdmissionControl.UNLIMITED;
+        private OperationEvents events = OperationEvents.NONE;
+
+        private Builder(ShortLinkRepository repository, ShortKeyGenerator generator, ApplicationConfig config) {
+            this.repository = repository;
+            this.generator = generator;
+            this.config = config;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public Builder urlCodec(UrlCodec urlCodec) {
+            this.urlCodec = urlCodec;
+            return this;
+        }
+
+        public Builder traffic(TrafficRecorder traffic) {
+            this.traffic = traffic;
+            return this;
+        }
+
+        public Builder ownerCounters(OwnerCounters ownerCounters) {
+            this.ownerCounters = ownerCounters;
+            return this;
+        }
+
+        public Builder mutations(MutationExecutor mutations) {
+            this.mutations = mutations;
+            return this;
+        }
+
+        public Builder admission(AdmissionControl admission) {
+            this.admission = admission;
+            return this;
+        }
+
+        public Builder events(OperationEvents events) {
+            this.events = events;
+            return this;
+        }
+
+        public ShortLinkService build() {
+            return new ShortLinkService(this);
+        }
+    }
+
     // create URL (без лимита) -> берём default
     public ShortLink create(String originalUrl, String ownerUuid) {
         return create(originalUrl, ownerUuid, defaultMaxClicks);
@@ -64,79 +155,181 @@ public class ShortLinkService {
 
     // create URL + лимит кликов (например: create https://google.com 50)
     public ShortLink create(String originalUrl, String ownerUuid, int maxClicks) {
-        validateUrl(originalUrl);
-        validateOwner(ownerUuid);
-        validateMaxClicks(maxClicks);
+        return admitted(AdmissionControl.Priority.CREATE, () -> createAdmitted(originalUrl, ownerUuid, maxClicks));
+    }
+
+    private ShortLink createAdmitted(String originalUrl, String ownerUuid, int maxClicks) {
+        Object event = events.begin(OperationEvents.Operation.CREATE);
+        String url = UrlCanonicalizer.canonicalize(originalUrl);
+        LinkRules.validateOwner(ownerUuid);
+        LinkRules.validateMaxClicks(maxClicks);
 
-        Instant now = Instant.now(clock);
-        Instant expiresAt = now.plusSeconds(ttlSeconds);
+        OwnerId owner = OwnerId.of(ownerUuid);
+        if (!ownerCounters.tryReserve(owner, ownerQuota)) {
+            throw new ValidationException("Active link quota exceeded (max " + ownerQuota + " per owner)");
+        }
+
+        ShortLink link;
+        try {
+            Instant now = Instant.now(clock);
+            Instant expiresAt = now.plusSeconds(ttlSeconds);
 
-        String shortKey = generateUniqueShortKey();
+            String shortKey = generateUniqueShortKey();
 
-        ShortLink link = new ShortLink(shortKey, originalUrl, ownerUuid, now, expiresAt, maxClicks);
-        repository.save(link);
+            link = new ShortLink(shortKey, url, ownerUuid, now, expiresAt, maxClicks,
+                    urlCodec.stemFor(url));
+            repository.save(link);
+        } catch (RuntimeException e) {
+            ownerCounters.release(owner);
+            throw e;
+        }
+        traffic.onCreate(link.getShortKey(), maxClicks);
+        events.created(event, link.getShortKey(), maxClicks);
         return link;
     }
 
-    // resolve (переход): проверка TTL/лимита + регистрация клика + вернуть originalUrl
-    public String resolve(String shortKey) {
-        if (shortKey == null || shortKey.isBlank()) {
-            throw new ValidationException("shortKey must not be empty");
-        }
-        if (shortKey.contains(" ")) {
-            throw new ValidationException("shortKey must not contain spaces");
-        }
+    // счётчики владельца за O(1), без обхода его ссылок
+    public OwnerStats ownerStats(String ownerUuid) {
+        LinkRules.validateOwner(ownerUuid);
+        return ownerCounters.stats(ownerUuid);
+    }
 
-        ShortLink link = repository.findByShortKey(shortKey)
-                .orElseThrow(() -> new NotFoundException("Short link not found: " + shortKey));
+    // активные ссылки владельца, истекающие в ближайшие window, в порядке истечения
+    public List<ShortLink> findExpiringSoon(String ownerUuid, Duration window, int limit) {
+        LinkRules.validateOwner(ownerUuid);
+        Objects.requireNonNull(window, "window");
+        if (limit <= 0) throw new ValidationException("limit must be greater than 0");
+
+        return admitted(AdmissionControl.Priority.ADMIN, () -> {
+            Instant now = Instant.now(clock);
+            try (Stream<ShortLink> links = repository.streamExpiringBetween(now, now.plus(window))) {
+                return links
+                        .filter(link -> link.isActive() && ownerUuid.equals(link.getOwnerUuid()))
+                        .limit(limit)
+                        .toList();
+            }
+        });
+    }
+
+    // ссылки владельца в любом статусе
+    public List<ShortLink> listByOwner(String ownerUuid) {
+        LinkRules.validateOwner(ownerUuid);
+        return admitted(AdmissionControl.Priority.ADMIN, () -> repository.findByOwnerUuid(ownerUuid));
+    }
 
-        Instant now = Instant.now(clock);
+    // все ссылки в системе (отладка)
+    public List<ShortLink> listAll() {
+        return admitted(AdmissionControl.Priority.ADMIN, repository::findAll);
+    }
 
-        // TTL
-        if (link.isExpiredByTtl(now)) {
-            link.markExpiredByTtl();
-            repository.save(link);
-            throw new ValidationException("Link expired by TTL");
+    // число хранимых ссылок по статусам
+    public Map<LinkStatus, Integer> countByStatus() {
+        return admitted(AdmissionControl.Priority.ADMIN, repository::countByStatus);
+    }
+
+    // все ссылки на host; wholeDomain — на любой host его регистрируемого домена (модерация)
+    public List<ShortLink> findByTargetHost(String host, boolean wholeDomain) {
+        String target = normalizeHost(host);
+        return admitted(AdmissionControl.Priority.ADMIN, () -> linksToHost(target, wholeDomain));
+    }
+
+    // удалить все ссылки на host (без проверки владельца); возвращает число удалённых
+    public int deleteByTargetHost(String host, boolean wholeDomain) {
+        String target = normalizeHost(host);
+        return admitted(AdmissionControl.Priority.ADMIN, () -> {
+            int deleted = 0;
+            for (ShortLink link : linksToHost(target, wholeDomain)) {
+                if (mutations.execute(link.getShortKey(), () -> delete(link))) {
+                    deleted++;
+                }
+            }
+            return deleted;
+        });
+    }
+
+    private List<ShortLink> linksToHost(String target, boolean wholeDomain) {
+        return wholeDomain
+                ? repository.findByTargetDomain(UrlCanonicalizer.registrableDomain(target))
+                : repository.findByTargetHost(target);
+    }
+
+    // квота активных ссылок на владельца; 0 — без ограничений
+    public int ownerQuota() {
+        return ownerQuota;
+    }
+
+    // resolve (переход): проверка TTL/лимита + регистрация клика + вернуть originalUrl
+    public String resolve(String shortKey) {
+        ResolveResult result = resolveResult(shortKey);
+        if (!result.isFound()) {
+            throw LinkRules.failure(shortKey, result);
         }
+        return result.getOriginalUrl();
+    }
 
-        // Если уже не активна (удалена/протухла)
-        if (!link.isActive()) {
-            throw new ValidationException("Link is not active. Status: " + link.getStatus());
+    // resolve без исключений на промахах; некорректный ключ — по-прежнему ValidationException,
+    // отказ при перегрузке — OverloadedException
+    public ResolveResult resolveResult(String shortKey) {
+        // без лямбды: горячий путь не выделяет память на допуск
+        long permit = admission.acquire(AdmissionControl.Priority.REDIRECT);
+        try {
+            Object event = events.begin(OperationEvents.Operation.RESOLVE);
+            ResolveResult result = resolveAdmitted(shortKey);
+            events.resolved(event, shortKey, result.getStatus());
+            return result;
+        } finally {
+            admission.release(AdmissionControl.Priority.REDIRECT, permit);
         }
+    }
 
-        // КЛЮЧЕВАЯ ПРОВЕРКА: если лимит уже исчерпан — блокируем
-        if (link.getClicks() >= link.getMaxClicks()) {
-            link.markExpiredByClicks();
-            repository.save(link);
-            throw new ValidationException("Link expired by clicks limit");
+    private ResolveResult resolveAdmitted(String shortKey) {
+        try {
+            LinkRules.validateShortKey(shortKey);
+        } catch (ValidationException e) {
+            traffic.onResolve(shortKey, TrafficRecorder.Outcome.INVALID);
+            throw e;
         }
 
-        // Разрешаем переход и учитываем клик
-        link.registerClick();
+        // промах — только чтение, мимо исполнителя изменений
+        ShortLink link = repository.findByShortKeyOrNull(shortKey);
+        if (link == null) {
+            return resolveRemoved(shortKey);
+        }
+        return mutations.execute(shortKey, () -> click(link));
+    }
 
-        // Если это был последний разрешённый клик — пометим, чтобы следующий уже блокировался
-        if (link.getClicks() >= link.getMaxClicks()) {
-            link.markExpiredByClicks();
+    private ResolveResult click(ShortLink link) {
+        String shortKey = link.getShortKey();
+        if (link.getStatus() == LinkStatus.DELETED) {
+            // удалена между поиском и переходом: не сохранять заново
+            return resolveRemoved(shortKey);
+        }
 
-            System.out.println("Link " + link.getShortKey()
-                    + " expired: click limit reached (" + link.getMaxClicks() + ")");
+        LinkRules.ClickOutcome outcome = LinkRules.registerClick(link, clock.millis(), ownerCounters);
+        if (outcome.changed()) {
+            repository.recordClick(link);
         }
+        traffic.onResolve(shortKey, outcome.traffic());
+        return outcome.accepted() ? ResolveResult.found(link.getOriginalUrl()) : outcome.result(link);
+    }
 
-        repository.save(link);
-        return link.getOriginalUrl();
+    // ссылки нет: либо удалена и от неё осталось надгробие, либо ключ не существовал
+    private ResolveResult resolveRemoved(String shortKey) {
+        ResolveResult result = LinkRules.removed(repository.findTombstoneStatus(shortKey));
+        traffic.onResolve(shortKey, LinkRules.traffic(result));
+        return result;
     }
 
     // редактирование лимита владельцем
     public ShortLink updateMaxClicks(String shortKey, String ownerUuid, int newMaxClicks) {
-        if (shortKey == null || shortKey.isBlank()) {
-            throw new ValidationException("shortKey must not be empty");
-        }
-        if (shortKey.contains(" ")) {
-            throw new ValidationException("shortKey must not contain spaces");
-        }
-        validateOwner(ownerUuid);
-        validateMaxClicks(newMaxClicks);
+        LinkRules.validateShortKey(shortKey);
+        LinkRules.validateOwner(ownerUuid);
+        LinkRules.validateMaxClicks(newMaxClicks);
+
+        return mutations.execute(shortKey, () -> applyMaxClicks(shortKey, ownerUuid, newMaxClicks));
+    }
 
+    private ShortLink applyMaxClicks(String shortKey, String ownerUuid, int newMaxClicks) {
         ShortLink link = repository.findByShortKey(shortKey)
                 .orElseThrow(() -> new NotFoundException("Short link not found: " + shortKey));
 
@@ -148,12 +341,8 @@ public class ShortLinkService {
             throw new ValidationException("Link is not active. Status: " + link.getStatus());
         }
 
-        link.setMaxClicks(newMaxClicks);
-
-        if (link.getClicks() >= link.getMaxClicks()) {
-            link.markExpiredByClicks();
-            repository.save(link);
-            return link;
+        if (link.setMaxClicks(newMaxClicks)) {
+            ownerCounters.onExpired(link.getOwnerId());
         }
 
         repository.save(link);
@@ -162,86 +351,168 @@ public class ShortLinkService {
 
     // удаление владельцем
     public boolean deleteByOwner(String shortKey, String ownerUuid) {
-        if (shortKey == null || shortKey.isBlank()) {
-            throw new ValidationException("shortKey must not be empty");
-        }
-        if (shortKey.contains(" ")) {
-            throw new ValidationException("shortKey must not contain spaces");
-        }
-        validateOwner(ownerUuid);
-
-        ShortLink link = repository.findByShortKey(shortKey)
-                .orElseThrow(() -> new NotFoundException("Short link not found: " + shortKey));
+        LinkRules.validateShortKey(shortKey);
+        LinkRules.validateOwner(ownerUuid);
 
-        if (!Objects.equals(link.getOwnerUuid(), ownerUuid)) {
-            throw new AccessDeniedException("Only owner can delete the link");
-        }
+        return mutations.execute(shortKey, () -> {
+            ShortLink link = repository.findByShortKey(shortKey)
+                    .orElseThrow(() -> new NotFoundException("Short link not found: " + shortKey));
 
-        return repository.deleteByShortKey(shortKey);
+            if (!Objects.equals(link.getOwnerUuid(), ownerUuid)) {
+                throw new AccessDeniedException("Only owner can delete the link");
+            }
+            return delete(link);
+        });
     }
 
-    private String generateUniqueShortKey() {
-        int length = initialKeyLength;
+    // ---- пакетные операции владельца: один проход по индексу владельца ----
+    // Ссылки владельца группируются по дорожкам (MutationExecutor): на каждую дорожку — одна задача,
+    // которая отбрасывает удалённые или заменённые до своей очереди ссылки и применяет изменение ко всей
+    // группе одним пакетным вызовом хранилища. Переходы по этим ссылкам идут по очереди с пакетом.
 
-        while (length <= maxKeyLength) {
-            for (int i = 0; i < attemptsPerLength; i++) {
-                String candidate = generator.generate(length);
-                if (repository.findByShortKey(candidate).isEmpty()) {
-                    return candidate;
-                }
+    // удалить все ссылки владельца; возвращает число удалённых
+    public int deleteAllByOwner(String ownerUuid) {
+        LinkRules.validateOwner(ownerUuid);
+        return admitted(AdmissionControl.Priority.ADMIN, () -> perLane(ownerUuid, this::deleteBatch));
+    }
+
+    private int deleteBatch(List<ShortLink> group) {
+        // статус для счётчиков владельца читается до удаления: удалённая ссылка помечается DELETED
+        Map<ShortLink, LinkStatus> statuses = new IdentityHashMap<>();
+        for (ShortLink link : group) {
+            if (isStored(link)) {
+                statuses.put(link, link.getStatus());
             }
-            length++;
         }
+        List<ShortLink> deleted = repository.deleteAll(statuses.keySet());
+        for (ShortLink link : deleted) {
+            ownerCounters.onRemoved(link.getOwnerId(), statuses.get(link));
+        }
+        return deleted.size();
+    }
 
-        throw new IllegalStateException("Unable to generate unique shortKey");
+    // новый лимит кликов для всех активных ссылок владельца; возвращает число изменённых
+    public int updateMaxClicksForOwner(String ownerUuid, int newMaxClicks) {
+        LinkRules.validateOwner(ownerUuid);
+        LinkRules.validateMaxClicks(newMaxClicks);
+        return admitted(AdmissionControl.Priority.ADMIN,
+                () -> perLane(ownerUuid, group -> updateMaxClicksBatch(group, newMaxClicks)));
     }
 
-    private void validateOwner(String ownerUuid) {
-        if (ownerUuid == null || ownerUuid.isBlank()) throw new ValidationException("ownerUuid must not be blank");
+    private int updateMaxClicksBatch(List<ShortLink> group, int newMaxClicks) {
+        List<ShortLink> changed = new ArrayList<>(group.size());
+        for (ShortLink link : group) {
+            if (!isStored(link) || !link.isActive()) {
+                continue;
+            }
+            if (link.setMaxClicks(newMaxClicks)) {
+                ownerCounters.onExpired(link.getOwnerId());
+            }
+            changed.add(link);
+        }
+        repository.saveAll(changed);
+        return changed.size();
     }
 
-    private void validateUrl(String url) {
-        if (url == null || url.isBlank()) {
-            throw new ValidationException("URL must not be empty");
+    // продлить срок жизни всех активных, ещё не истёкших ссылок владельца; возвращает число продлённых
+    public int extendTtlForOwner(String ownerUuid, Duration extension) {
+        LinkRules.validateOwner(ownerUuid);
+        Objects.requireNonNull(extension, "extension");
+        if (extension.isNegative() || extension.isZero()) {
+            throw new ValidationException("extension must be positive");
         }
+        return admitted(AdmissionControl.Priority.ADMIN,
+                () -> perLane(ownerUuid, group -> extendTtlBatch(group, extension)));
+    }
 
-        String normalizedUrl = url.trim();
+    private int extendTtlBatch(List<ShortLink> group, Duration extension) {
+        long now = clock.millis();
+        List<ShortLink> extended = new ArrayList<>(group.size());
+        for (ShortLink link : group) {
+            // истёкшую по TTL, но ещё не убранную ссылку не оживляем
+            if (isStored(link) && link.isActive() && !link.isExpiredByTtl(now)) {
+                extended.add(link);
+            }
+        }
+        repository.extendExpiration(extended, extension);
+        return extended.size();
+    }
 
-        if (normalizedUrl.length() > MAX_URL_LENGTH) {
-            throw new ValidationException("URL is too long (max " + MAX_URL_LENGTH + " characters)");
+    // одна задача на дорожку; дорожки обрабатывают свои группы параллельно, результат — сумма по группам
+    private int perLane(String ownerUuid, ToIntFunction<List<ShortLink>> batch) {
+        Map<Integer, List<ShortLink>> byLane = new HashMap<>();
+        for (ShortLink link : repository.findByOwnerUuid(ownerUuid)) {
+            byLane.computeIfAbsent(mutations.laneOf(link.getShortKey()), lane -> new ArrayList<>()).add(link);
+        }
+        List<CompletableFuture<Integer>> pending = new ArrayList<>(byLane.size());
+        for (List<ShortLink> group : byLane.values()) {
+            pending.add(mutations.submit(group.get(0).getShortKey(),
+                    () -> CompletableFuture.completedFuture(batch.applyAsInt(group))).toCompletableFuture());
         }
+        int total = 0;
+        for (CompletableFuture<Integer> lane : pending) {
+            try {
+                total += lane.join();
+            } catch (CompletionException e) {
+                // ошибка пакета — как если бы он выполнялся в вызывающем потоке
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return total;
+    }
 
-        final URI uri;
+    private <T> T admitted(AdmissionControl.Priority priority, Supplier<T> request) {
+        long permit = admission.acquire(priority);
         try {
-            uri = new URI(normalizedUrl);
-        } catch (Exception e) {
-            throw new ValidationException("Invalid URL format");
+            return request.get();
+        } finally {
+            admission.release(priority, permit);
         }
+    }
 
-        String scheme = uri.getScheme();
-        if (scheme == null || (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme))) {
-            throw new ValidationException("URL must start with http:// or https://");
-        }
+    // ссылка всё ещё хранится этим объектом (не удалена и не заменена до своей очереди на дорожке)
+    private boolean isStored(ShortLink link) {
+        return repository.findByShortKeyOrNull(link.getShortKey()) == link;
+    }
 
-        String host = uri.getHost();
-        if (host == null) {
-            throw new ValidationException("URL must contain a host");
+    private boolean delete(ShortLink link) {
+        LinkStatus status = link.getStatus();
+        boolean deleted = repository.deleteByShortKey(link.getShortKey());
+        if (deleted) {
+            ownerCounters.onRemoved(link.getOwnerId(), status);
         }
+        return deleted;
+    }
 
-        boolean isLocalhost = host.equalsIgnoreCase("localhost");
-        boolean isIpv4 = host.matches("\\d{1,3}(\\.\\d{1,3}){3}");
-        boolean hasDot = host.contains(".");
-
-        if (!isLocalhost && !isIpv4 && !hasDot) {
-            throw new ValidationException(
-                    "Host must be a valid domain, localhost, or IPv4 address"
-            );
+    private static String normalizeHost(String host) {
+        if (host == null || host.isBlank()) {
+            throw new ValidationException("host must not be empty");
         }
+        String normalized = host.trim().toLowerCase(Locale.ROOT);
+        return normalized.endsWith(".") ? normalized.substring(0, normalized.length() - 1) : normalized;
     }
 
-    private void validateMaxClicks(int maxClicks) {
-        if (maxClicks <= 0) {
-            throw new ValidationException("maxClicks must be greater than 0");
+    private String generateUniqueShortKey() {
+        Object event = events.begin(OperationEvents.Operation.KEY_GENERATION);
+        int length = initialKeyLength;
+        int probes = 0;
+
+        while (length <= maxKeyLength) {
+            for (int i = 0; i < attemptsPerLength; i++) {
+                String candidate = generator.generate(length);
+                probes++;
+                // проверяется и ключ генератора без коллизий: он не знает о ссылках, созданных до него
+                // (другим генератором, из снимка); ключи удалённых ссылок не переиспользуются,
+                // пока хранится надгробие
+                if (repository.findByShortKeyOrNull(candidate) == null
+                        && repository.findTombstoneStatus(candidate) == null) {
+                    events.keyGenerated(event, length, probes, length - initialKeyLength);
+                    return candidate;
+                }
+            }
+            length++;
         }
+
+        throw new IllegalStateException("Unable to generate unique shortKey");
     }
 }
@@ -0,0 +1,38 @@
+package ru.promo.shortener.core.service;
+
+/**
+ * Запись трафика сервиса (create/resolve и их исход) для последующего воспроизведения.
+ * Вызывается на горячем пути, поэтому реализация не должна блокироваться.
+ */
+public interface TrafficRecorder {
+
+    TrafficRecorder NONE = new TrafficRecorder() {
+        @Override
+        public void onCreate(String shortKey, int maxClicks) {
+        }
+
+        @Override
+        public void onResolve(String shortKey, Outcome outcome) {
+        }
+    };
+
+    enum Op {
+        CREATE,
+        RESOLVE
+    }
+
+    enum Outcome {
+        OK,
+        NOT_FOUND,
+        EXPIRED_TTL,
+        EXPIRED_CLICKS,
+        INACTIVE,
+        INVALID
+    }
+
+    // ссылка создана
+    void onCreate(String shortKey, int maxClicks);
+
+    // переход по ссылке с указанным исходом
+    void onResolve(String shortKey, Outcome outcome);
+}
@@ -0,0 +1,424 @@
+package ru.promo.shortener.core.service;
+
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+
+import java.util.Set;
+
+/**
+ * Однопроходный валидатор и канонизатор URL без регулярных выражений и промежуточных объектов.
+ *
+ * Правила повторяют прежнюю проверку через {@link java.net.URI}: схема http/https,
+ * authority вида [userinfo@]host[:port], host — домен с точкой, localhost или IPv4.
+ * Осознанное отличие: IPv6-литералы ([...]) не принимаются.
+ *
+ * Каноническая форма: схема и host в нижнем регистре, порт по умолчанию (80/443) и пустой порт убраны,
+ * пробельные символы по краям отброшены. Новая строка создаётся только если форма отличается от входа.
+ */
+public final class UrlCanonicalizer {
+
+    public static final int MAX_URL_LENGTH = 2048;
+
+    public enum Verdict {
+        VALID(null),
+        EMPTY("URL must not be empty"),
+        TOO_LONG("URL is too long (max " + MAX_URL_LENGTH + " characters)"),
+        MALFORMED("Invalid URL format"),
+        UNSUPPORTED_SCHEME("URL must start with http:// or https://"),
+        NO_HOST("URL must contain a host"),
+        INVALID_HOST("Host must be a valid domain, localhost, or IPv4 address");
+
+        private final String message;
+
+        Verdict(String message) {
+            this.message = message;
+        }
+
+        public String message() {
+            return message;
+        }
+    }
+
+    // классы символов ASCII (RFC 2396, как в java.net.URI)
+    private static final int ALPHA = 1;
+    private static final int DIGIT = 1 << 1;
+    private static final int MARK = 1 << 2;        // -_.!~*'()
+    private static final int USERINFO = 1 << 3;    // ;:&=+$,
+    private static final int PATH = 1 << 4;        // :@&=+$,;/
+    private static final int URIC = 1 << 5;        // ;/?:@&=+$,[]
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) CLASSES[c] |= ALPHA;
+        for (char c = 'A'; c <= 'Z'; c++) CLASSES[c] |= ALPHA;
+        for (char c = '0'; c <= '9'; c++) CLASSES[c] |= DIGIT;
+        mark("-_.!~*'()", MARK);
+        mark(";:&=+$,", USERINFO);
+        mark(":@&=+$,;/", PATH);
+        mark(";/?:@&=+$,[]", URIC);
+    }
+
+    // составные публичные суффиксы для registrableDomain()
+    private static final Set<String> MULTI_LABEL_SUFFIXES = Set.of(
+            "co.uk", "org.uk", "ac.uk", "gov.uk", "me.uk",
+            "com.ru", "net.ru", "org.ru", "msk.ru", "spb.ru",
+            "com.ua", "com.br", "com.au", "net.au", "org.au", "co.jp", "ne.jp", "or.jp",
+            "co.nz", "co.za", "com.cn", "com.tr", "co.in", "co.kr", "com.mx", "com.ar");
+
+    private static final Verdict[] VERDICTS = Verdict.values();
+
+    // результат scan() в одном long: вердикт в младшем байте, выше — границы для канонической формы
+    // (смещения от начала обрезанной строки, не больше MAX_URL_LENGTH — по 12 бит) и флаги
+    private static final int S_LENGTH = 8;
+    private static final int S_HOST_START = 20;
+    private static final int S_HOST_END = 32;
+    private static final int S_AUTHORITY_END = 44;
+    private static final int S_FLAGS = 56;
+    private static final long OFFSET_MASK = 0xFFF;
+
+    private static final int F_SCHEME_UPPER = 1;
+    private static final int F_HOST_UPPER = 1 << 1;
+    private static final int F_STRIP_PORT = 1 << 2;
+
+    private UrlCanonicalizer() {
+    }
+
+    // только вердикт, без аллокаций
+    public static Verdict validate(String url) {
+        return VERDICTS[(int) (scan(url) & 0xFF)];
+    }
+
+    // вердикт + каноническая форма; при ошибке — ValidationException с прежними сообщениями
+    public static String canonicalize(String url) {
+        long scanned = scan(url);
+        Verdict verdict = VERDICTS[(int) (scanned & 0xFF)];
+        if (verdict != Verdict.VALID) {
+            throw new ValidationException(verdict.message());
+        }
+
+        int start = 0;
+        while (url.charAt(start) <= ' ') start++;
+        int end = start + offset(scanned, S_LENGTH);
+        int flags = (int) (scanned >>> S_FLAGS);
+        if (flags == 0) {
+            return start == 0 && end == url.length() ? url : url.substring(start, end);
+        }
+
+        int schemeEnd = url.charAt(start + 4) == ':' ? start + 4 : start + 5;
+        int hostStart = start + offset(scanned, S_HOST_START);
+        int hostEnd = start + offset(scanned, S_HOST_END);
+        int authorityEnd = start + offset(scanned, S_AUTHORITY_END);
+
+        StringBuilder sb = new StringBuilder(end - start);
+        appendLower(sb, url, start, schemeEnd);
+        sb.append(url, schemeEnd, hostStart);
+        appendLower(sb, url, hostStart, hostEnd);
+        if ((flags & F_STRIP_PORT) == 0) {
+            sb.append(url, hostEnd, authorityEnd);
+        }
+        sb.append(url, authorityEnd, end);
+        return sb.toString();
+    }
+
+    // host канонического URL (без userinfo и порта); null, если authority нет
+    public static String hostOf(String canonicalUrl) {
+        int schemeEnd = canonicalUrl.indexOf("://");
+        if (schemeEnd < 0) {
+            return null;
+        }
+        int start = schemeEnd + 3;
+        int end = start;
+        int hostStart = start;
+        int hostEnd = -1;
+        while (end < canonicalUrl.length()) {
+            char c = canonicalUrl.charAt(end);
+            if (c == '/' || c == '?' || c == '#') break;
+            if (c == '@') {
+                hostStart = end + 1;
+                hostEnd = -1;
+            } else if (c == ':' && hostEnd < 0) {
+                hostEnd = end;
+            }
+            end++;
+        }
+        if (hostEnd < hostStart) {
+            hostEnd = end;
+        }
+        return hostStart < hostEnd ? canonicalUrl.substring(hostStart, hostEnd) : null;
+    }
+
+    /**
+     * Регистрируемый домен host: последние две метки, три — если две последние образуют известный
+     * составной публичный суффикс (co.uk, com.ru и т.п.). Приближение без полного Public Suffix List.
+     * IPv4 и одиночные имена (localhost) возвращаются как есть.
+     */
+    public static String registrableDomain(String host) {
+        if (isIpv4(host, 0, host.length())) {
+            return host;
+        }
+        int last = host.lastIndexOf('.');
+        if (last <= 0) {
+            return host;
+        }
+        int second = host.lastIndexOf('.', last - 1);
+        if (second < 0) {
+            return host;
+        }
+        if (MULTI_LABEL_SUFFIXES.contains(host.substring(second + 1))) {
+            int third = host.lastIndexOf('.', second - 1);
+            return third < 0 ? host : host.substring(third + 1);
+        }
+        return host.substring(second + 1);
+    }
+
+    // ---------------- internal ----------------
+
+    private static int offset(long scanned, int shift) {
+        return (int) (scanned >>> shift & OFFSET_MASK);
+    }
+
+    private static long scan(String url) {
+        if (url == null || url.isBlank()) {
+            return Verdict.EMPTY.ordinal();
+        }
+
+        // trim() без создания новой строки
+        int start = 0;
+        int end = url.length();
+        while (start < end && url.charAt(start) <= ' ') start++;
+        while (end > start && url.charAt(end - 1) <= ' ') end--;
+
+        if (end - start > MAX_URL_LENGTH) {
+            return Verdict.TOO_LONG.ordinal();
+        }
+
+        // scheme: http | https (без учёта регистра)
+        int flags = 0;
+        int p = start;
+        if (end - p < 5) {
+            return Verdict.UNSUPPORTED_SCHEME.ordinal();
+        }
+        for (int i = 0; i < 4; i++) {
+            char c = url.charAt(p + i);
+            if ((c | 0x20) != "http".charAt(i)) {
+                return Verdict.UNSUPPORTED_SCHEME.ordinal();
+            }
+            if (c != "http".charAt(i)) flags |= F_SCHEME_UPPER;
+        }
+        p += 4;
+        boolean https = false;
+        char c = url.charAt(p);
+        if ((c | 0x20) == 's') {
+            https = true;
+            if (c == 'S') flags |= F_SCHEME_UPPER;
+            p++;
+        }
+        if (p >= end || url.charAt(p) != ':') {
+            return Verdict.UNSUPPORTED_SCHEME.ordinal();
+        }
+        p++;
+
+        // "//" authority
+        if (p + 1 >= end || url.charAt(p) != '/' || url.charAt(p + 1) != '/') {
+            return Verdict.NO_HOST.ordinal();
+        }
+        p += 2;
+
+        int authorityStart = p;
+        int authorityEnd = p;
+        int at = -1;
+        while (authorityEnd < end) {
+            char a = url.charAt(authorityEnd);
+            if (a == '/' || a == '?' || a == '#') break;
+            if (a == '@' && at < 0) at = authorityEnd;
+            authorityEnd++;
+        }
+        if (authorityEnd == authorityStart) {
+            return (authorityEnd == end ? Verdict.MALFORMED : Verdict.NO_HOST).ordinal();
+        }
+
+        // userinfo
+        int hostStart = authorityStart;
+        if (at >= 0) {
+            if (!checkChars(url, authorityStart, at, ALPHA | DIGIT | MARK | USERINFO)) {
+                return Verdict.NO_HOST.ordinal();
+            }
+            hostStart = at + 1;
+        }
+
+        // host
+        int hostEnd = hostStart;
+        boolean hasDot = false;
+        while (hostEnd < authorityEnd) {
+            char h = url.charAt(hostEnd);
+            if (h == ':') break;
+            if (h == '.') hasDot = true;
+            if (h >= 'A' && h <= 'Z') flags |= F_HOST_UPPER;
+            hostEnd++;
+        }
+        if (!isIpv4(url, hostStart, hostEnd) && !isHostname(url, hostStart, hostEnd)) {
+            return Verdict.NO_HOST.ordinal();
+        }
+
+        // port
+        if (hostEnd < authorityEnd) {
+            long port = 0;
+            int digits = 0;
+            for (int i = hostEnd + 1; i < authorityEnd; i++) {
+                char d = url.charAt(i);
+                if (d < '0' || d > '9') {
+                    return Verdict.NO_HOST.ordinal();
+                }
+                port = port * 10 + (d - '0');
+                if (port > Integer.MAX_VALUE) {
+                    return Verdict.NO_HOST.ordinal();
+                }
+                digits++;
+            }
+            if (digits == 0 || port == (https ? 443 : 80)) {
+                flags |= F_STRIP_PORT;
+            }
+        }
+
+        // path
+        p = authorityEnd;
+        while (p < end) {
+            char x = url.charAt(p);
+            if (x == '?' || x == '#') break;
+            int q = scanChar(url, p, end, ALPHA | DIGIT | MARK | PATH);
+            if (q < 0) return Verdict.MALFORMED.ordinal();
+            p = q;
+        }
+
+        // query
+        if (p < end && url.charAt(p) == '?') {
+            p++;
+            while (p < end && url.charAt(p) != '#') {
+                int q = scanChar(url, p, end, ALPHA | DIGIT | MARK | URIC);
+                if (q < 0) return Verdict.MALFORMED.ordinal();
+                p = q;
+            }
+        }
+
+        // fragment
+        if (p < end) {
+            p++;
+            while (p < end) {
+                int q = scanChar(url, p, end, ALPHA | DIGIT | MARK | URIC);
+                if (q < 0) return Verdict.MALFORMED.ordinal();
+                p = q;
+            }
+        }
+
+        if (!hasDot && !regionEqualsIgnoreCase(url, hostStart, hostEnd, "localhost")) {
+            return Verdict.INVALID_HOST.ordinal();
+        }
+
+        return Verdict.VALID.ordinal()
+                | (long) (end - start) << S_LENGTH
+                | (long) (hostStart - start) << S_HOST_START
+                | (long) (hostEnd - start) << S_HOST_END
+                | (long) (authorityEnd - start) << S_AUTHORITY_END
+                | (long) flags << S_FLAGS;
+    }
+
+    // Один символ (или escape-последовательность %XX): индекс следующего символа или -1
+    private static int scanChar(String s, int p, int end, int allowed) {
+        char c = s.charAt(p);
+        if (c < 128) {
+            if ((CLASSES[c] & allowed) != 0) {
+                return p + 1;
+            }
+            if (c == '%' && p + 2 < end && isHex(s.charAt(p + 1)) && isHex(s.charAt(p + 2))) {
+                return p + 3;
+            }
+            return -1;
+        }
+        // "other" символы вне ASCII допустимы там же, где escape-последовательности
+        if (c > 128 && !Character.isSpaceChar(c) && !Character.isISOControl(c)) {
+            return p + 1;
+        }
+        return -1;
+    }
+
+    private static boolean checkChars(String s, int from, int to, int allowed) {
+        int p = from;
+        while (p < to) {
+            int q = scanChar(s, p, to, allowed);
+            if (q < 0) return false;
+            p = q;
+        }
+        return true;
+    }
+
+    // четыре десятичных октета 0..255, ведущие нули допустимы
+    private static boolean isIpv4(String s, int from, int to) {
+        int p = from;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (p >= to || s.charAt(p) != '.') return false;
+                p++;
+            }
+            int value = 0;
+            int digits = 0;
+            while (p < to) {
+                char c = s.charAt(p);
+                if (c < '0' || c > '9') break;
+                value = value * 10 + (c - '0');
+                if (value > 255) return false;
+                digits++;
+                p++;
+            }
+            if (digits == 0) return false;
+        }
+        return p == to;
+    }
+
+    // domainlabel *("." domainlabel) ["."], последняя метка составного имени начинается с буквы
+    private static boolean isHostname(String s, int from, int to) {
+        int p = from;
+        int lastLabel = -1;
+        while (p < to) {
+            if (!isAlphaNum(s.charAt(p))) return false;
+            lastLabel = p;
+            p++;
+            while (p < to && (isAlphaNum(s.charAt(p)) || s.charAt(p) == '-')) p++;
+            if (s.charAt(p - 1) == '-') return false;
+            if (p < to) {
+                if (s.charAt(p) != '.') return false;
+                p++;
+            }
+        }
+        if (lastLabel < 0) return false;
+        return lastLabel == from || isAlpha(s.charAt(lastLabel));
+    }
+
+    private static boolean regionEqualsIgnoreCase(String s, int from, int to, String expected) {
+        return to - from == expected.length() && s.regionMatches(true, from, expected, 0, expected.length());
+    }
+
+    private static void appendLower(StringBuilder sb, String s, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+    }
+
+    private static boolean isAlpha(char c) {
+        return c < 128 && (CLASSES[c] & ALPHA) != 0;
+    }
+
+    private static boolean isAlphaNum(char c) {
+        return c < 128 && (CLASSES[c] & (ALPHA | DIGIT)) != 0;
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static void mark(String chars, int flag) {
+        for (int i = 0; i < chars.length(); i++) {
+            CLASSES[chars.charAt(i)] |= flag;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package ru.promo.shortener.core.service;
+
+import ru.promo.shortener.core.model.UrlStem;
+
+/**
+ * Выбирает общий префикс (stem), относительно которого ссылка хранит свой URL.
+ */
+public interface UrlCodec {
+
+    // без разделения префиксов: весь URL хранится в хвосте ссылки
+    UrlCodec PLAIN = url -> UrlStem.NONE;
+
+    UrlStem stemFor(String canonicalUrl);
+}
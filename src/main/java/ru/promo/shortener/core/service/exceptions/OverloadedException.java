@@ -0,0 +1,8 @@
+package ru.promo.shortener.core.service.exceptions;
+
+public class OverloadedException extends RuntimeException {
+    // отказ должен быть дешёвым: без стека вызовов
+    public OverloadedException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.promo.shortener.core.user;
+
+import java.util.Objects;
+
+/**
+ * Личность одного клиента: владелец, от имени которого выполняются его запросы.
+ * Сессия принадлежит одному клиенту (консоли, скрипту, соединению) и между клиентами не разделяется,
+ * поэтому смена пользователя в одной сессии не влияет на запросы других.
+ */
+public final class Session {
+
+    private volatile String ownerUuid;
+
+    public Session(String ownerUuid) {
+        this.ownerUuid = Objects.requireNonNull(ownerUuid, "ownerUuid");
+    }
+
+    public String ownerUuid() {
+        return ownerUuid;
+    }
+
+    // переключить эту сессию на другого владельца
+    public void switchTo(String ownerUuid) {
+        this.ownerUuid = Objects.requireNonNull(ownerUuid, "ownerUuid");
+    }
+}
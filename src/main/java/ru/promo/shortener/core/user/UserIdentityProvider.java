@@ -10,4 +10,10 @@ public interface UserIdentityProvider {
 
     // Переключает текущего пользователя на указанный UUID,
     void switchUser(String uuid);
+
+    // Регистрирует нового пользователя, не меняя текущего: смена пользователя — дело сессии клиента
+    String registerNewUser();
+
+    // Проверяет, что пользователь с таким UUID существует; текущего не меняет
+    void requireKnownUser(String uuid);
 }
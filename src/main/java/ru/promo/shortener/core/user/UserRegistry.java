@@ -0,0 +1,27 @@
+package ru.promo.shortener.core.user;
+
+/**
+ * Реестр клиентов: API-ключ → UUID владельца.
+ * Определяет вызывающего на каждый запрос за O(1) и потокобезопасен; общего «текущего пользователя» нет.
+ */
+public interface UserRegistry {
+
+    // Реестр без ключей: любой ключ неизвестен, выдача ключей не настроена
+    UserRegistry NONE = new UserRegistry() {
+        @Override
+        public String ownerOf(String apiKey) {
+            return null;
+        }
+
+        @Override
+        public String issueKey(String ownerUuid) {
+            throw new IllegalStateException("API keys are not configured");
+        }
+    };
+
+    // Владелец ключа; null — ключ неизвестен
+    String ownerOf(String apiKey);
+
+    // Выдаёт владельцу новый API-ключ
+    String issueKey(String ownerUuid);
+}
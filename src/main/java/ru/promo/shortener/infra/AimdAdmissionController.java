@@ -0,0 +1,146 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.service.AdmissionControl;
+import ru.promo.shortener.core.service.exceptions.OverloadedException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Адаптивный предел одновременных запросов (AIMD) с приоритетами.
+ *
+ * Запрос пропускается, пока число выполняющихся запросов ниже его доли предела: переходам доступен весь
+ * предел, созданию — 3/4, отчётам и пакетным операциям — половина. Поэтому при росте нагрузки первыми
+ * отклоняются отчёты, затем создание, а переходы — последними. Сверх предела запрос сразу получает
+ * {@link OverloadedException}: очереди нет, число выполняющихся запросов не превышает предела.
+ *
+ * Предел подстраивается по латентности завершившихся переходов и созданий: дольше цели — умножается
+ * на 0.9 (не чаще раза за целевой интервал, чтобы одна волна медленных ответов не обрушила предел),
+ * быстрее цели при загрузке не меньше половины предела — растёт на 1/предел (около +1 за предел
+ * запросов). Отчёты медленные по природе и на предел не влияют.
+ */
+public final class AimdAdmissionController implements AdmissionControl {
+
+    private static final double BACKOFF = 0.9;
+    // доля предела по приоритетам (индекс — ordinal)
+    private static final double[] SHARES = {1.0, 0.75, 0.5};
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final LongSupplier nanoTime;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // текущий предел: double в битах long
+    private final AtomicLong limitBits;
+    private final AtomicLong lastBackoff;
+    private final LongAdder[] accepted = new LongAdder[Priority.values().length];
+    private final LongAdder[] rejected = new LongAdder[Priority.values().length];
+
+    public AimdAdmissionController(int maxLimit, Duration latencyTarget) {
+        this(1, maxLimit, latencyTarget, System::nanoTime);
+    }
+
+    AimdAdmissionController(int minLimit, int maxLimit, Duration latencyTarget, LongSupplier nanoTime) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("limits must satisfy 0 < minLimit <= maxLimit");
+        }
+        if (latencyTarget.isNegative() || latencyTarget.isZero()) {
+            throw new IllegalArgumentException("latencyTarget must be positive");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = latencyTarget.toNanos();
+        this.nanoTime = nanoTime;
+        this.limitBits = new AtomicLong(Double.doubleToRawLongBits(maxLimit));
+        this.lastBackoff = new AtomicLong(nanoTime.getAsLong() - targetNanos);
+        for (int i = 0; i < accepted.length; i++) {
+            accepted[i] = new LongAdder();
+            rejected[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public long acquire(Priority priority) {
+        int p = priority.ordinal();
+        int cap = Math.max(1, (int) (currentLimit() * SHARES[p]));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= cap) {
+                rejected[p].increment();
+                throw new OverloadedException("Service overloaded, " + priority.name().toLowerCase()
+                        + " request rejected");
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted[p].increment();
+                return nanoTime.getAsLong();
+            }
+        }
+    }
+
+    @Override
+    public void release(Priority priority, long permit) {
+        long now = nanoTime.getAsLong();
+        int before = inFlight.getAndDecrement();
+        if (priority == Priority.ADMIN) {
+            return;
+        }
+        if (now - permit > targetNanos) {
+            backOff(now);
+        } else if (before >= currentLimit() / 2) {
+            grow();
+        }
+    }
+
+    // текущий предел одновременных запросов
+    public int limit() {
+        return (int) currentLimit();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long accepted(Priority priority) {
+        return accepted[priority.ordinal()].sum();
+    }
+
+    public long rejected(Priority priority) {
+        return rejected[priority.ordinal()].sum();
+    }
+
+    private double currentLimit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    private void backOff(long now) {
+        long last = lastBackoff.get();
+        if (now - last < targetNanos || !lastBackoff.compareAndSet(last, now)) {
+            return;
+        }
+        while (true) {
+            long bits = limitBits.get();
+            double next = Math.max(minLimit, Double.longBitsToDouble(bits) * BACKOFF);
+            if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private void grow() {
+        while (true) {
+            long bits = limitBits.get();
+            double limit = Double.longBitsToDouble(bits);
+            if (limit >= maxLimit) {
+                return;
+            }
+            double next = Math.min(maxLimit, limit + 1.0 / limit);
+            if (limitBits.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
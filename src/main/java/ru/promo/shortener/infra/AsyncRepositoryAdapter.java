@@ -0,0 +1,94 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.AsyncShortLinkRepository;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Адаптер синхронного репозитория к асинхронному SPI.
+ *
+ * Без executor операции выполняются в вызывающем потоке и возвращают завершённые стадии —
+ * подходит для in-memory хранилища. С executor блокирующие реализации (файлы, БД)
+ * уводятся с потока вызывающего.
+ */
+public class AsyncRepositoryAdapter implements AsyncShortLinkRepository {
+
+    private final ShortLinkRepository delegate;
+    private final Executor executor;   // null — выполнять сразу
+
+    public AsyncRepositoryAdapter(ShortLinkRepository delegate) {
+        this(delegate, null);
+    }
+
+    public AsyncRepositoryAdapter(ShortLinkRepository delegate, Executor executor) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletionStage<Void> saveAsync(ShortLink link) {
+        return call(() -> {
+            delegate.save(link);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletionStage<Optional<ShortLink>> findByShortKeyAsync(String shortKey) {
+        return call(() -> delegate.findByShortKey(shortKey));
+    }
+
+    @Override
+    public CompletionStage<Void> recordClickAsync(ShortLink link) {
+        return call(() -> {
+            delegate.recordClick(link);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletionStage<LinkStatus> findTombstoneStatusAsync(String shortKey) {
+        return call(() -> delegate.findTombstoneStatus(shortKey));
+    }
+
+    @Override
+    public CompletionStage<List<ShortLink>> findByOwnerUuidAsync(String ownerUuid) {
+        return call(() -> delegate.findByOwnerUuid(ownerUuid));
+    }
+
+    @Override
+    public CompletionStage<Boolean> deleteByShortKeyAsync(String shortKey) {
+        return call(() -> delegate.deleteByShortKey(shortKey));
+    }
+
+    @Override
+    public CompletionStage<List<ShortLink>> findExpiredAsync(Instant now) {
+        return call(() -> delegate.findExpired(now));
+    }
+
+    @Override
+    public CompletionStage<List<ShortLink>> findAllAsync() {
+        return call(delegate::findAll);
+    }
+
+    private <T> CompletionStage<T> call(Supplier<T> operation) {
+        if (executor != null) {
+            return CompletableFuture.supplyAsync(operation, executor);
+        }
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
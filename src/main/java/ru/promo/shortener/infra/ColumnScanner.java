@@ -0,0 +1,57 @@
+package ru.promo.shortener.infra;
+
+import java.util.Arrays;
+
+/**
+ * Последовательные сканы примитивных колонок {@link ColumnarLinkTable}.
+ * Реализации: {@link ScalarColumnScanner} и векторная (jdk.incubator.vector), если модуль подключён
+ * (--add-modules jdk.incubator.vector); выбор — {@link #best()}.
+ */
+interface ColumnScanner {
+
+    // позиции i из [0, length), где lo <= values[i] < hi; в matches добавляется base + i
+    void range(long[] values, int length, long lo, long hi, int base, Matches matches);
+
+    // позиции i из [0, length), где values[i] == value
+    void equal(byte[] values, int length, byte value, int base, Matches matches);
+
+    // число позиций i из [0, length), где values[i] == value
+    int count(byte[] values, int length, byte value);
+
+    String name();
+
+    // векторная реализация, если модуль доступен, иначе скалярная
+    static ColumnScanner best() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // по имени: без модуля класс не должен даже загружаться
+                return (ColumnScanner) Class.forName("ru.promo.shortener.infra.VectorColumnScanner")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // нет поддержки на этой платформе — остаёмся на скалярных циклах
+            }
+        }
+        return new ScalarColumnScanner();
+    }
+
+    // растущий массив найденных record id
+    final class Matches {
+        private int[] ids = new int[64];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int index) {
+            return ids[index];
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.model.ShortLink;
+
+import java.util.Arrays;
+
+/**
+ * Таблица записей в колоночном виде: record id -> ShortLink плюс параллельные примитивные колонки
+ * expiresAt (мс epoch) и status (ordinal), по которым сканы идут последовательным проходом по памяти,
+ * не разыменовывая объекты ссылок. Клики в колонки не дублируются: ни один скан их не читает, а переход
+ * по лимиту кликов виден в колонке status.
+ *
+ * Хранится блоками фиксированного размера, как {@link LinkTable}; освобождённые id переиспользуются.
+ * Свободная ячейка: status = {@link #FREE}, expiresAt = {@link #NEVER} — ни один скан её не выбирает.
+ * Колонки записи пишутся под блокировкой её ключа (см. ColumnarShortLinkRepository); сканы читают
+ * без блокировок и сверяют найденные id с самим объектом ссылки.
+ */
+final class ColumnarLinkTable {
+
+    static final int CHUNK_BITS = 14;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    static final byte FREE = -1;
+    static final long NEVER = Long.MAX_VALUE;
+
+    static final class Chunk {
+        final ShortLink[] links = new ShortLink[CHUNK_SIZE];
+        final long[] expiresAt = new long[CHUNK_SIZE];
+        final byte[] status = new byte[CHUNK_SIZE];
+
+        Chunk() {
+            Arrays.fill(expiresAt, NEVER);
+            Arrays.fill(status, FREE);
+        }
+    }
+
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    private int[] free = new int[64];
+    private int freeSize;
+    private volatile int nextId;
+    private int size;
+
+    synchronized int add(ShortLink link) {
+        int id;
+        if (freeSize > 0) {
+            id = free[--freeSize];
+        } else {
+            id = nextId;
+            ensureChunk(id >>> CHUNK_BITS);
+            nextId = id + 1;
+        }
+        Chunk chunk = chunks[id >>> CHUNK_BITS];
+        chunk.links[id & CHUNK_MASK] = link;
+        write(chunk, id & CHUNK_MASK, link);
+        size++;
+        return id;
+    }
+
+    // переписать колонки записи из объекта ссылки
+    void update(int id, ShortLink link) {
+        write(chunks[id >>> CHUNK_BITS], id & CHUNK_MASK, link);
+    }
+
+    ShortLink get(int id) {
+        Chunk[] c = chunks;
+        int chunk = id >>> CHUNK_BITS;
+        if (id < 0 || chunk >= c.length) {
+            return null;
+        }
+        return c[chunk].links[id & CHUNK_MASK];
+    }
+
+    synchronized void remove(int id) {
+        Chunk chunk = chunks[id >>> CHUNK_BITS];
+        int offset = id & CHUNK_MASK;
+        if (chunk.links[offset] == null) {
+            return;
+        }
+        chunk.links[offset] = null;
+        chunk.status[offset] = FREE;
+        chunk.expiresAt[offset] = NEVER;
+        if (freeSize == free.length) {
+            int[] grown = new int[free.length * 2];
+            System.arraycopy(free, 0, grown, 0, freeSize);
+            free = grown;
+        }
+        free[freeSize++] = id;
+        size--;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // блоки для скана; ячейки с id от highWaterMark и выше заведомо свободны
+    Chunk[] chunks() {
+        return chunks;
+    }
+
+    int highWaterMark() {
+        return nextId;
+    }
+
+    // сколько ячеек блока index лежит ниже highWaterMark
+    static int usedLength(int index, int highWaterMark) {
+        return Math.max(0, Math.min(CHUNK_SIZE, highWaterMark - (index << CHUNK_BITS)));
+    }
+
+    private static void write(Chunk chunk, int offset, ShortLink link) {
+        chunk.expiresAt[offset] = link.getExpiresAt().toEpochMilli();
+        chunk.status[offset] = (byte) link.getStatus().ordinal();
+    }
+
+    private void ensureChunk(int chunk) {
+        Chunk[] c = chunks;
+        if (chunk < c.length) {
+            return;
+        }
+        // блоки создаются по мере роста: пустые блоки не занимают память колонок
+        Chunk[] grown = new Chunk[chunk + 1];
+        System.arraycopy(c, 0, grown, 0, c.length);
+        for (int i = c.length; i < grown.length; i++) {
+            grown[i] = new Chunk();
+        }
+        chunks = grown;
+    }
+}
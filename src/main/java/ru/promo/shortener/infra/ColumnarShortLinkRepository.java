@@ -0,0 +1,331 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.OwnerId;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory репозиторий с колоночной таблицей записей ({@link ColumnarLinkTable}) для сканов обслуживания.
+ *
+ * expiresAt и status каждой ссылки продублированы в примитивных колонках по record id,
+ * поэтому findExpired, countByStatus и streamExpiringBetween — последовательный проход по колонкам
+ * (векторный, если подключён jdk.incubator.vector), а объекты ссылок читаются только для совпадений.
+ * Колонки обновляются при каждой записи ссылки (save, recordClick, extendExpiration) под блокировкой её
+ * ключа. Найденные сканом id сверяются с объектом ссылки: скан идёт без блокировок.
+ * Под {@link WriteBehindClickRepository} клики доходят сюда только при сбросе, но колонок кликов нет,
+ * а переходы статуса write-behind передаёт сразу, так что колонка status (findExpired, countByStatus)
+ * не отстаёт; клики читаются из объекта ссылки.
+ *
+ * Индексы по host/домену и по времени истечения не ведутся — эти запросы идут полным сканом;
+ * поиск по ключу, индекс владельца и надгробия — как в {@link InMemoryShortLinkRepository}.
+ */
+public class ColumnarShortLinkRepository implements ShortLinkRepository {
+
+    private static final byte EXPIRED_BY_CLICKS = (byte) LinkStatus.EXPIRED_BY_CLICKS.ordinal();
+
+    private final Map<String, ShortLink> byShortKey = new ConcurrentHashMap<>();
+    private final ColumnarLinkTable records = new ColumnarLinkTable();
+    private final Map<OwnerId, RecordIdSet> recordsByOwner = new ConcurrentHashMap<>();
+    private final TombstoneTable tombstones = new TombstoneTable();
+
+    private final Clock clock;
+    private final ColumnScanner scanner;
+
+    public ColumnarShortLinkRepository() {
+        this(Clock.systemUTC());
+    }
+
+    public ColumnarShortLinkRepository(Clock clock) {
+        this(clock, ColumnScanner.best());
+    }
+
+    // скалярные сканы независимо от доступности Vector API (сравнение в бенчмарках)
+    public static ColumnarShortLinkRepository scalar() {
+        return new ColumnarShortLinkRepository(Clock.systemUTC(), new ScalarColumnScanner());
+    }
+
+    ColumnarShortLinkRepository(Clock clock, ColumnScanner scanner) {
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.scanner = Objects.requireNonNull(scanner, "scanner");
+    }
+
+    // реализация сканов: "scalar" или "vector N-bit"
+    public String scannerName() {
+        return scanner.name();
+    }
+
+    @Override
+    public void save(ShortLink link) {
+        Objects.requireNonNull(link, "link");
+
+        byShortKey.compute(link.getShortKey(), (key, previous) -> {
+            // удалённая ссылка (статус выставляется под этой же блокировкой) обратно не попадает
+            if (link.getStatus() == LinkStatus.DELETED) {
+                return previous;
+            }
+            if (previous != null && previous != link) {
+                unindex(previous);
+            }
+            if (link.getRecordId() < 0) {
+                index(link);
+            } else {
+                // повторное сохранение того же объекта: переписать только колонки
+                records.update(link.getRecordId(), link);
+            }
+            return link;
+        });
+    }
+
+    @Override
+    public void restore(ShortLink link) {
+        Objects.requireNonNull(link, "link");
+        byShortKey.compute(link.getShortKey(), (key, previous) -> {
+            if (previous != null && previous != link) {
+                unindex(previous);
+            }
+            // ключ снова занят живой ссылкой из снимка
+            tombstones.remove(key);
+            if (link.getRecordId() < 0) {
+                index(link);
+            } else {
+                records.update(link.getRecordId(), link);
+            }
+            return link;
+        });
+    }
+
+    @Override
+    public Optional<ShortLink> findByShortKey(String shortKey) {
+        if (shortKey == null || shortKey.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byShortKey.get(shortKey));
+    }
+
+    @Override
+    public ShortLink findByShortKeyOrNull(String shortKey) {
+        return shortKey == null ? null : byShortKey.get(shortKey);
+    }
+
+    @Override
+    public List<ShortLink> findByOwnerUuid(String ownerUuid) {
+        OwnerId owner = OwnerId.find(ownerUuid);
+        RecordIdSet ids = owner == null ? null : recordsByOwner.get(owner);
+        if (ids == null) {
+            return List.of();
+        }
+        int[] snapshot = ids.toArray();
+        List<ShortLink> result = new ArrayList<>(snapshot.length);
+        for (int id : snapshot) {
+            ShortLink link = records.get(id);
+            // id мог быть переиспользован другой ссылкой
+            if (link != null && link.getOwnerId() == owner) {
+                result.add(link);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean deleteByShortKey(String shortKey) {
+        if (shortKey == null || shortKey.isBlank()) {
+            return false;
+        }
+
+        boolean[] removed = new boolean[1];
+        byShortKey.computeIfPresent(shortKey, (key, link) -> {
+            unindex(link);
+            LinkStatus status = link.getStatus();
+            tombstones.put(key, status == LinkStatus.ACTIVE ? LinkStatus.DELETED : status,
+                    clock.instant().getEpochSecond());
+            // под блокировкой ключа, как в InMemoryShortLinkRepository
+            link.markDeleted();
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public void extendExpiration(Collection<ShortLink> links, Duration extension) {
+        Objects.requireNonNull(extension, "extension");
+        for (ShortLink link : links) {
+            byShortKey.computeIfPresent(link.getShortKey(), (key, stored) -> {
+                if (stored == link && link.getRecordId() >= 0) {
+                    link.extendExpiration(extension);
+                    records.update(link.getRecordId(), link);
+                }
+                return stored;
+            });
+        }
+    }
+
+    @Override
+    public LinkStatus findTombstoneStatus(String shortKey) {
+        return shortKey == null ? null : tombstones.get(shortKey);
+    }
+
+    @Override
+    public int purgeTombstones(Instant olderThan) {
+        return tombstones.purgeOlderThan(olderThan.getEpochSecond());
+    }
+
+    @Override
+    public void forEachTombstone(TombstoneConsumer consumer) {
+        tombstones.forEach(consumer);
+    }
+
+    @Override
+    public void restoreTombstone(long keyHash, LinkStatus status, long deletedAtEpochSecond) {
+        tombstones.putHash(keyHash, status, deletedAtEpochSecond);
+    }
+
+    // два прохода по колонкам: expiresAt раньше now и status = EXPIRED_BY_CLICKS
+    @Override
+    public List<ShortLink> findExpired(Instant now) {
+        Objects.requireNonNull(now, "now");
+        long nowMillis = now.toEpochMilli();
+
+        ColumnScanner.Matches byTtl = new ColumnScanner.Matches();
+        ColumnScanner.Matches byClicks = new ColumnScanner.Matches();
+        ColumnarLinkTable.Chunk[] chunks = records.chunks();
+        int highWaterMark = records.highWaterMark();
+        for (int c = 0; c < chunks.length; c++) {
+            int length = ColumnarLinkTable.usedLength(c, highWaterMark);
+            int base = c << ColumnarLinkTable.CHUNK_BITS;
+            // граница включает nowMillis: колонка хранит миллисекунды, а now может быть внутри той же
+            // миллисекунды позже expiresAt; точная проверка — isExpiredByTtl(now) ниже
+            scanner.range(chunks[c].expiresAt, length, Long.MIN_VALUE, nowMillis + 1, base, byTtl);
+            scanner.equal(chunks[c].status, length, EXPIRED_BY_CLICKS, base, byClicks);
+        }
+
+        List<ShortLink> expired = new ArrayList<>(byTtl.size() + byClicks.size());
+        for (int i = 0; i < byTtl.size(); i++) {
+            ShortLink link = linkOf(byTtl.get(i));
+            if (link != null && link.isExpiredByTtl(now)) {
+                expired.add(link);
+            }
+        }
+        for (int i = 0; i < byClicks.size(); i++) {
+            ShortLink link = linkOf(byClicks.get(i));
+            // истёкшие и по TTL уже добавлены первым проходом
+            if (link != null && link.getStatus() == LinkStatus.EXPIRED_BY_CLICKS && !link.isExpiredByTtl(now)) {
+                expired.add(link);
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public List<ShortLink> findAll() {
+        List<ShortLink> all = new ArrayList<>(records.size());
+        ColumnarLinkTable.Chunk[] chunks = records.chunks();
+        int highWaterMark = records.highWaterMark();
+        for (int c = 0; c < chunks.length; c++) {
+            ShortLink[] links = chunks[c].links;
+            int length = ColumnarLinkTable.usedLength(c, highWaterMark);
+            for (int i = 0; i < length; i++) {
+                if (links[i] != null) {
+                    all.add(links[i]);
+                }
+            }
+        }
+        return all;
+    }
+
+    // подсчёт по колонке status, без обращения к объектам ссылок
+    @Override
+    public Map<LinkStatus, Integer> countByStatus() {
+        LinkStatus[] statuses = LinkStatus.values();
+        int[] counts = new int[statuses.length];
+        ColumnarLinkTable.Chunk[] chunks = records.chunks();
+        int highWaterMark = records.highWaterMark();
+        for (int c = 0; c < chunks.length; c++) {
+            int length = ColumnarLinkTable.usedLength(c, highWaterMark);
+            for (int s = 0; s < statuses.length; s++) {
+                counts[s] += scanner.count(chunks[c].status, length, (byte) s);
+            }
+        }
+        Map<LinkStatus, Integer> result = new EnumMap<>(LinkStatus.class);
+        for (int s = 0; s < statuses.length; s++) {
+            result.put(statuses[s], counts[s]);
+        }
+        return result;
+    }
+
+    // O(n) проход по колонке expiresAt, затем сортировка только совпадений
+    @Override
+    public Stream<ShortLink> streamExpiringBetween(Instant from, Instant to) {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (!from.isBefore(to)) {
+            return Stream.empty();
+        }
+        ColumnScanner.Matches matches = new ColumnScanner.Matches();
+        ColumnarLinkTable.Chunk[] chunks = records.chunks();
+        int highWaterMark = records.highWaterMark();
+        for (int c = 0; c < chunks.length; c++) {
+            scanner.range(chunks[c].expiresAt, ColumnarLinkTable.usedLength(c, highWaterMark),
+                    from.toEpochMilli(), to.toEpochMilli() + 1, c << ColumnarLinkTable.CHUNK_BITS, matches);
+        }
+        List<ShortLink> links = new ArrayList<>(matches.size());
+        for (int i = 0; i < matches.size(); i++) {
+            ShortLink link = linkOf(matches.get(i));
+            if (link != null && !link.getExpiresAt().isBefore(from) && link.getExpiresAt().isBefore(to)) {
+                links.add(link);
+            }
+        }
+        links.sort(Comparator.comparing(ShortLink::getExpiresAt));
+        return links.stream();
+    }
+
+    public int tombstoneCount() {
+        return tombstones.size();
+    }
+
+    // ---------------- индексы (вызываются под блокировкой ключа в byShortKey) ----------------
+
+    private void index(ShortLink link) {
+        int id = records.add(link);
+        link.bindRecordId(id);
+        recordsByOwner.compute(link.getOwnerId(), (owner, ids) -> {
+            RecordIdSet set = ids != null ? ids : new RecordIdSet();
+            set.add(id);
+            return set;
+        });
+    }
+
+    private void unindex(ShortLink link) {
+        int id = link.getRecordId();
+        if (id < 0) {
+            return;
+        }
+        recordsByOwner.computeIfPresent(link.getOwnerId(), (owner, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+        records.remove(id);
+        link.bindRecordId(-1);
+    }
+
+    // ссылка по найденному сканом id; null — ячейка уже свободна или занята другой ссылкой
+    private ShortLink linkOf(int id) {
+        ShortLink link = records.get(id);
+        return link != null && link.getRecordId() == id ? link : null;
+    }
+}
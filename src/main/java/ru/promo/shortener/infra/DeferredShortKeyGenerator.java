@@ -0,0 +1,51 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.service.ShortKeyGenerator;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Генератор, который создаётся в фоне (например, засев SecureRandom при старте).
+ * Создание запускается сразу в конструкторе на переданном исполнителе, но старт приложения его не ждёт:
+ * первый вызов дожидается готовности, дальнейшие идут напрямую. Запуск, не создающий ссылок, не ждёт
+ * инициализации генератора, хотя она и выполняется в фоне.
+ */
+public final class DeferredShortKeyGenerator implements ShortKeyGenerator {
+
+    private final CompletableFuture<ShortKeyGenerator> pending;
+    private volatile ShortKeyGenerator ready;
+
+    public DeferredShortKeyGenerator(Supplier<ShortKeyGenerator> factory, Executor executor) {
+        Objects.requireNonNull(factory, "factory");
+        Objects.requireNonNull(executor, "executor");
+        this.pending = CompletableFuture.supplyAsync(factory, executor);
+    }
+
+    @Override
+    public String generate(int length) {
+        return generator().generate(length);
+    }
+
+    @Override
+    public boolean isCollisionFree() {
+        return generator().isCollisionFree();
+    }
+
+    private ShortKeyGenerator generator() {
+        ShortKeyGenerator generator = ready;
+        if (generator == null) {
+            try {
+                generator = pending.join();
+            } catch (CompletionException e) {
+                // ошибка создания — как если бы генератор создавался в вызывающем потоке
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            ready = generator;
+        }
+        return generator;
+    }
+}
@@ -1,31 +1,89 @@
 package ru.promo.shortener.infra;
 
 import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.OwnerId;
 import ru.promo.shortener.core.model.ShortLink;
 import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.core.service.UrlCanonicalizer;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class InMemoryShortLinkRepository implements ShortLinkRepository {
 
     // Храним по shortKey: shortKey -> ShortLink (объект)
     private final Map<String, ShortLink> byShortKey = new ConcurrentHashMap<>();
 
-    // Дополнительный индекс: UUID пользователя -> набор shortKey его ссылок
-    private final Map<String, Set<String>> shortKeysByOwner = new ConcurrentHashMap<>();
+    // Таблица записей: record id -> ShortLink
+    private final LinkTable records = new LinkTable();
+
+    // Дополнительный индекс: владелец -> компактное множество record id его ссылок
+    private final Map<OwnerId, RecordIdSet> recordsByOwner = new ConcurrentHashMap<>();
+
+    // Инвертированные индексы по целевому host и регистрируемому домену -> record id
+    private final Map<String, RecordIdSet> recordsByHost = new ConcurrentHashMap<>();
+    private final Map<String, RecordIdSet> recordsByDomain = new ConcurrentHashMap<>();
+
+    // Индекс по времени истечения: (expiresAt в мс, record id), упорядочен по времени
+    private final ConcurrentSkipListSet<ExpiryKey> byExpiry = new ConcurrentSkipListSet<>();
+
+    // Надгробия удалённых ссылок: хэш ключа -> статус и момент удаления
+    private final TombstoneTable tombstones = new TombstoneTable();
+
+    private final Clock clock;
+
+    public InMemoryShortLinkRepository() {
+        this(Clock.systemUTC());
+    }
+
+    public InMemoryShortLinkRepository(Clock clock) {
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
 
     @Override
     public void save(ShortLink link) {
         Objects.requireNonNull(link, "link");
 
-        byShortKey.put(link.getShortKey(), link);
+        // Повторное сохранение того же объекта (клик, смена статуса) — индексы не меняются
+        if (byShortKey.get(link.getShortKey()) == link && link.getRecordId() >= 0) {
+            return;
+        }
 
-        // Обновляем индекс владельца
-        shortKeysByOwner
-                .computeIfAbsent(link.getOwnerUuid(), k -> ConcurrentHashMap.newKeySet())
-                .add(link.getShortKey());
+        byShortKey.compute(link.getShortKey(), (key, previous) -> {
+            // удалённая ссылка (статус выставляется под этой же блокировкой) обратно не попадает
+            if (link.getStatus() == LinkStatus.DELETED) {
+                return previous;
+            }
+            if (previous != null && previous != link) {
+                unindex(previous);
+            }
+            if (link.getRecordId() < 0) {
+                index(link);
+            }
+            return link;
+        });
+    }
+
+    @Override
+    public void restore(ShortLink link) {
+        Objects.requireNonNull(link, "link");
+        byShortKey.compute(link.getShortKey(), (key, previous) -> {
+            if (previous != null && previous != link) {
+                unindex(previous);
+            }
+            // ключ снова занят живой ссылкой из снимка
+            tombstones.remove(key);
+            if (link.getRecordId() < 0) {
+                index(link);
+            }
+            return link;
+        });
     }
 
     @Override
@@ -36,25 +94,32 @@ public class InMemoryShortLinkRepository implements ShortLinkRepository {
         return Optional.ofNullable(byShortKey.get(shortKey));
     }
 
+    @Override
+    public ShortLink findByShortKeyOrNull(String shortKey) {
+        return shortKey == null ? null : byShortKey.get(shortKey);
+    }
+
     @Override
     public List<ShortLink> findByOwnerUuid(String ownerUuid) {
-        if (ownerUuid == null || ownerUuid.isBlank()) {
+        OwnerId owner = OwnerId.find(ownerUuid);
+        if (owner == null) {
             return List.of();
         }
 
-        Set<String> shortKeys = shortKeysByOwner.getOrDefault(ownerUuid, Set.of());
-        if (shortKeys.isEmpty()) {
-            return List.of();
-        }
+        return linksOf(recordsByOwner.get(owner), link -> link.getOwnerId() == owner);
+    }
 
-        List<ShortLink> result = new ArrayList<>(shortKeys.size());
-        for (String shortKey : shortKeys) {
-            ShortLink link = byShortKey.get(shortKey);
-            if (link != null) {
-                result.add(link);
-            }
-        }
-        return result;
+    @Override
+    public List<ShortLink> findByTargetHost(String host) {
+        return host == null ? List.of() : linksOf(recordsByHost.get(host), link -> host.equals(hostOf(link)));
+    }
+
+    @Override
+    public List<ShortLink> findByTargetDomain(String domain) {
+        return domain == null ? List.of() : linksOf(recordsByDomain.get(domain), link -> {
+            String host = hostOf(link);
+            return host != null && domain.equals(UrlCanonicalizer.registrableDomain(host));
+        });
     }
 
     @Override
@@ -63,23 +128,76 @@ public class InMemoryShortLinkRepository implements ShortLinkRepository {
             return false;
         }
 
-        ShortLink removed = byShortKey.remove(shortKey);
-        if (removed == null) {
-            return false;
+        boolean[] removed = new boolean[1];
+        byShortKey.computeIfPresent(shortKey, (key, link) -> {
+            unindex(link);
+            // тяжёлая запись освобождена, остаётся надгробие с последним статусом
+            LinkStatus status = link.getStatus();
+            tombstones.put(key, status == LinkStatus.ACTIVE ? LinkStatus.DELETED : status,
+                    clock.instant().getEpochSecond());
+            // под блокировкой ключа: запоздалый save этого объекта увидит DELETED и будет пропущен
+            link.markDeleted();
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    // запись в индексе истечения переставляется под блокировкой ключа, как при index/unindex
+    @Override
+    public void extendExpiration(Collection<ShortLink> links, Duration extension) {
+        Objects.requireNonNull(extension, "extension");
+        for (ShortLink link : links) {
+            byShortKey.computeIfPresent(link.getShortKey(), (key, stored) -> {
+                if (stored == link && link.getRecordId() >= 0) {
+                    int id = link.getRecordId();
+                    byExpiry.remove(new ExpiryKey(link.getExpiresAt().toEpochMilli(), id));
+                    link.extendExpiration(extension);
+                    byExpiry.add(new ExpiryKey(link.getExpiresAt().toEpochMilli(), id));
+                }
+                return stored;
+            });
         }
+    }
 
-        // Чистим индекс владельца
-        Set<String> shortKeys = shortKeysByOwner.get(removed.getOwnerUuid());
-        if (shortKeys != null) {
-            shortKeys.remove(shortKey);
-            if (shortKeys.isEmpty()) {
-                shortKeysByOwner.remove(removed.getOwnerUuid());
-            }
+    @Override
+    public LinkStatus findTombstoneStatus(String shortKey) {
+        return shortKey == null ? null : tombstones.get(shortKey);
+    }
+
+    @Override
+    public int purgeTombstones(Instant olderThan) {
+        return tombstones.purgeOlderThan(olderThan.getEpochSecond());
+    }
+
+    @Override
+    public void forEachTombstone(TombstoneConsumer consumer) {
+        tombstones.forEach(consumer);
+    }
+
+    @Override
+    public void restoreTombstone(long keyHash, LinkStatus status, long deletedAtEpochSecond) {
+        tombstones.putHash(keyHash, status, deletedAtEpochSecond);
+    }
+
+    // O(log n + k): диапазон skip-листа; запись сверяется по record id и expiresAt (id мог быть переиспользован)
+    @Override
+    public Stream<ShortLink> streamExpiringBetween(Instant from, Instant to) {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (!from.isBefore(to)) {
+            return Stream.empty();
         }
+        ExpiryKey low = new ExpiryKey(from.toEpochMilli(), Integer.MIN_VALUE);
+        ExpiryKey high = new ExpiryKey(to.toEpochMilli() + 1, Integer.MIN_VALUE);
+        return byExpiry.subSet(low, high).stream()
+                .map(this::linkOf)
+                .filter(link -> link != null
+                        && !link.getExpiresAt().isBefore(from) && link.getExpiresAt().isBefore(to));
+    }
 
-        // (не обязательно) помечаем объект как удалённый
-        removed.markDeleted();
-        return true;
+    public int tombstoneCount() {
+        return tombstones.size();
     }
 
     @Override
@@ -88,9 +206,8 @@ public class InMemoryShortLinkRepository implements ShortLinkRepository {
 
         List<ShortLink> expired = new ArrayList<>();
         for (ShortLink link : byShortKey.values()) {
-            // 1) TTL истёк
+            // 1) TTL истёк (статус помечает вызывающий — ExpiredLinkCleaner)
             if (link.isExpiredByTtl(now)) {
-                link.markExpiredByTtl();
                 expired.add(link);
                 continue;
             }
@@ -107,4 +224,92 @@ public class InMemoryShortLinkRepository implements ShortLinkRepository {
     public List<ShortLink> findAll() {
         return new ArrayList<>(byShortKey.values());
     }
+
+    // ---------------- индексы (вызываются под блокировкой ключа в byShortKey) ----------------
+
+    private void index(ShortLink link) {
+        int id = records.add(link);
+        link.bindRecordId(id);
+        addTo(recordsByOwner, link.getOwnerId(), id);
+        byExpiry.add(new ExpiryKey(link.getExpiresAt().toEpochMilli(), id));
+        String host = hostOf(link);
+        if (host != null) {
+            addTo(recordsByHost, host, id);
+            addTo(recordsByDomain, UrlCanonicalizer.registrableDomain(host), id);
+        }
+    }
+
+    private void unindex(ShortLink link) {
+        int id = link.getRecordId();
+        if (id < 0) {
+            return;
+        }
+        removeFrom(recordsByOwner, link.getOwnerId(), id);
+        byExpiry.remove(new ExpiryKey(link.getExpiresAt().toEpochMilli(), id));
+        String host = hostOf(link);
+        if (host != null) {
+            removeFrom(recordsByHost, host, id);
+            removeFrom(recordsByDomain, UrlCanonicalizer.registrableDomain(host), id);
+        }
+        records.remove(id);
+        link.bindRecordId(-1);
+    }
+
+    // ссылки по множеству record id; check отсекает id, уже переиспользованные другой ссылкой
+    private List<ShortLink> linksOf(RecordIdSet ids, Predicate<ShortLink> check) {
+        if (ids == null) {
+            return List.of();
+        }
+        int[] snapshot = ids.toArray();
+        List<ShortLink> result = new ArrayList<>(snapshot.length);
+        for (int id : snapshot) {
+            ShortLink link = records.get(id);
+            if (link != null && check.test(link)) {
+                result.add(link);
+            }
+        }
+        return result;
+    }
+
+    private static String hostOf(ShortLink link) {
+        return UrlCanonicalizer.hostOf(link.getOriginalUrl());
+    }
+
+    private static <K> void addTo(Map<K, RecordIdSet> index, K key, int id) {
+        index.compute(key, (k, ids) -> {
+            RecordIdSet set = ids != null ? ids : new RecordIdSet();
+            set.add(id);
+            return set;
+        });
+    }
+
+    private static <K> void removeFrom(Map<K, RecordIdSet> index, K key, int id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // запись по ключу индекса; null, если record id уже освобождён или занят другой ссылкой
+    private ShortLink linkOf(ExpiryKey key) {
+        ShortLink link = records.get(key.recordId);
+        return link != null && link.getRecordId() == key.recordId
+                && link.getExpiresAt().toEpochMilli() == key.epochMilli ? link : null;
+    }
+
+    private static final class ExpiryKey implements Comparable<ExpiryKey> {
+        final long epochMilli;
+        final int recordId;
+
+        ExpiryKey(long epochMilli, int recordId) {
+            this.epochMilli = epochMilli;
+            this.recordId = recordId;
+        }
+
+        @Override
+        public int compareTo(ExpiryKey other) {
+            int byTime = Long.compare(epochMilli, other.epochMilli);
+            return byTime != 0 ? byTime : Integer.compare(recordId, other.recordId);
+        }
+    }
 }
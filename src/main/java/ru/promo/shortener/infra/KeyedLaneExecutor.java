@@ -0,0 +1,223 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.service.MutationExecutor;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Изменения ссылок по «дорожкам»: ключ хэшируется на одну из фиксированного числа дорожек,
+ * у каждой свой поток и почтовый ящик (очередь без блокировок). Поток дорожки разбирает ящик
+ * пачками, поэтому изменения одного ключа идут строго по очереди без блокировок на ссылке,
+ * а разные ключи — параллельно на разных дорожках.
+ *
+ * Вызов из потока той же дорожки выполняется сразу (вложенные изменения не ждут сами себя).
+ * submit не ждёт дорожку: вызывающий получает стадию, которую завершит поток дорожки.
+ */
+public final class KeyedLaneExecutor implements MutationExecutor, AutoCloseable {
+
+    private static final int BATCH = 64;
+
+    private final Lane[] lanes;
+    private volatile boolean closed;
+
+    public KeyedLaneExecutor(int laneCount) {
+        if (laneCount <= 0) throw new IllegalArgumentException("laneCount must be positive");
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane("mutation-lane-" + i);
+        }
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+    }
+
+    @Override
+    public <T> T execute(String shortKey, Supplier<T> mutation) {
+        Objects.requireNonNull(shortKey, "shortKey");
+        Objects.requireNonNull(mutation, "mutation");
+        Lane lane = laneFor(shortKey);
+        if (Thread.currentThread() == lane.thread) {
+            return mutation.get();
+        }
+        if (closed) throw new IllegalStateException("Mutation executor is closed");
+
+        Task<T> task = new Task<>(mutation, Thread.currentThread());
+        if (!enqueue(lane, task)) {
+            throw new IllegalStateException("Mutation executor is closed");
+        }
+        return task.await();
+    }
+
+    @Override
+    public <T> CompletionStage<T> submit(String shortKey, Supplier<? extends CompletionStage<T>> mutation) {
+        Objects.requireNonNull(shortKey, "shortKey");
+        Objects.requireNonNull(mutation, "mutation");
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                // дорожка занята только запуском изменения; его завершение передаётся стадии без ожидания
+                mutation.get().whenComplete((value, error) -> {
+                    if (error != null) {
+                        result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause()
+                                : error);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+        Lane lane = laneFor(shortKey);
+        if (Thread.currentThread() == lane.thread) {
+            task.run();
+        } else if (closed || !enqueue(lane, task)) {
+            result.completeExceptionally(new IllegalStateException("Mutation executor is closed"));
+        }
+        return result;
+    }
+
+    // false — исполнитель закрыт и задача не будет выполнена
+    private boolean enqueue(Lane lane, Runnable task) {
+        lane.mailbox.offer(task);
+        LockSupport.unpark(lane.thread);
+        // закрытие могло завершить дорожку раньше, чем она увидела задачу
+        return !(closed && lane.mailbox.remove(task));
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    // задач, ожидающих в ящиках всех дорожек
+    public int queued() {
+        int queued = 0;
+        for (Lane lane : lanes) {
+            queued += lane.mailbox.size();
+        }
+        return queued;
+    }
+
+    // выполненных задач по всем дорожкам
+    public long executed() {
+        long executed = 0;
+        for (Lane lane : lanes) {
+            executed += lane.executed;
+        }
+        return executed;
+    }
+
+    // поставленные задачи дорабатываются, новые отклоняются
+    @Override
+    public void close() {
+        closed = true;
+        for (Lane lane : lanes) {
+            LockSupport.unpark(lane.thread);
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public int laneOf(String shortKey) {
+        int h = shortKey.hashCode();
+        h ^= h >>> 16;
+        return Math.floorMod(h * 0x9E3779B9, lanes.length);
+    }
+
+    private Lane laneFor(String shortKey) {
+        return lanes[laneOf(shortKey)];
+    }
+
+    private final class Lane implements Runnable {
+        final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        final Thread thread;
+        // пишет только поток дорожки
+        volatile long executed;
+
+        Lane(String name) {
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                int drained = 0;
+                Runnable task;
+                while (drained < BATCH && (task = mailbox.poll()) != null) {
+                    // считаем до run(): вызывающий, дождавшийся результата, уже видит свою задачу в счётчике
+                    executed++;
+                    task.run();
+                    drained++;
+                }
+                if (drained > 0) {
+                    continue;
+                }
+                if (closed) {
+                    return;
+                }
+                // разрешение от unpark не теряется, если задача пришла до park
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    private static final class Task<T> implements Runnable {
+        private final Supplier<T> mutation;
+        private final Thread waiter;
+
+        private T result;
+        private Throwable failure;
+        private volatile boolean done;
+
+        Task(Supplier<T> mutation, Thread waiter) {
+            this.mutation = mutation;
+            this.waiter = waiter;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result = mutation.get();
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                done = true;
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        T await() {
+            boolean interrupted = false;
+            while (!done) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure instanceof RuntimeException e) throw e;
+            if (failure instanceof Error e) throw e;
+            if (failure != null) throw new IllegalStateException("Mutation failed", failure);
+            return result;
+        }
+    }
+}
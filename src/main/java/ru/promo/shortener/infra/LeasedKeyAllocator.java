@@ -0,0 +1,305 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.service.ShortKeyGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Выдача ключей из арендованных блоков пространства ключей для нескольких экземпляров сервиса.
+ *
+ * Пространство ключей длины keyLength (62^keyLength номеров) разбито на блоки по blockSize.
+ * Экземпляр арендует блок в общем файле аренды и выдаёт номера из него без обращения к другим
+ * экземплярам и к хранилищу; номер переводится в ключ аффинной перестановкой (a·i + c mod 62^L),
+ * поэтому соседние ключи не выглядят последовательными, а разные номера дают разные ключи.
+ *
+ * Файл аренды хранит для блока владельца, срок аренды и границу резерва: номера ниже границы
+ * уже могли быть выданы. Резерв продлевается шагами (запись в файл раз в reserveStep ключей).
+ * Блок с истёкшей арендой (экземпляр упал) или освобождённый продолжает следующий экземпляр
+ * с границы резерва — выданные ключи не повторяются. Изменения файла идут под блокировкой файла.
+ *
+ * Формат файла (текст):
+ *   next &lt;номер следующего нового блока&gt;
+ *   block &lt;номер&gt; &lt;владелец или -&gt; &lt;аренда до, мс epoch&gt; &lt;граница резерва&gt;
+ */
+public final class LeasedKeyAllocator implements ShortKeyGenerator, AutoCloseable {
+
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private static final String SYMBOLS =
+            "abcdefghijklmnopqrstuvwxyz" +
+                    "ABCDEFGHIJKLMNOPQRSTUVWXYZ" +
+                    "0123456789";
+    private static final String RELEASED = "-";
+    // нечётный и не кратный 31 — взаимно прост с 62^L
+    private static final long MULTIPLIER = 1_597_334_677L;
+    private static final int MAX_KEY_LENGTH = 10;
+    // блокировка файла принадлежит JVM целиком: экземпляры в одном процессе упорядочиваем сами
+    private static final Object PROCESS_LOCK = new Object();
+
+    private final Path leaseFile;
+    private final int keyLength;
+    private final long keySpace;
+    private final long increment;
+    private final int blockSize;
+    private final int reserveStep;
+    private final Duration leaseDuration;
+    private final Clock clock;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // текущая аренда; доступ под this
+    private long block = -1;
+    private long nextOffset;
+    private long reservedUpTo;
+
+    public LeasedKeyAllocator(Path leaseFile, int keyLength, Duration leaseDuration) {
+        this(leaseFile, keyLength, DEFAULT_BLOCK_SIZE, leaseDuration, Clock.systemUTC());
+    }
+
+    public LeasedKeyAllocator(Path leaseFile, int keyLength, int blockSize, Duration leaseDuration, Clock clock) {
+        if (keyLength <= 0 || keyLength > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("keyLength must be within 1.." + MAX_KEY_LENGTH);
+        }
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be positive");
+        this.leaseFile = Objects.requireNonNull(leaseFile, "leaseFile");
+        this.keyLength = keyLength;
+        long space = 1;
+        for (int i = 0; i < keyLength; i++) {
+            space *= SYMBOLS.length();
+        }
+        this.keySpace = space;
+        if (blockSize > keySpace) throw new IllegalArgumentException("blockSize exceeds key space");
+        this.increment = keySpace / 3;
+        this.blockSize = blockSize;
+        this.reserveStep = Math.min(blockSize, 4096);
+        this.leaseDuration = Objects.requireNonNull(leaseDuration, "leaseDuration");
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    @Override
+    public String generate(int length) {
+        if (length != keyLength) {
+            throw new IllegalArgumentException("Leased keys have fixed length " + keyLength + ", requested " + length);
+        }
+        long index;
+        synchronized (this) {
+            if (block < 0 || nextOffset == reservedUpTo) {
+                reserve();
+            }
+            index = block * blockSize + nextOffset++;
+        }
+        return encode(index);
+    }
+
+    // ключи не повторяются ни здесь, ни у других экземпляров с тем же файлом аренды;
+    // длина ключа фиксирована — конфигурация с арендой не допускает увеличения длины (LinkRules.validateConfig)
+    @Override
+    public boolean isCollisionFree() {
+        return true;
+    }
+
+    // продлить аренду текущего блока; вызывать чаще, чем истекает leaseDuration
+    public synchronized void renew() {
+        if (block < 0) {
+            return;
+        }
+        update(blocks -> {
+            Lease lease = blocks.leases.get(block);
+            if (lease == null || !instanceId.equals(lease.owner)) {
+                // аренду перехватили после истечения: дальше выдаём из нового блока
+                block = -1;
+                return;
+            }
+            lease.expiresAt = clock.millis() + leaseDuration.toMillis();
+        });
+    }
+
+    // вернуть неиспользованный остаток блока: резерв сужается до реально выданных ключей
+    public synchronized void release() {
+        if (block < 0) {
+            return;
+        }
+        long released = block;
+        update(blocks -> {
+            Lease lease = blocks.leases.get(released);
+            if (lease != null && instanceId.equals(lease.owner)) {
+                lease.owner = RELEASED;
+                lease.reservedUpTo = nextOffset;
+                if (lease.reservedUpTo == blockSize) {
+                    blocks.leases.remove(released);
+                }
+            }
+        });
+        block = -1;
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    // номер текущего блока; -1 — блок не арендован
+    public synchronized long currentBlock() {
+        return block;
+    }
+
+    // продлить резерв в текущем блоке или арендовать новый
+    private void reserve() {
+        update(blocks -> {
+            long now = clock.millis();
+            if (block >= 0) {
+                Lease lease = blocks.leases.get(block);
+                if (lease != null && instanceId.equals(lease.owner) && lease.reservedUpTo < blockSize) {
+                    lease.reservedUpTo = Math.min(blockSize, lease.reservedUpTo + reserveStep);
+                    lease.expiresAt = now + leaseDuration.toMillis();
+                    reservedUpTo = lease.reservedUpTo;
+                    return;
+                }
+                if (lease != null && instanceId.equals(lease.owner)) {
+                    blocks.leases.remove(block);
+                }
+            }
+
+            Lease lease = null;
+            for (Iterator<Lease> it = blocks.leases.values().iterator(); it.hasNext() && lease == null; ) {
+                Lease candidate = it.next();
+                if (RELEASED.equals(candidate.owner) || candidate.expiresAt < now) {
+                    if (candidate.reservedUpTo < blockSize) {
+                        lease = candidate;
+                    } else {
+                        it.remove();
+                    }
+                }
+            }
+            if (lease == null) {
+                if ((blocks.next + 1) * blockSize > keySpace) {
+                    throw new IllegalStateException("Key space of length " + keyLength + " is exhausted");
+                }
+                lease = new Lease(blocks.next++, RELEASED, 0, 0);
+                blocks.leases.put(lease.block, lease);
+            }
+            lease.owner = instanceId;
+            lease.expiresAt = now + leaseDuration.toMillis();
+            block = lease.block;
+            nextOffset = lease.reservedUpTo;
+            lease.reservedUpTo = Math.min(blockSize, lease.reservedUpTo + reserveStep);
+            reservedUpTo = lease.reservedUpTo;
+        });
+    }
+
+    private String encode(long index) {
+        long value = (mulMod(MULTIPLIER, index, keySpace) + increment) % keySpace;
+        char[] key = new char[keyLength];
+        for (int i = keyLength - 1; i >= 0; i--) {
+            key[i] = SYMBOLS.charAt((int) (value % SYMBOLS.length()));
+            value /= SYMBOLS.length();
+        }
+        return new String(key);
+    }
+
+    // a·b mod m без переполнения (m < 2^60)
+    private static long mulMod(long a, long b, long m) {
+        long result = 0;
+        b %= m;
+        while (a > 0) {
+            if ((a & 1) != 0) {
+                result += b;
+                if (result >= m) result -= m;
+            }
+            b += b;
+            if (b >= m) b -= m;
+            a >>>= 1;
+        }
+        return result;
+    }
+
+    private interface Change {
+        void apply(LeaseTable blocks);
+    }
+
+    // прочитать файл, изменить таблицу аренды и записать обратно под блокировкой файла
+    private void update(Change change) {
+        synchronized (PROCESS_LOCK) {
+            try (FileChannel channel = FileChannel.open(leaseFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+                    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                        // читаем файл целиком
+                    }
+                    LeaseTable blocks = LeaseTable.parse(new String(buffer.array(), 0, buffer.position(),
+                            StandardCharsets.UTF_8));
+                    change.apply(blocks);
+
+                    byte[] bytes = blocks.format().getBytes(StandardCharsets.UTF_8);
+                    channel.truncate(0);
+                    channel.write(ByteBuffer.wrap(bytes), 0);
+                    channel.force(false);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to update key lease file: " + leaseFile, e);
+            }
+        }
+    }
+
+    private static final class Lease {
+        final long block;
+        String owner;
+        long expiresAt;
+        long reservedUpTo;
+
+        Lease(long block, String owner, long expiresAt, long reservedUpTo) {
+            this.block = block;
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+            this.reservedUpTo = reservedUpTo;
+        }
+    }
+
+    private static final class LeaseTable {
+        long next;
+        final Map<Long, Lease> leases = new LinkedHashMap<>();
+
+        static LeaseTable parse(String text) {
+            LeaseTable table = new LeaseTable();
+            for (String line : text.split("\n")) {
+                String[] parts = line.trim().split(" ");
+                if (parts[0].equals("next") && parts.length == 2) {
+                    table.next = Long.parseLong(parts[1]);
+                } else if (parts[0].equals("block") && parts.length == 5) {
+                    long block = Long.parseLong(parts[1]);
+                    table.leases.put(block, new Lease(block, parts[2], Long.parseLong(parts[3]),
+                            Long.parseLong(parts[4])));
+                } else if (!parts[0].isEmpty()) {
+                    throw new IllegalStateException("Malformed key lease line: " + line);
+                }
+            }
+            return table;
+        }
+
+        String format() {
+            StringBuilder sb = new StringBuilder("next ").append(next).append('\n');
+            for (Lease lease : leases.values()) {
+                sb.append("block ").append(lease.block).append(' ').append(lease.owner).append(' ')
+                        .append(lease.expiresAt).append(' ').append(lease.reservedUpTo).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.model.ShortLink;
+
+/**
+ * Таблица записей: record id -> ShortLink. Хранится блоками фиксированного размера,
+ * поэтому при росте копируется только оглавление, а освобождённые id переиспользуются.
+ *
+ * Запись защищена монитором таблицы; чтение без блокировок корректно, если id получен
+ * через структуру с happens-before (индекс владельца, ConcurrentHashMap).
+ */
+final class LinkTable {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile ShortLink[][] chunks = new ShortLink[0][];
+
+    private int[] free = new int[64];
+    private int freeSize;
+    private int nextId;
+    private int size;
+
+    synchronized int add(ShortLink link) {
+        int id;
+        if (freeSize > 0) {
+            id = free[--freeSize];
+        } else {
+            id = nextId++;
+            ensureChunk(id >>> CHUNK_BITS);
+        }
+        chunks[id >>> CHUNK_BITS][id & CHUNK_MASK] = link;
+        size++;
+        return id;
+    }
+
+    ShortLink get(int id) {
+        ShortLink[][] c = chunks;
+        int chunk = id >>> CHUNK_BITS;
+        if (id < 0 || chunk >= c.length) {
+            return null;
+        }
+        return c[chunk][id & CHUNK_MASK];
+    }
+
+    synchronized void remove(int id) {
+        ShortLink[] chunk = chunks[id >>> CHUNK_BITS];
+        if (chunk[id & CHUNK_MASK] == null) {
+            return;
+        }
+        chunk[id & CHUNK_MASK] = null;
+        if (freeSize == free.length) {
+            int[] grown = new int[free.length * 2];
+            System.arraycopy(free, 0, grown, 0, freeSize);
+            free = grown;
+        }
+        free[freeSize++] = id;
+        size--;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // верхняя граница выданных id (для последовательного обхода)
+    synchronized int highWaterMark() {
+        return nextId;
+    }
+
+    private void ensureChunk(int chunk) {
+        ShortLink[][] c = chunks;
+        if (chunk < c.length) {
+            return;
+        }
+        ShortLink[][] grown = new ShortLink[Math.max(chunk + 1, c.length * 2)][];
+        System.arraycopy(c, 0, grown, 0, c.length);
+        for (int i = c.length; i < grown.length; i++) {
+            grown[i] = new ShortLink[CHUNK_SIZE];
+        }
+        chunks = grown;
+    }
+}
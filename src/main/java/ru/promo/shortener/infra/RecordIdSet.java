@@ -0,0 +1,98 @@
+package ru.promo.shortener.infra;
+
+import java.util.Arrays;
+
+/**
+ * Компактное множество record id (int) с открытой адресацией и линейным пробированием.
+ * Около 4–8 байт на элемент вместо узла ConcurrentHashMap со строкой-ключом.
+ */
+final class RecordIdSet {
+
+    private static final int EMPTY = -1;
+
+    private int[] slots = newSlots(4);
+    private int size;
+
+    synchronized boolean add(int id) {
+        if ((size + 1) * 4 > slots.length * 3) {
+            rehash(slots.length * 2);
+        }
+        int mask = slots.length - 1;
+        int i = mix(id) & mask;
+        while (slots[i] != EMPTY) {
+            if (slots[i] == id) return false;
+            i = (i + 1) & mask;
+        }
+        slots[i] = id;
+        size++;
+        return true;
+    }
+
+    synchronized boolean remove(int id) {
+        int mask = slots.length - 1;
+        int i = mix(id) & mask;
+        while (slots[i] != id) {
+            if (slots[i] == EMPTY) return false;
+            i = (i + 1) & mask;
+        }
+
+        // удаление со сдвигом назад, чтобы не оставлять надгробий
+        int gap = i;
+        int j = (i + 1) & mask;
+        while (slots[j] != EMPTY) {
+            int home = mix(slots[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                slots[gap] = slots[j];
+                gap = j;
+            }
+            j = (j + 1) & mask;
+        }
+        slots[gap] = EMPTY;
+        size--;
+
+        if (slots.length > 8 && size * 8 < slots.length) {
+            rehash(slots.length / 2);
+        }
+        return true;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    synchronized int[] toArray() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int id : slots) {
+            if (id != EMPTY) result[n++] = id;
+        }
+        return result;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = slots;
+        slots = newSlots(capacity);
+        int mask = capacity - 1;
+        for (int id : old) {
+            if (id == EMPTY) continue;
+            int i = mix(id) & mask;
+            while (slots[i] != EMPTY) i = (i + 1) & mask;
+            slots[i] = id;
+        }
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] s = new int[capacity];
+        Arrays.fill(s, EMPTY);
+        return s;
+    }
+
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.promo.shortener.infra;
+
+/**
+ * Сканы колонок простыми циклами; используется, когда Vector API недоступен.
+ */
+final class ScalarColumnScanner implements ColumnScanner {
+
+    @Override
+    public void range(long[] values, int length, long lo, long hi, int base, Matches matches) {
+        for (int i = 0; i < length; i++) {
+            long v = values[i];
+            if (v >= lo && v < hi) {
+                matches.add(base + i);
+            }
+        }
+    }
+
+    @Override
+    public void equal(byte[] values, int length, byte value, int base, Matches matches) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                matches.add(base + i);
+            }
+        }
+    }
+
+    @Override
+    public int count(byte[] values, int length, byte value) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
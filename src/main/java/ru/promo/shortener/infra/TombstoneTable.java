@@ -0,0 +1,223 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Надгробия удалённых ссылок: 64-битный хэш ключа, байт статуса и момент удаления (секунды epoch)
+ * в параллельных примитивных массивах — около 13 байт на слот вместо целого ShortLink с URL.
+ *
+ * Ключ хранится только хэшем: ложное совпадение с никогда не существовавшим ключом
+ * возможно с вероятностью порядка n / 2^64.
+ * Чтение — оптимистичное (StampedLock) и не конкурирует с другими читателями.
+ */
+final class TombstoneTable {
+
+    private static final long EMPTY = 0;
+    private static final LinkStatus[] STATUSES = LinkStatus.values();
+
+    private final StampedLock lock = new StampedLock();
+
+    private long[] hashes = new long[16];
+    private byte[] statuses = new byte[16];
+    private int[] deletedAt = new int[16];
+    private int size;
+
+    void put(String shortKey, LinkStatus status, long epochSecond) {
+        putHash(hash(shortKey), status, epochSecond);
+    }
+
+    // то же по готовому хэшу (надгробия из снимка)
+    void putHash(long hash, LinkStatus status, long epochSecond) {
+        if (hash == EMPTY) {
+            throw new IllegalArgumentException("Tombstone hash must not be zero");
+        }
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 2 > hashes.length) {
+                rehash(hashes.length * 2);
+            }
+            int i = find(hashes, hash);
+            if (hashes[i] == EMPTY) {
+                hashes[i] = hash;
+                size++;
+            }
+            statuses[i] = (byte) status.ordinal();
+            deletedAt[i] = (int) epochSecond;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // статус по надгробию или null
+    LinkStatus get(String shortKey) {
+        long hash = hash(shortKey);
+        long stamp = lock.tryOptimisticRead();
+        long[] h = hashes;
+        byte[] s = statuses;
+        int status = lookup(h, s, hash);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                status = lookup(hashes, statuses, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return status < 0 ? null : STATUSES[status];
+    }
+
+    boolean remove(String shortKey) {
+        long hash = hash(shortKey);
+        long stamp = lock.writeLock();
+        try {
+            int mask = hashes.length - 1;
+            int i = find(hashes, hash);
+            if (hashes[i] == EMPTY) {
+                return false;
+            }
+
+            // удаление со сдвигом назад, как в RecordIdSet
+            int gap = i;
+            int j = (i + 1) & mask;
+            while (hashes[j] != EMPTY) {
+                int home = slot(hashes[j], mask);
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    hashes[gap] = hashes[j];
+                    statuses[gap] = statuses[j];
+                    deletedAt[gap] = deletedAt[j];
+                    gap = j;
+                }
+                j = (j + 1) & mask;
+            }
+            hashes[gap] = EMPTY;
+            size--;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // удалить надгробия, созданные раньше указанного момента
+    int purgeOlderThan(long epochSecond) {
+        long stamp = lock.writeLock();
+        try {
+            long[] oldHashes = hashes;
+            byte[] oldStatuses = statuses;
+            int[] oldDeletedAt = deletedAt;
+            int kept = 0;
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != EMPTY && Integer.toUnsignedLong(oldDeletedAt[i]) >= epochSecond) kept++;
+            }
+            int purged = size - kept;
+            if (purged == 0) {
+                return 0;
+            }
+
+            int capacity = 16;
+            while (capacity < kept * 2) capacity <<= 1;
+            hashes = new long[capacity];
+            statuses = new byte[capacity];
+            deletedAt = new int[capacity];
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != EMPTY && Integer.toUnsignedLong(oldDeletedAt[i]) >= epochSecond) {
+                    int j = find(hashes, oldHashes[i]);
+                    hashes[j] = oldHashes[i];
+                    statuses[j] = oldStatuses[i];
+                    deletedAt[j] = oldDeletedAt[i];
+                }
+            }
+            size = kept;
+            return purged;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // обход под блокировкой чтения: записи не меняются во время обхода
+    void forEach(ShortLinkRepository.TombstoneConsumer consumer) {
+        long stamp = lock.readLock();
+        try {
+            for (int i = 0; i < hashes.length; i++) {
+                if (hashes[i] != EMPTY) {
+                    consumer.accept(hashes[i], STATUSES[statuses[i]], Integer.toUnsignedLong(deletedAt[i]));
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // ---------------- internal ----------------
+
+    // при оптимистичном чтении массивы могут меняться — обход ограничен длиной таблицы
+    private static int lookup(long[] h, byte[] s, long hash) {
+        int mask = h.length - 1;
+        int i = slot(hash, mask);
+        for (int probes = 0; probes < h.length; probes++) {
+            long current = h[i];
+            if (current == hash) {
+                return i < s.length ? s[i] : -1;
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int find(long[] h, long hash) {
+        int mask = h.length - 1;
+        int i = slot(hash, mask);
+        while (h[i] != EMPTY && h[i] != hash) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldHashes = hashes;
+        byte[] oldStatuses = statuses;
+        int[] oldDeletedAt = deletedAt;
+        hashes = new long[capacity];
+        statuses = new byte[capacity];
+        deletedAt = new int[capacity];
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != EMPTY) {
+                int j = find(hashes, oldHashes[i]);
+                hashes[j] = oldHashes[i];
+                statuses[j] = oldStatuses[i];
+                deletedAt[j] = oldDeletedAt[i];
+            }
+        }
+    }
+
+    private static int slot(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // FNV-1a по символам ключа с финальным перемешиванием; 0 зарезервирован под пустой слот
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h == EMPTY ? 1 : h;
+    }
+}
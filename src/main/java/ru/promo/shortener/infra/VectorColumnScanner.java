@@ -0,0 +1,79 @@
+package ru.promo.shortener.infra;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Сканы колонок на Vector API: сравнение целым вектором, совпадения — по битам маски.
+ * Совпадений при сканах обслуживания мало, поэтому основной цикл — загрузка, сравнение и anyTrue.
+ * Загружается только через {@link ColumnScanner#best()}, когда модуль jdk.incubator.vector подключён.
+ */
+final class VectorColumnScanner implements ColumnScanner {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    @Override
+    public void range(long[] values, int length, long lo, long hi, int base, Matches matches) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(length); i < bound; i += LONGS.length()) {
+            LongVector v = LongVector.fromArray(LONGS, values, i);
+            VectorMask<Long> hit = v.compare(VectorOperators.GE, lo).and(v.compare(VectorOperators.LT, hi));
+            if (hit.anyTrue()) {
+                addLanes(hit.toLong(), base + i, matches);
+            }
+        }
+        for (; i < length; i++) {
+            long v = values[i];
+            if (v >= lo && v < hi) {
+                matches.add(base + i);
+            }
+        }
+    }
+
+    @Override
+    public void equal(byte[] values, int length, byte value, int base, Matches matches) {
+        int i = 0;
+        for (int bound = BYTES.loopBound(length); i < bound; i += BYTES.length()) {
+            VectorMask<Byte> hit = ByteVector.fromArray(BYTES, values, i).compare(VectorOperators.EQ, value);
+            if (hit.anyTrue()) {
+                addLanes(hit.toLong(), base + i, matches);
+            }
+        }
+        for (; i < length; i++) {
+            if (values[i] == value) {
+                matches.add(base + i);
+            }
+        }
+    }
+
+    @Override
+    public int count(byte[] values, int length, byte value) {
+        int count = 0;
+        int i = 0;
+        for (int bound = BYTES.loopBound(length); i < bound; i += BYTES.length()) {
+            count += ByteVector.fromArray(BYTES, values, i).compare(VectorOperators.EQ, value).trueCount();
+        }
+        for (; i < length; i++) {
+            if (values[i] == value) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String name() {
+        return "vector " + LONGS.vectorBitSize() + "-bit";
+    }
+
+    private static void addLanes(long bits, int base, Matches matches) {
+        while (bits != 0) {
+            matches.add(base + Long.numberOfTrailingZeros(bits));
+            bits &= bits - 1;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package ru.promo.shortener.infra;
+
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.OperationEvents;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Репозиторий-обёртка с отложенной записью кликов.
+ *
+ * Клик по активной ссылке не пишется в хранилище сразу: ссылка попадает в таблицу «грязных»
+ * (ConcurrentHashMap — блокировка на корзину, а не общая), и {@link #flush()} записывает каждую
+ * одним вызовом, сколько бы кликов она ни набрала. Переход статуса (лимит исчерпан, TTL)
+ * и любые другие изменения пишутся немедленно. Пока запись не сброшена, поиск по ключу
+ * отдаёт ту же ссылку из таблицы, поэтому лимит кликов проверяется по актуальному значению.
+ *
+ * Списки (владелец, истекающие, по host) читаются из хранилища и могут отставать по кликам
+ * на один интервал сброса.
+ */
+public final class WriteBehindClickRepository implements ShortLinkRepository, AutoCloseable {
+
+    private final ShortLinkRepository delegate;
+    private final OperationEvents events;
+    private final ConcurrentHashMap<String, ShortLink> pending = new ConcurrentHashMap<>();
+
+    // счётчики горячего пути — LongAdder, чтобы потоки resolve не делили одну ячейку
+    private final LongAdder absorbedClicks = new LongAdder();
+    private final LongAdder flushedWrites = new LongAdder();
+
+    public WriteBehindClickRepository(ShortLinkRepository delegate) {
+        this(delegate, OperationEvents.NONE);
+    }
+
+    public WriteBehindClickRepository(ShortLinkRepository delegate, OperationEvents events) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.events = Objects.requireNonNull(events, "events");
+    }
+
+    @Override
+    public void recordClick(ShortLink link) {
+        if (!link.isActive()) {
+            // переход статуса должен быть виден хранилищу сразу
+            pending.remove(link.getShortKey());
+            delegate.recordClick(link);
+            flushedWrites.increment();
+            return;
+        }
+        // клики живут в самой ссылке, поэтому повторные клики только перезаписывают ту же запись таблицы
+        pending.put(link.getShortKey(), link);
+        absorbedClicks.increment();
+    }
+
+    // записать накопленные клики: одна запись на ссылку; возвращает число записей.
+    // Сброс идёт вне дорожек изменений: ссылка может быть удалена между изъятием из таблицы и записью.
+    // Такая запись отбрасывается хранилищем — удаление помечает объект DELETED под блокировкой ключа,
+    // а save удалённого объекта пропускается (см. ShortLinkRepository.save)
+    public int flush() {
+        Object event = events.begin(OperationEvents.Operation.FLUSH);
+        int writes = 0;
+        for (String key : pending.keySet()) {
+            ShortLink link = pending.remove(key);
+            if (link != null) {
+                delegate.recordClick(link);
+                writes++;
+            }
+        }
+        flushedWrites.add(writes);
+        // пустые сбросы по расписанию не засоряют запись
+        if (writes > 0) {
+            events.flushed(event, "clicks", writes);
+        }
+        return writes;
+    }
+
+    // ссылок с несброшенными кликами
+    public int pendingLinks() {
+        return pending.size();
+    }
+
+    // кликов, принятых без немедленной записи
+    public long absorbedClicks() {
+        return absorbedClicks.sum();
+    }
+
+    // записей кликов, дошедших до хранилища (сброс и переходы статуса)
+    public long flushedWrites() {
+        return flushedWrites.sum();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    @Override
+    public void save(ShortLink link) {
+        // полная запись включает и накопленные клики
+        pending.remove(link.getShortKey());
+        delegate.save(link);
+    }
+
+    @Override
+    public void restore(ShortLink link) {
+        pending.remove(link.getShortKey());
+        delegate.restore(link);
+    }
+
+    @Override
+    public boolean deleteByShortKey(String shortKey) {
+        pending.remove(shortKey);
+        return delegate.deleteByShortKey(shortKey);
+    }
+
+    @Override
+    public void saveAll(Collection<ShortLink> links) {
+        for (ShortLink link : links) {
+            pending.remove(link.getShortKey());
+        }
+        delegate.saveAll(links);
+    }
+
+    @Override
+    public List<ShortLink> deleteAll(Collection<ShortLink> links) {
+        for (ShortLink link : links) {
+            pending.remove(link.getShortKey());
+        }
+        return delegate.deleteAll(links);
+    }
+
+    @Override
+    public void extendExpiration(Collection<ShortLink> links, Duration extension) {
+        delegate.extendExpiration(links, extension);
+    }
+
+    @Override
+    public Optional<ShortLink> findByShortKey(String shortKey) {
+        return Optional.ofNullable(findByShortKeyOrNull(shortKey));
+    }
+
+    @Override
+    public ShortLink findByShortKeyOrNull(String shortKey) {
+        ShortLink link = pending.get(shortKey);
+        return link != null ? link : delegate.findByShortKeyOrNull(shortKey);
+    }
+
+    @Override
+    public List<ShortLink> findByOwnerUuid(String ownerUuid) {
+        return delegate.findByOwnerUuid(ownerUuid);
+    }
+
+    @Override
+    public List<ShortLink> findExpired(Instant now) {
+        return delegate.findExpired(now);
+    }
+
+    @Override
+    public List<ShortLink> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Map<LinkStatus, Integer> countByStatus() {
+        return delegate.countByStatus();
+    }
+
+    @Override
+    public Stream<ShortLink> streamExpiringBetween(Instant from, Instant to) {
+        return delegate.streamExpiringBetween(from, to);
+    }
+
+    @Override
+    public List<ShortLink> findExpiringBetween(Instant from, Instant to, int limit) {
+        return delegate.findExpiringBetween(from, to, limit);
+    }
+
+    @Override
+    public List<ShortLink> findByTargetHost(String host) {
+        return delegate.findByTargetHost(host);
+    }
+
+    @Override
+    public List<ShortLink> findByTargetDomain(String domain) {
+        return delegate.findByTargetDomain(domain);
+    }
+
+    @Override
+    public LinkStatus findTombstoneStatus(String shortKey) {
+        return delegate.findTombstoneStatus(shortKey);
+    }
+
+    @Override
+    public int purgeTombstones(Instant olderThan) {
+        return delegate.purgeTombstones(olderThan);
+    }
+
+    @Override
+    public void forEachTombstone(TombstoneConsumer consumer) {
+        delegate.forEachTombstone(consumer);
+    }
+
+    @Override
+    public void restoreTombstone(long keyHash, LinkStatus status, long deletedAtEpochSecond) {
+        delegate.restoreTombstone(keyHash, status, deletedAtEpochSecond);
+    }
+}
@@ -0,0 +1,144 @@
+package ru.promo.shortener.infra.cdc;
+
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Репозиторий-обёртка: выполняет операцию в исходном хранилище и публикует изменение в {@link ChangeFeed}.
+ * Чтение, индексы и надгробия целиком делегируются.
+ */
+public final class ChangeCapturingShortLinkRepository implements ShortLinkRepository {
+
+    private final ShortLinkRepository delegate;
+    private final ChangeFeed feed;
+
+    public ChangeCapturingShortLinkRepository(ShortLinkRepository delegate, ChangeFeed feed) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.feed = Objects.requireNonNull(feed, "feed");
+    }
+
+    @Override
+    public void save(ShortLink link) {
+        boolean existed = delegate.findByShortKeyOrNull(link.getShortKey()) != null;
+        delegate.save(link);
+        ChangeEvent.Type type;
+        if (!existed) {
+            type = ChangeEvent.Type.CREATED;
+        } else {
+            type = link.isActive() ? ChangeEvent.Type.UPDATED : ChangeEvent.Type.STATUS_CHANGED;
+        }
+        feed.publish(type, link);
+    }
+
+    // восстановление из снимка — не изменение данных, в ленту не публикуется
+    @Override
+    public void restore(ShortLink link) {
+        delegate.restore(link);
+    }
+
+    @Override
+    public void recordClick(ShortLink link) {
+        delegate.recordClick(link);
+        feed.publish(link.isActive() ? ChangeEvent.Type.CLICKS_UPDATED : ChangeEvent.Type.STATUS_CHANGED, link);
+    }
+
+    @Override
+    public boolean deleteByShortKey(String shortKey) {
+        ShortLink link = delegate.findByShortKeyOrNull(shortKey);
+        boolean deleted = delegate.deleteByShortKey(shortKey);
+        if (deleted && link != null) {
+            feed.publish(ChangeEvent.Type.DELETED, link);
+        }
+        return deleted;
+    }
+
+    @Override
+    public void extendExpiration(Collection<ShortLink> links, Duration extension) {
+        delegate.extendExpiration(links, extension);
+        for (ShortLink link : links) {
+            if (delegate.findByShortKeyOrNull(link.getShortKey()) != null) {
+                feed.publish(ChangeEvent.Type.UPDATED, link);
+            }
+        }
+    }
+
+    @Override
+    public Optional<ShortLink> findByShortKey(String shortKey) {
+        return delegate.findByShortKey(shortKey);
+    }
+
+    @Override
+    public ShortLink findByShortKeyOrNull(String shortKey) {
+        return delegate.findByShortKeyOrNull(shortKey);
+    }
+
+    @Override
+    public List<ShortLink> findByOwnerUuid(String ownerUuid) {
+        return delegate.findByOwnerUuid(ownerUuid);
+    }
+
+    @Override
+    public List<ShortLink> findExpired(Instant now) {
+        return delegate.findExpired(now);
+    }
+
+    @Override
+    public List<ShortLink> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Map<LinkStatus, Integer> countByStatus() {
+        return delegate.countByStatus();
+    }
+
+    @Override
+    public Stream<ShortLink> streamExpiringBetween(Instant from, Instant to) {
+        return delegate.streamExpiringBetween(from, to);
+    }
+
+    @Override
+    public List<ShortLink> findExpiringBetween(Instant from, Instant to, int limit) {
+        return delegate.findExpiringBetween(from, to, limit);
+    }
+
+    @Override
+    public List<ShortLink> findByTargetHost(String host) {
+        return delegate.findByTargetHost(host);
+    }
+
+    @Override
+    public List<ShortLink> findByTargetDomain(String domain) {
+        return delegate.findByTargetDomain(domain);
+    }
+
+    @Override
+    public LinkStatus findTombstoneStatus(String shortKey) {
+        return delegate.findTombstoneStatus(shortKey);
+    }
+
+    @Override
+    public int purgeTombstones(Instant olderThan) {
+        return delegate.purgeTombstones(olderThan);
+    }
+
+    @Override
+    public void forEachTombstone(TombstoneConsumer consumer) {
+        delegate.forEachTombstone(consumer);
+    }
+
+    @Override
+    public void restoreTombstone(long keyHash, LinkStatus status, long deletedAtEpochSecond) {
+        delegate.restoreTombstone(keyHash, status, deletedAtEpochSecond);
+    }
+}
@@ -0,0 +1,57 @@
+package ru.promo.shortener.infra.cdc;
+
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+
+/**
+ * Одно изменение ссылки в ленте {@link ChangeFeed}: тип, номер и снимок полей, изменяемых после создания.
+ */
+public final class ChangeEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,            // прочие изменения активной ссылки (лимит кликов, срок жизни)
+        CLICKS_UPDATED,
+        STATUS_CHANGED,     // ссылка перестала быть активной
+        DELETED
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final long timeMillis;
+    private final String shortKey;
+    private final String ownerUuid;
+    private final int clicks;
+    private final int maxClicks;
+    private final LinkStatus status;
+    private final long expiresAtMillis;
+
+    ChangeEvent(long sequence, Type type, long timeMillis, ShortLink link) {
+        this.sequence = sequence;
+        this.type = type;
+        this.timeMillis = timeMillis;
+        this.shortKey = link.getShortKey();
+        this.ownerUuid = link.getOwnerUuid();
+        this.clicks = link.getClicks();
+        this.maxClicks = link.getMaxClicks();
+        this.status = link.getStatus();
+        this.expiresAtMillis = link.getExpiresAt().toEpochMilli();
+    }
+
+    // номер в ленте: строго возрастает, без пропусков, начиная с 1
+    public long getSequence() { return sequence; }
+    public Type getType() { return type; }
+    // момент публикации, миллисекунды от epoch
+    public long getTimeMillis() { return timeMillis; }
+    public String getShortKey() { return shortKey; }
+    public String getOwnerUuid() { return ownerUuid; }
+    public int getClicks() { return clicks; }
+    public int getMaxClicks() { return maxClicks; }
+    public LinkStatus getStatus() { return status; }
+    public long getExpiresAtMillis() { return expiresAtMillis; }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type + " " + shortKey + " clicks=" + clicks + "/" + maxClicks + " " + status;
+    }
+}
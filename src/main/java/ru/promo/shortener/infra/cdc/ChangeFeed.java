@@ -0,0 +1,219 @@
+package ru.promo.shortener.infra.cdc;
+
+import ru.promo.shortener.core.model.ShortLink;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Упорядоченная лента изменений ссылок в ограниченном кольцевом буфере.
+ *
+ * Каждое событие получает следующий номер; подписчики читают ленту пачками, каждый со своей позиции.
+ * Буфер общий: пока самый медленный подписчик не прочитал событие, его слот не перезаписывается,
+ * и публикация ждёт (backpressure). Без подписчиков старые события просто вытесняются.
+ *
+ * Снимок ссылки берётся под той же блокировкой, что и номер, поэтому для одной ссылки
+ * клики и статус в событиях не убывают в порядке номеров.
+ */
+public final class ChangeFeed {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition notEmpty = lock.newCondition();
+
+    private final ChangeEvent[] ring;
+    private final int mask;
+    private final Clock clock;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // номер следующего события; доступ под lock
+    private long nextSequence = 1;
+    private long blockedPublishes;
+
+    public ChangeFeed(int capacity) {
+        this(capacity, Clock.systemUTC());
+    }
+
+    public ChangeFeed(int capacity, Clock clock) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new ChangeEvent[size];
+        this.mask = size - 1;
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    // опубликовать изменение; ждёт, пока самый медленный подписчик освободит место
+    public long publish(ChangeEvent.Type type, ShortLink link) {
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(link, "link");
+        lock.lock();
+        try {
+            if (nextSequence - slowestPosition() >= ring.length) {
+                blockedPublishes++;
+                do {
+                    notFull.awaitUninterruptibly();
+                } while (nextSequence - slowestPosition() >= ring.length);
+            }
+            long sequence = nextSequence++;
+            ring[(int) sequence & mask] = new ChangeEvent(sequence, type, clock.millis(), link);
+            notEmpty.signalAll();
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // подписка с текущего конца ленты: получит только события, опубликованные после неё
+    public Subscription subscribe(String name) {
+        Objects.requireNonNull(name, "name");
+        lock.lock();
+        try {
+            Subscription subscription = new Subscription(name, nextSequence);
+            subscriptions.add(subscription);
+            return subscription;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // номер последнего опубликованного события; 0 — событий не было
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return nextSequence - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // сколько раз публикация ждала медленного подписчика
+    public long blockedPublishes() {
+        lock.lock();
+        try {
+            return blockedPublishes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    public List<Subscription> subscriptions() {
+        return List.copyOf(subscriptions);
+    }
+
+    private long slowestPosition() {
+        long slowest = nextSequence;
+        for (Subscription subscription : subscriptions) {
+            slowest = Math.min(slowest, subscription.position);
+        }
+        return slowest;
+    }
+
+    /**
+     * Позиция одного подписчика в ленте. Читать её должен один поток.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final String name;
+        // номер следующего непрочитанного события; изменяется под lock
+        private long position;
+        private long consumed;
+
+        private Subscription(String name, long position) {
+            this.name = name;
+            this.position = position;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        // до maxBatch событий без ожидания; пустой список — новых событий нет
+        public List<ChangeEvent> poll(int maxBatch) {
+            if (maxBatch <= 0) throw new IllegalArgumentException("maxBatch must be positive");
+            lock.lock();
+            try {
+                return take(maxBatch);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // то же, но ждёт первое событие не дольше timeout
+        public List<ChangeEvent> poll(int maxBatch, long timeout, TimeUnit unit) throws InterruptedException {
+            if (maxBatch <= 0) throw new IllegalArgumentException("maxBatch must be positive");
+            long remaining = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                while (position == nextSequence && remaining > 0 && subscriptions.contains(this)) {
+                    remaining = notEmpty.awaitNanos(remaining);
+                }
+                return take(maxBatch);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // отставание: опубликовано, но ещё не прочитано
+        public long lag() {
+            lock.lock();
+            try {
+                return nextSequence - position;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long consumed() {
+            lock.lock();
+            try {
+                return consumed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // отписка; освобождает буфер, если этот подписчик был самым медленным
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (subscriptions.remove(this)) {
+                    notFull.signalAll();
+                    notEmpty.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<ChangeEvent> take(int maxBatch) {
+            int count = (int) Math.min(maxBatch, nextSequence - position);
+            if (count == 0 || !subscriptions.contains(this)) {
+                return List.of();
+            }
+            List<ChangeEvent> batch = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                batch.add(ring[(int) (position + i) & mask]);
+            }
+            position += count;
+            consumed += count;
+            notFull.signalAll();
+            return batch;
+        }
+
+        @Override
+        public String toString() {
+            return name + " lag=" + lag() + " consumed=" + consumed();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ru.promo.shortener.infra.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import ru.promo.shortener.core.service.OperationEvents;
+import ru.promo.shortener.core.service.ResolveResult;
+
+/**
+ * Доменные операции как события JDK Flight Recorder — в одной записи с GC, I/O и блокировками:
+ * <pre>
+ * java -XX:StartFlightRecording=filename=shortener.jfr,settings=profile ...  (jfr.events.enabled=true)
+ * jfr print --events ru.promo.shortener.Resolve shortener.jfr
+ * </pre>
+ * Событие начинается (begin) в начале операции и фиксируется (commit) по её завершении —
+ * длительность операции и есть длительность события.
+ * Без активной записи (или с выключенным в настройках записи событием) isEnabled() ложно:
+ * метка операции — null, событие не заполняется; стек не пишется — события частые.
+ */
+public final class JfrOperationEvents implements OperationEvents {
+
+    @Name("ru.promo.shortener.Create")
+    @Label("Create Link")
+    @Category({"Link Shortener", "Service"})
+    @StackTrace(false)
+    static final class CreateEvent extends Event {
+        @Label("Short Key")
+        String shortKey;
+
+        @Label("Max Clicks")
+        int maxClicks;
+    }
+
+    @Name("ru.promo.shortener.Resolve")
+    @Label("Resolve Link")
+    @Category({"Link Shortener", "Service"})
+    @StackTrace(false)
+    static final class ResolveEvent extends Event {
+        @Label("Short Key")
+        String shortKey;
+
+        @Label("Outcome")
+        String outcome;
+    }
+
+    @Name("ru.promo.shortener.KeyGeneration")
+    @Label("Key Generation")
+    @Description("Free key search: repository probes and key length escalations")
+    @Category({"Link Shortener", "Service"})
+    @StackTrace(false)
+    static final class KeyGenerationEvent extends Event {
+        @Label("Key Length")
+        int length;
+
+        @Label("Probes")
+        int probes;
+
+        @Label("Length Escalations")
+        int escalations;
+    }
+
+    @Name("ru.promo.shortener.Cleanup")
+    @Label("Expired Link Cleanup")
+    @Category({"Link Shortener", "Maintenance"})
+    @StackTrace(false)
+    static final class CleanupEvent extends Event {
+        @Label("Expired Found")
+        int expired;
+
+        @Label("Deleted")
+        int deleted;
+
+        @Label("Tombstones Purged")
+        int tombstonesPurged;
+    }
+
+    @Name("ru.promo.shortener.Flush")
+    @Label("Persistence Flush")
+    @Category({"Link Shortener", "Maintenance"})
+    @StackTrace(false)
+    static final class FlushEvent extends Event {
+        @Label("Target")
+        String target;
+
+        @Label("Records")
+        int records;
+    }
+
+    @Override
+    public Object begin(Operation operation) {
+        Event event = switch (operation) {
+            case CREATE -> new CreateEvent();
+            case RESOLVE -> new ResolveEvent();
+            case KEY_GENERATION -> new KeyGenerationEvent();
+            case CLEANUP -> new CleanupEvent();
+            case FLUSH -> new FlushEvent();
+        };
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void created(Object started, String shortKey, int maxClicks) {
+        if (started instanceof CreateEvent event) {
+            event.shortKey = shortKey;
+            event.maxClicks = maxClicks;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void resolved(Object started, String shortKey, ResolveResult.Status status) {
+        if (started instanceof ResolveEvent event) {
+            event.shortKey = shortKey;
+            event.outcome = status.name();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void keyGenerated(Object started, int length, int probes, int escalations) {
+        if (started instanceof KeyGenerationEvent event) {
+            event.length = length;
+            event.probes = probes;
+            event.escalations = escalations;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void cleaned(Object started, int expired, int deleted, int tombstonesPurged) {
+        if (started instanceof CleanupEvent event) {
+            event.expired = expired;
+            event.deleted = deleted;
+            event.tombstonesPurged = tombstonesPurged;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void flushed(Object started, String target, int records) {
+        if (started instanceof FlushEvent event) {
+            event.target = target;
+            event.records = records;
+            event.commit();
+        }
+    }
+}
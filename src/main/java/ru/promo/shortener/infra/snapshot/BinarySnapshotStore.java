@@ -0,0 +1,393 @@
+package ru.promo.shortener.infra.snapshot;
+
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.OwnerId;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.OperationEvents;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.core.service.UrlCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+/**
+ * Бинарный снимок хранилища ссылок.
+ *
+ * Формат (big-endian):
+ * <pre>
+ * header:     magic "LSNP" | int version | int chunkCount
+ * chunk:      int recordCount | int payloadLength | int crc32c(payload) | payload
+ * record:     varint length | shortKey | url | owner | createdAt | expiresAt | maxClicks | clicks | status
+ * tombstones: int chunkCount | chunk... (с версии 2)
+ * tombstone:  long keyHash | byte status | int deletedAt (секунды epoch)
+ * </pre>
+ * Строки — varint длины + UTF-8; владелец — байт вида (UUID как два long или строка).
+ * Чанки независимы, поэтому загрузка декодирует их параллельно прямо в репозиторий.
+ * Файл не отображается в память целиком: каждый чанк — отдельное окно по long-смещению,
+ * так что размер снимка не ограничен 2 ГиБ одного MappedByteBuffer.
+ * Надгробия загружаются до ссылок: ключ, сохранённый снимком живым, восстановление ссылки
+ * всё равно освобождает от надгробия.
+ */
+public class BinarySnapshotStore {
+
+    private static final int MAGIC = 0x4C534E50; // "LSNP"
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_TOMBSTONES = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int CHUNK_HEADER_SIZE = 12;
+    private static final int TOMBSTONE_SIZE = Long.BYTES + 1 + Integer.BYTES;
+
+    private static final byte OWNER_UUID = 0;
+    private static final byte OWNER_STRING = 1;
+    // отметка «владелец не UUID» в таблице разобранных владельцев; сравнивается по ссылке
+    private static final UUID NOT_UUID = new UUID(0, 0);
+
+    private static final LinkStatus[] STATUSES = LinkStatus.values();
+
+    private final Path file;
+    private final UrlCodec urlCodec;
+    private final int recordsPerChunk;
+    private final OperationEvents events;
+
+    public BinarySnapshotStore(Path file, UrlCodec urlCodec) {
+        this(file, urlCodec, 16_384);
+    }
+
+    public BinarySnapshotStore(Path file, UrlCodec urlCodec, OperationEvents events) {
+        this(file, urlCodec, 16_384, events);
+    }
+
+    public BinarySnapshotStore(Path file, UrlCodec urlCodec, int recordsPerChunk) {
+        this(file, urlCodec, recordsPerChunk, OperationEvents.NONE);
+    }
+
+    public BinarySnapshotStore(Path file, UrlCodec urlCodec, int recordsPerChunk, OperationEvents events) {
+        this.file = Objects.requireNonNull(file, "file");
+        this.urlCodec = Objects.requireNonNull(urlCodec, "urlCodec");
+        if (recordsPerChunk <= 0) throw new IllegalArgumentException("recordsPerChunk must be positive");
+        this.recordsPerChunk = recordsPerChunk;
+        this.events = Objects.requireNonNull(events, "events");
+    }
+
+    public boolean exists() {
+        return Files.isRegularFile(file);
+    }
+
+    // Пишет снимок во временный файл и атомарно подменяет им предыдущий; возвращает число записей
+    public int write(ShortLinkRepository repository) throws IOException {
+        Object event = events.begin(OperationEvents.Operation.FLUSH);
+        List<ShortLink> links = repository.findAll();
+        int chunkCount = (links.size() + recordsPerChunk - 1) / recordsPerChunk;
+        ByteArrayOutputStream tombstones = collectTombstones(repository);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(chunkCount);
+
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(1 << 20);
+            ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(record);
+            CRC32C crc = new CRC32C();
+            // владелец разбирается один раз на снимок, а не на каждую его ссылку
+            Map<OwnerId, UUID> owners = new HashMap<>();
+
+            for (int from = 0; from < links.size(); from += recordsPerChunk) {
+                int to = Math.min(links.size(), from + recordsPerChunk);
+                payload.reset();
+                for (int i = from; i < to; i++) {
+                    record.reset();
+                    encode(links.get(i), recordOut, owners);
+                    writeVarint(payload, record.size());
+                    record.writeTo(payload);
+                }
+
+                byte[] bytes = payload.toByteArray();
+                writeChunk(out, to - from, bytes, 0, bytes.length, crc);
+            }
+
+            byte[] tombstoneBytes = tombstones.toByteArray();
+            int tombstoneCount = tombstoneBytes.length / TOMBSTONE_SIZE;
+            out.writeInt((tombstoneCount + recordsPerChunk - 1) / recordsPerChunk);
+            for (int from = 0; from < tombstoneCount; from += recordsPerChunk) {
+                int to = Math.min(tombstoneCount, from + recordsPerChunk);
+                writeChunk(out, to - from, tombstoneBytes, from * TOMBSTONE_SIZE, (to - from) * TOMBSTONE_SIZE, crc);
+            }
+
+            // данные на диске до переименования: иначе после сбоя питания на месте снимка может оказаться пустой файл
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        events.flushed(event, "snapshot", links.size());
+        return links.size();
+    }
+
+    // Загружает снимок, декодируя чанки в threads потоках; возвращает число записей
+    public int load(ShortLinkRepository repository, int threads) throws IOException {
+        if (threads <= 0) throw new IllegalArgumentException("threads must be positive");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readAt(channel, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a link snapshot: " + file);
+            }
+            int version = header.getInt(4);
+            if (version != VERSION && version != VERSION_WITHOUT_TOMBSTONES) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+
+            List<ByteBuffer> chunks = new ArrayList<>();
+            long position = mapChunks(channel, HEADER_SIZE, header.getInt(8), chunks);
+            if (version != VERSION_WITHOUT_TOMBSTONES) {
+                List<ByteBuffer> tombstoneChunks = new ArrayList<>();
+                mapChunks(channel, position + Integer.BYTES, readAt(channel, position, Integer.BYTES).getInt(0),
+                        tombstoneChunks);
+                for (ByteBuffer chunk : tombstoneChunks) {
+                    decodeTombstones(chunk, repository);
+                }
+            }
+
+            if (threads == 1 || chunks.size() <= 1) {
+                int total = 0;
+                for (ByteBuffer chunk : chunks) {
+                    total += decodeChunk(chunk, repository);
+                }
+                return total;
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, chunks.size()));
+            try {
+                List<Future<Integer>> futures = new ArrayList<>(chunks.size());
+                for (ByteBuffer chunk : chunks) {
+                    futures.add(pool.submit(() -> decodeChunk(chunk, repository)));
+                }
+                int total = 0;
+                for (Future<Integer> f : futures) {
+                    total += f.get();
+                }
+                return total;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Snapshot load interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                throw new IOException("Failed to load snapshot: " + file, e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    // ---------------- format ----------------
+
+    // Последовательно проходит заголовки чанков (без декодирования) и отображает каждый чанк отдельным окном;
+    // возвращает смещение за последним чанком
+    private long mapChunks(FileChannel channel, long position, int chunkCount, List<ByteBuffer> chunks)
+            throws IOException {
+        long size = channel.size();
+        long p = position;
+        for (int i = 0; i < chunkCount; i++) {
+            ByteBuffer chunkHeader = readAt(channel, p, CHUNK_HEADER_SIZE);
+            int length = chunkHeader.getInt(4);
+            if (length < 0 || p + CHUNK_HEADER_SIZE + length > size) {
+                throw new IOException("Truncated snapshot: " + file);
+            }
+            // recordCount | crc | payload — разбирается при декодировании
+            chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, p, CHUNK_HEADER_SIZE + length));
+            p += CHUNK_HEADER_SIZE + length;
+        }
+        return p;
+    }
+
+    private ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException(position == 0 ? "Not a link snapshot: " + file : "Truncated snapshot: " + file);
+            }
+        }
+        return buffer.flip();
+    }
+
+    // полезная нагрузка чанка после проверки контрольной суммы
+    private ByteBuffer verifiedPayload(ByteBuffer chunk) throws IOException {
+        int length = chunk.getInt(4);
+        int expectedCrc = chunk.getInt(8);
+
+        ByteBuffer payload = chunk.slice(CHUNK_HEADER_SIZE, length);
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Snapshot chunk checksum mismatch: " + file);
+        }
+        return payload;
+    }
+
+    private void decodeTombstones(ByteBuffer chunk, ShortLinkRepository repository) throws IOException {
+        int count = chunk.getInt(0);
+        ByteBuffer payload = verifiedPayload(chunk);
+        if (payload.remaining() != count * TOMBSTONE_SIZE) {
+            throw new IOException("Malformed tombstone chunk: " + file);
+        }
+        for (int i = 0; i < count; i++) {
+            long hash = payload.getLong();
+            LinkStatus status = STATUSES[payload.get()];
+            long deletedAt = Integer.toUnsignedLong(payload.getInt());
+            repository.restoreTombstone(hash, status, deletedAt);
+        }
+    }
+
+    private int decodeChunk(ByteBuffer chunk, ShortLinkRepository repository) throws IOException {
+        int recordCount = chunk.getInt(0);
+        ByteBuffer payload = verifiedPayload(chunk);
+
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < recordCount; i++) {
+            int recordLength = readVarint(payload);
+            int recordEnd = payload.position() + recordLength;
+
+            String shortKey = readString(payload, scratch);
+            String url = readString(payload, scratch);
+            String owner = payload.get() == OWNER_UUID
+                    ? new UUID(payload.getLong(), payload.getLong()).toString()
+                    : readString(payload, scratch);
+            Instant createdAt = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+            Instant expiresAt = Instant.ofEpochSecond(payload.getLong(), payload.getInt());
+            int maxClicks = payload.getInt();
+            int clicks = payload.getInt();
+            LinkStatus status = STATUSES[payload.get()];
+
+            // поля, добавленные в следующих версиях формата, пропускаются по длине записи
+            payload.position(recordEnd);
+
+            repository.restore(ShortLink.restore(shortKey, url, owner, createdAt, expiresAt,
+                    maxClicks, clicks, status, urlCodec.stemFor(url)));
+        }
+        return recordCount;
+    }
+
+    // канонический UUID (нижний регистр) пишется двумя long: при чтении он собирается в ту же строку.
+    // Прочие владельцы (например, тестовые) — строкой
+    private static UUID ownerUuid(OwnerId owner) {
+        String text = owner.toString();
+        if (text.length() == 36) {
+            try {
+                UUID parsed = UUID.fromString(text);
+                if (parsed.toString().equals(text)) {
+                    return parsed;
+                }
+            } catch (IllegalArgumentException ignored) {
+                // не UUID — пишем строкой
+            }
+        }
+        return NOT_UUID;
+    }
+
+    private static void writeChunk(DataOutputStream out, int records, byte[] bytes, int offset, int length,
+                                   CRC32C crc) throws IOException {
+        crc.reset();
+        crc.update(bytes, offset, length);
+        out.writeInt(records);
+        out.writeInt(length);
+        out.writeInt((int) crc.getValue());
+        out.write(bytes, offset, length);
+    }
+
+    // надгробия копируются из репозитория под его блокировкой, запись в файл — уже после
+    private static ByteArrayOutputStream collectTombstones(ShortLinkRepository repository) {
+        ByteArrayOutputStream tombstones = new ByteArrayOutputStream();
+        ByteBuffer record = ByteBuffer.allocate(TOMBSTONE_SIZE);
+        repository.forEachTombstone((keyHash, status, deletedAt) -> {
+            record.clear();
+            record.putLong(keyHash).put((byte) status.ordinal()).putInt((int) deletedAt);
+            tombstones.write(record.array(), 0, TOMBSTONE_SIZE);
+        });
+        return tombstones;
+    }
+
+    private static void encode(ShortLink link, DataOutputStream out, Map<OwnerId, UUID> owners)
+            throws IOException {
+        writeString(out, link.getShortKey());
+        writeString(out, link.getOriginalUrl());
+
+        OwnerId owner = link.getOwnerId();
+        UUID uuid = owners.computeIfAbsent(owner, BinarySnapshotStore::ownerUuid);
+        if (uuid != NOT_UUID) {
+            out.writeByte(OWNER_UUID);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        } else {
+            out.writeByte(OWNER_STRING);
+            writeString(out, owner.toString());
+        }
+
+        out.writeLong(link.getCreatedAt().getEpochSecond());
+        out.writeInt(link.getCreatedAt().getNano());
+        out.writeLong(link.getExpiresAt().getEpochSecond());
+        out.writeInt(link.getExpiresAt().getNano());
+        out.writeInt(link.getMaxClicks());
+        out.writeInt(link.getClicks());
+        out.writeByte(link.getStatus().ordinal());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in, byte[] scratch) {
+        int length = readVarint(in);
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        in.get(bytes, 0, length);
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint in snapshot");
+    }
+}
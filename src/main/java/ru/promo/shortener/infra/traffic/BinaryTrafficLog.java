@@ -0,0 +1,322 @@
+package ru.promo.shortener.infra.traffic;
+
+import ru.promo.shortener.core.service.TrafficRecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Компактный бинарный журнал трафика.
+ *
+ * Потоки сервиса кладут события в кольцевой буфер без блокировок (захват слота через CAS);
+ * фоновый поток кодирует их и дописывает в файл блоками. Если буфер заполнен, событие
+ * отбрасывается и учитывается в {@link #dropped()} — горячий путь никогда не ждёт диск.
+ * Простаивающий писатель спит и будится производителем. Ошибка записи не роняет сервис:
+ * она печатается и доступна через {@link #failure()}, дальнейшие события отбрасываются.
+ *
+ * Формат: "LTRF", версия (1 байт), далее блоки:
+ *   [int длина тела][long время первого события, мкс epoch][события...]
+ * Событие: [zigzag varint Δt мкс][op << 4 | outcome][длина ключа][ключ ASCII][varint maxClicks — только CREATE].
+ * Недописанный последний блок при чтении игнорируется.
+ */
+public final class BinaryTrafficLog implements TrafficRecorder, AutoCloseable {
+
+    static final int MAGIC = 0x4C545246; // "LTRF"
+    static final byte VERSION = 1;
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final int BLOCK_BYTES = 1 << 16;
+    private static final long FLUSH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final FileChannel channel;
+    private final int mask;
+    private final long[] times;
+    private final byte[] codes;
+    private final String[] keys;
+    private final int[] maxClicks;
+    // в слоте опубликовано событие с номером seq, когда published[slot] == seq + 1
+    private final AtomicLongArray published;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    private final long baseMicros;
+    private final long baseNanos;
+
+    private final Thread writer;
+    private volatile boolean closing;
+    // писатель уснул (или вот-вот уснёт) в ожидании событий — производитель должен его разбудить
+    private volatile boolean sleeping;
+    private volatile IOException failure;
+
+    public BinaryTrafficLog(Path path, int capacity) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ), path, capacity);
+    }
+
+    BinaryTrafficLog(FileChannel channel, Path path, int capacity) throws IOException {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.times = new long[size];
+        this.codes = new byte[size];
+        this.keys = new String[size];
+        this.maxClicks = new int[size];
+        this.published = new AtomicLongArray(size);
+
+        this.channel = channel;
+        openForAppend(path);
+
+        this.baseMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.baseNanos = System.nanoTime();
+
+        this.writer = new Thread(this::drainLoop, "traffic-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void onCreate(String shortKey, int maxClicks) {
+        offer(Op.CREATE, shortKey, Outcome.OK, maxClicks);
+    }
+
+    @Override
+    public void onResolve(String shortKey, Outcome outcome) {
+        offer(Op.RESOLVE, shortKey, outcome, 0);
+    }
+
+    // событий отброшено из-за переполнения буфера
+    public long dropped() {
+        return dropped.get();
+    }
+
+    // событий записано в файл
+    public long written() {
+        return written.get();
+    }
+
+    // ошибка записи, остановившая журнал, или null
+    public IOException failure() {
+        return failure;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closing = true;
+        LockSupport.unpark(writer);
+        // дожидаемся писателя и при прерывании: иначе канал закроется под недописанным блоком
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        // флаг прерывания восстанавливается после force: в прерванном потоке канал закрылся бы с ClosedByInterruptException
+        try {
+            if (failure == null) {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ---------------- producer ----------------
+
+    private void offer(Op op, String shortKey, Outcome outcome, int clicks) {
+        if (closing || failure != null) {
+            dropped.incrementAndGet();
+            return;
+        }
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed.get() > mask) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        int slot = (int) seq & mask;
+        times[slot] = baseMicros + (System.nanoTime() - baseNanos) / 1000;
+        codes[slot] = (byte) (op.ordinal() << 4 | outcome.ordinal());
+        keys[slot] = shortKey == null ? "" : shortKey;
+        maxClicks[slot] = clicks;
+        published.set(slot, seq + 1);
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // ---------------- writer ----------------
+
+    private void drainLoop() {
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_BYTES + 512);
+        long blockStart = 0;
+        long previous = 0;
+        int blockEvents = 0;
+        long lastFlush = System.nanoTime();
+        while (true) {
+            long seq = consumed.get();
+            int slot = (int) seq & mask;
+            if (published.get(slot) == seq + 1) {
+                if (failure != null) {
+                    // журнал остановлен: опубликованные до ошибки события освобождают слоты и считаются отброшенными
+                    keys[slot] = null;
+                    consumed.set(seq + 1);
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                if (blockEvents == 0) {
+                    block.clear();
+                    block.position(Integer.BYTES);
+                    blockStart = times[slot];
+                    previous = blockStart;
+                    block.putLong(blockStart);
+                }
+                long time = times[slot];
+                putVarLong(block, zigzag(time - previous));
+                previous = time;
+                block.put(codes[slot]);
+                putKey(block, keys[slot]);
+                if ((codes[slot] >> 4) == Op.CREATE.ordinal()) {
+                    putVarLong(block, maxClicks[slot]);
+                }
+                keys[slot] = null;
+                blockEvents++;
+                consumed.set(seq + 1);
+                if (block.position() >= BLOCK_BYTES) {
+                    blockEvents = writeOrFail(block, blockEvents);
+                    lastFlush = System.nanoTime();
+                }
+                continue;
+            }
+
+            boolean idle = claimed.get() == seq;
+            if (blockEvents > 0 && (idle || System.nanoTime() - lastFlush >= FLUSH_INTERVAL_NANOS)) {
+                blockEvents = writeOrFail(block, blockEvents);
+                lastFlush = System.nanoTime();
+            }
+            // claimed перечитывается после closing: пока писался блок, могли прийти последние события перед close()
+            if (closing && claimed.get() == seq) {
+                return;
+            }
+            if (!idle) {
+                // слот уже захвачен, но ещё не опубликован — уступаем процессор производителю
+                Thread.yield();
+                continue;
+            }
+            // буфер пуст: спим до публикации следующего события или close().
+            // Флаг ставится до повторной проверки claimed, производитель проверяет его после публикации —
+            // одна из сторон обязательно увидит другую, пробуждение не теряется
+            sleeping = true;
+            if (claimed.get() == seq && !closing) {
+                LockSupport.park(this);
+            }
+            sleeping = false;
+        }
+    }
+
+    // пишет блок; при ошибке запоминает её, события блока считает отброшенными. Возвращает 0 — блок пуст
+    private int writeOrFail(ByteBuffer block, int events) {
+        try {
+            writeBlock(block, events);
+        } catch (IOException e) {
+            dropped.addAndGet(events);
+            if (failure == null) {
+                failure = e;
+                System.err.println("Traffic log writer failed, further events are dropped: " + e);
+            }
+        }
+        return 0;
+    }
+
+    private void writeBlock(ByteBuffer block, int events) throws IOException {
+        block.putInt(0, block.position() - Integer.BYTES);
+        block.flip();
+        while (block.hasRemaining()) {
+            channel.write(block);
+        }
+        written.addAndGet(events);
+    }
+
+    private void openForAppend(Path path) throws IOException {
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + 1).putInt(MAGIC).put(VERSION).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES + 1);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < header.capacity() || header.getInt() != MAGIC || header.get() != VERSION) {
+            channel.close();
+            throw new IOException("Not a traffic log: " + path);
+        }
+        // продолжаем после последнего целого блока, недописанный хвост затирается
+        long valid = TrafficLogReader.validLength(channel);
+        channel.truncate(valid);
+        channel.position(valid);
+    }
+
+    private static void putKey(ByteBuffer buffer, String key) {
+        int length = Math.min(key.length(), MAX_KEY_LENGTH);
+        buffer.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            buffer.put(c < 128 ? (byte) c : (byte) '?');
+        }
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    static String decodeKey(ByteBuffer buffer) {
+        int length = buffer.get() & 0xFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.promo.shortener.infra.traffic;
+
+import ru.promo.shortener.core.service.TrafficRecorder;
+
+/**
+ * Одно событие журнала трафика.
+ */
+public final class TrafficEvent {
+
+    private final long timeMicros;
+    private final TrafficRecorder.Op op;
+    private final String shortKey;
+    private final TrafficRecorder.Outcome outcome;
+    private final int maxClicks;
+
+    public TrafficEvent(long timeMicros, TrafficRecorder.Op op, String shortKey,
+                        TrafficRecorder.Outcome outcome, int maxClicks) {
+        this.timeMicros = timeMicros;
+        this.op = op;
+        this.shortKey = shortKey;
+        this.outcome = outcome;
+        this.maxClicks = maxClicks;
+    }
+
+    // момент события, микросекунды от epoch
+    public long getTimeMicros() { return timeMicros; }
+    public TrafficRecorder.Op getOp() { return op; }
+    public String getShortKey() { return shortKey; }
+    public TrafficRecorder.Outcome getOutcome() { return outcome; }
+    // лимит кликов созданной ссылки; для RESOLVE — 0
+    public int getMaxClicks() { return maxClicks; }
+
+    @Override
+    public String toString() {
+        return timeMicros + " " + op + " " + shortKey + " " + outcome;
+    }
+}
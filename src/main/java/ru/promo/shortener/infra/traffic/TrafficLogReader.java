@@ -0,0 +1,95 @@
+package ru.promo.shortener.infra.traffic;
+
+import ru.promo.shortener.core.service.TrafficRecorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Чтение журнала, записанного {@link BinaryTrafficLog}.
+ */
+public final class TrafficLogReader {
+
+    private static final int HEADER_BYTES = Integer.BYTES + 1;
+
+    private static final TrafficRecorder.Op[] OPS = TrafficRecorder.Op.values();
+    private static final TrafficRecorder.Outcome[] OUTCOMES = TrafficRecorder.Outcome.values();
+
+    private TrafficLogReader() {
+    }
+
+    // прочитать все целые блоки журнала по порядку; возвращает число событий
+    public static long read(Path path, Consumer<TrafficEvent> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            if (header.remaining() < HEADER_BYTES || header.getInt() != BinaryTrafficLog.MAGIC
+                    || header.get() != BinaryTrafficLog.VERSION) {
+                throw new IOException("Not a traffic log: " + path);
+            }
+
+            long events = 0;
+            long position = HEADER_BYTES;
+            long size = channel.size();
+            ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+            while (position + Integer.BYTES <= size) {
+                lengthBuffer.clear();
+                readFully(channel, lengthBuffer, position);
+                int length = lengthBuffer.getInt();
+                if (length < Long.BYTES || position + Integer.BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer block = ByteBuffer.allocate(length);
+                readFully(channel, block, position + Integer.BYTES);
+                events += decodeBlock(block, consumer);
+                position += Integer.BYTES + length;
+            }
+            return events;
+        }
+    }
+
+    // длина файла до конца последнего целого блока
+    static long validLength(FileChannel channel) throws IOException {
+        long position = HEADER_BYTES;
+        long size = channel.size();
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+        while (position + Integer.BYTES <= size) {
+            lengthBuffer.clear();
+            readFully(channel, lengthBuffer, position);
+            int length = lengthBuffer.getInt();
+            if (length < Long.BYTES || position + Integer.BYTES + length > size) {
+                break;
+            }
+            position += Integer.BYTES + length;
+        }
+        return position;
+    }
+
+    private static int decodeBlock(ByteBuffer block, Consumer<TrafficEvent> consumer) {
+        long time = block.getLong();
+        int events = 0;
+        while (block.hasRemaining()) {
+            time += BinaryTrafficLog.unzigzag(BinaryTrafficLog.getVarLong(block));
+            int code = block.get() & 0xFF;
+            TrafficRecorder.Op op = OPS[code >> 4];
+            TrafficRecorder.Outcome outcome = OUTCOMES[code & 0x0F];
+            String key = BinaryTrafficLog.decodeKey(block);
+            int maxClicks = op == TrafficRecorder.Op.CREATE ? (int) BinaryTrafficLog.getVarLong(block) : 0;
+            consumer.accept(new TrafficEvent(time, op, key, outcome, maxClicks));
+            events++;
+        }
+        return events;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) break;
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,84 @@
+package ru.promo.shortener.infra.url;
+
+import ru.promo.shortener.core.model.UrlStem;
+import ru.promo.shortener.core.service.UrlCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словарь общих префиксов URL: схема + host + путь до последнего '/'.
+ * Ссылки с одинаковым префиксом разделяют один UrlStem и хранят только хвост (имя ресурса, query, fragment).
+ *
+ * Размер словаря ограничен: после заполнения новые префиксы не интернируются,
+ * такие URL целиком хранятся в хвосте (при необходимости сжатом).
+ */
+public class PrefixDictionaryUrlCodec implements UrlCodec {
+
+    // Частые фрагменты URL для preset-словаря Deflate; самые частые — в конце (ближе к сжимаемым данным).
+    private static final byte[] PRESET_DICTIONARY = String.join("",
+            "index.html", "default.aspx", ".php?", "session=", "token=", "lang=", "sort=", "page=",
+            "category/", "catalog/", "product/", "item/", "article/", "search?q=", "&q=", "ref=",
+            "&utm_term=", "&utm_content=", "utm_campaign=", "&utm_campaign=", "&utm_medium=",
+            "utm_source=", "?utm_source=", "&id=", "?id=", "https://www.", ".com/"
+    ).getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<String, UrlStem> stems = new ConcurrentHashMap<>();
+    private final int maxStems;
+    private final UrlStem root;
+    private final byte[] dictionary;
+    private final int deflateMinTail;
+
+    // maxStems — предел размера словаря; deflateMinTail — минимальная длина хвоста для сжатия (0 — без сжатия)
+    public PrefixDictionaryUrlCodec(int maxStems, int deflateMinTail) {
+        if (maxStems < 0) throw new IllegalArgumentException("maxStems must be >= 0");
+        if (deflateMinTail < 0) throw new IllegalArgumentException("deflateMinTail must be >= 0");
+
+        this.maxStems = maxStems;
+        this.deflateMinTail = deflateMinTail;
+        this.dictionary = deflateMinTail > 0 ? PRESET_DICTIONARY : null;
+        this.root = dictionary == null ? UrlStem.NONE : new UrlStem("", dictionary, deflateMinTail);
+    }
+
+    @Override
+    public UrlStem stemFor(String canonicalUrl) {
+        int end = stemEnd(canonicalUrl);
+        if (end <= 0) {
+            return root;
+        }
+
+        String prefix = canonicalUrl.substring(0, end);
+        UrlStem stem = stems.get(prefix);
+        if (stem != null) {
+            return stem;
+        }
+        if (stems.size() >= maxStems) {
+            return root;
+        }
+        return stems.computeIfAbsent(prefix, p -> new UrlStem(p, dictionary, deflateMinTail));
+    }
+
+    public int size() {
+        return stems.size();
+    }
+
+    // конец префикса: после последнего '/' пути (до query/fragment) или конец authority
+    static int stemEnd(String url) {
+        int authority = url.indexOf("://");
+        if (authority < 0) {
+            return -1;
+        }
+
+        int n = url.length();
+        int end = authority + 3;
+        int lastSlash = -1;
+        while (end < n) {
+            char c = url.charAt(end);
+            if (c == '?' || c == '#') break;
+            if (c == '/') lastSlash = end;
+            end++;
+        }
+        return lastSlash >= 0 ? lastSlash + 1 : end;
+    }
+}
@@ -0,0 +1,121 @@
+package ru.promo.shortener.infra.user;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Текстовый журнал только на дозапись: одна запись — одна строка.
+ * fsync группируется: параллельные записи, дописавшие строки до начала force(), подтверждаются одним вызовом.
+ */
+final class AppendOnlyLog implements AutoCloseable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private long appendedSeq;           // под appendLock
+    private volatile long syncedSeq;    // пишется под syncLock
+
+    // читает существующие строки в reader, затем открывает файл на дозапись
+    AppendOnlyLog(Path file, Consumer<String> reader) {
+        this.file = file;
+        if (Files.exists(file)) {
+            try {
+                List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+                for (String line : lines) {
+                    String trimmed = line.trim();
+                    if (!trimmed.isEmpty()) {
+                        reader.accept(trimmed);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read file: " + file, e);
+            }
+        }
+        try {
+            this.channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            terminatePartialLine();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open file: " + file, e);
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    // дописать строку и дождаться её fsync
+    void appendDurably(String line) {
+        syncUpTo(append(line));
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to close file: " + file, e);
+        }
+    }
+
+    // если запись оборвалась посреди строки, следующая строка не должна склеиться с ней
+    private void terminatePartialLine() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            reader.read(last, size - 1);
+        }
+        if (last.get(0) != '\n') {
+            channel.write(ByteBuffer.wrap(System.lineSeparator().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    // O(1): дописываем одну строку, возвращаем её порядковый номер
+    private long append(String text) {
+        ByteBuffer line = ByteBuffer.wrap((text + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        synchronized (appendLock) {
+            try {
+                while (line.hasRemaining()) {
+                    channel.write(line);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to append to file: " + file, e);
+            }
+            return ++appendedSeq;
+        }
+    }
+
+    // групповой fsync: если другой поток уже сбросил нашу запись, повторный force() не нужен
+    private void syncUpTo(long seq) {
+        if (syncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            long target;
+            synchronized (appendLock) {
+                target = appendedSeq;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to sync file: " + file, e);
+            }
+            syncedSeq = target;
+        }
+    }
+}
@@ -6,22 +6,50 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 import java.util.UUID;
-
-public class FileUserIdentityProvider implements UserIdentityProvider {
-
-    // Захардкоженные имена файлов
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Файловый провайдер пользователей.
+ *
+ * users.txt — журнал только на дозапись (одна строка UUID на пользователя, см. {@link AppendOnlyLog}):
+ * регистрация нового пользователя дописывает одну строку, а не переписывает файл целиком. Множество
+ * известных пользователей восстанавливается из журнала при старте.
+ *
+ * user.uuid — пользователь локальной консоли по умолчанию для следующего запуска. На пути запроса он
+ * не читается: владелец запроса берётся из его сессии ({@link ru.promo.shortener.core.user.Session}).
+ */
+public class FileUserIdentityProvider implements UserIdentityProvider, AutoCloseable {
+
+    // Имена файлов по умолчанию
     private static final Path CURRENT_USER_FILE = Path.of("user.uuid");
     private static final Path USERS_FILE = Path.of("users.txt");
 
-    private String currentUserUuid;
-    private final Set<String> knownUsers = new HashSet<>();
+    private final Path currentUserFile;
+    private final Path usersFile;
+
+    private volatile String currentUserUuid;
+    // значение — записан ли пользователь в users.txt; false — запись ещё идёт (пользователь пока не известен)
+    private final ConcurrentHashMap<String, Boolean> knownUsers = new ConcurrentHashMap<>();
+
+    private final AppendOnlyLog usersLog;
+    private final Object currentUserLock = new Object();
 
     public FileUserIdentityProvider() {
-        loadKnownUsers();
+        this(CURRENT_USER_FILE, USERS_FILE);
+    }
+
+    public FileUserIdentityProvider(Path currentUserFile, Path usersFile) {
+        this.currentUserFile = currentUserFile;
+        this.usersFile = usersFile;
+
+        this.usersLog = new AppendOnlyLog(usersFile, uuid -> {
+            // недописанная при сбое последняя строка пропускается
+            if (isUuid(uuid)) {
+                knownUsers.put(uuid, Boolean.TRUE);
+            }
+        });
+
         this.currentUserUuid = loadOrCreateCurrentUser();
         registerUser(this.currentUserUuid);
     }
@@ -33,15 +61,26 @@ public class FileUserIdentityProvider implements UserIdentityProvider {
 
     @Override
     public String createNewUser() {
+        String uuid = registerNewUser();
+        setCurrentUser(uuid);
+        return uuid;
+    }
+
+    @Override
+    public void switchUser(String uuid) {
+        requireKnownUser(uuid);
+        setCurrentUser(uuid);
+    }
+
+    @Override
+    public String registerNewUser() {
         String uuid = UUID.randomUUID().toString();
         registerUser(uuid);
-        writeCurrentUser(uuid);
-        this.currentUserUuid = uuid;
         return uuid;
     }
 
     @Override
-    public void switchUser(String uuid) {
+    public void requireKnownUser(String uuid) {
         if (uuid == null || uuid.isBlank()) {
             throw new IllegalArgumentException("uuid must not be blank");
         }
@@ -49,52 +88,60 @@ public class FileUserIdentityProvider implements UserIdentityProvider {
         // Проверка формата UUID
         UUID.fromString(uuid);
 
-        if (!knownUsers.contains(uuid)) {
+        if (!isKnownUser(uuid)) {
             throw new IllegalArgumentException(
-                    "Unknown user UUID. Use 'new-user' or check users.txt"
+                    "Unknown user UUID. Use 'new-user' or check " + usersFile
             );
         }
-
-        writeCurrentUser(uuid);
-        this.currentUserUuid = uuid;
     }
 
-    // ---------------- internal ----------------
+    public boolean isKnownUser(String uuid) {
+        return uuid != null && knownUsers.getOrDefault(uuid, Boolean.FALSE);
+    }
 
-    private void loadKnownUsers() {
-        if (!Files.exists(USERS_FILE)) {
-            return;
-        }
-        try {
-            List<String> lines = Files.readAllLines(USERS_FILE, StandardCharsets.UTF_8);
-            for (String line : lines) {
-                if (!line.isBlank()) {
-                    knownUsers.add(line.trim());
-                }
+    // пользователей, надёжно записанных в users.txt
+    public int size() {
+        int size = 0;
+        for (boolean durable : knownUsers.values()) {
+            if (durable) {
+                size++;
             }
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to read users file: " + USERS_FILE, e);
         }
+        return size;
     }
 
+    @Override
+    public void close() {
+        usersLog.close();
+    }
+
+    // ---------------- internal ----------------
+
+    // пользователь становится известным только после надёжной записи: при ошибке записи его нет и в памяти
     private void registerUser(String uuid) {
-        if (knownUsers.add(uuid)) {
-            persistKnownUsers();
+        if (knownUsers.putIfAbsent(uuid, Boolean.FALSE) != null) {
+            return;
         }
+        try {
+            usersLog.appendDurably(uuid);
+        } catch (RuntimeException e) {
+            knownUsers.remove(uuid, Boolean.FALSE);
+            throw e;
+        }
+        knownUsers.put(uuid, Boolean.TRUE);
     }
 
-    private void persistKnownUsers() {
-        try {
-            Files.write(USERS_FILE, knownUsers, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to write users file: " + USERS_FILE, e);
+    private void setCurrentUser(String uuid) {
+        synchronized (currentUserLock) {
+            writeCurrentUser(uuid);
+            this.currentUserUuid = uuid;
         }
     }
 
     private String loadOrCreateCurrentUser() {
-        if (Files.exists(CURRENT_USER_FILE)) {
+        if (Files.exists(currentUserFile)) {
             try {
-                String uuid = Files.readString(CURRENT_USER_FILE, StandardCharsets.UTF_8).trim();
+                String uuid = Files.readString(currentUserFile, StandardCharsets.UTF_8).trim();
                 if (!uuid.isEmpty()) {
                     UUID.fromString(uuid);
                     return uuid;
@@ -112,14 +159,23 @@ public class FileUserIdentityProvider implements UserIdentityProvider {
     private void writeCurrentUser(String uuid) {
         try {
             Files.writeString(
-                    CURRENT_USER_FILE,
+                    currentUserFile,
                     uuid + System.lineSeparator(),
                     StandardCharsets.UTF_8
             );
         } catch (IOException e) {
             throw new IllegalStateException(
-                    "Failed to write current user file: " + CURRENT_USER_FILE, e
+                    "Failed to write current user file: " + currentUserFile, e
             );
         }
     }
+
+    private static boolean isUuid(String value) {
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,118 @@
+package ru.promo.shortener.infra.user;
+
+import ru.promo.shortener.core.user.UserRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Файловый реестр API-ключей.
+ *
+ * api-keys.txt — журнал только на дозапись, строка «SHA-256 ключа UUID» на каждый выданный ключ: сам ключ
+ * показывается только при выдаче, утечка файла его не раскрывает. Ключ — 143 случайных бита, поэтому хватает
+ * хэша без соли и растяжения. При старте журнал загружается в {@link ConcurrentHashMap}, так что поиск
+ * владельца — хэш ключа и одно обращение к карте без блокировок. UUID владельца хранится одной строкой
+ * на все его ключи.
+ */
+public class FileUserRegistry implements UserRegistry, AutoCloseable {
+
+    private static final Path API_KEYS_FILE = Path.of("api-keys.txt");
+
+    private static final char[] SYMBOLS =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+    // 24 символа base62 — около 143 бит случайности
+    private static final int KEY_LENGTH = 24;
+    // SHA-256 в шестнадцатеричной записи
+    private static final int HASH_LENGTH = 64;
+
+    // хэш ключа -> владелец
+    private final Map<String, String> ownersByKey = new ConcurrentHashMap<>();
+    // одна строка UUID на владельца, сколько бы ключей у него ни было
+    private final Map<String, String> owners = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final AppendOnlyLog keysLog;
+
+    public FileUserRegistry() {
+        this(API_KEYS_FILE);
+    }
+
+    public FileUserRegistry(Path apiKeysFile) {
+        this.keysLog = new AppendOnlyLog(apiKeysFile, line -> {
+            String[] parts = line.split(" ");
+            // недописанная при сбое последняя строка пропускается
+            if (parts.length == 2 && parts[0].length() == HASH_LENGTH && isUuid(parts[1])) {
+                ownersByKey.put(parts[0], canonical(parts[1]));
+            }
+        });
+    }
+
+    @Override
+    public String ownerOf(String apiKey) {
+        return apiKey == null ? null : ownersByKey.get(hash(apiKey));
+    }
+
+    @Override
+    public String issueKey(String ownerUuid) {
+        if (ownerUuid == null || !isUuid(ownerUuid)) {
+            throw new IllegalArgumentException("Owner must be a UUID");
+        }
+        String owner = canonical(ownerUuid);
+        String key;
+        String hash;
+        do {
+            key = randomKey();
+            hash = hash(key);
+        } while (ownersByKey.containsKey(hash));
+        // ключ начинает действовать только после надёжной записи: при ошибке записи он не выдан
+        keysLog.appendDurably(hash + ' ' + owner);
+        ownersByKey.put(hash, owner);
+        return key;
+    }
+
+    public int size() {
+        return ownersByKey.size();
+    }
+
+    @Override
+    public void close() {
+        keysLog.close();
+    }
+
+    private String canonical(String ownerUuid) {
+        return owners.computeIfAbsent(ownerUuid, uuid -> uuid);
+    }
+
+    private String randomKey() {
+        char[] key = new char[KEY_LENGTH];
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            key[i] = SYMBOLS[random.nextInt(SYMBOLS.length)];
+        }
+        return new String(key);
+    }
+
+    private static String hash(String apiKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(apiKey.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 обязателен для любой реализации Java SE
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static boolean isUuid(String value) {
+        try {
+            UUID.fromString(value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.promo.shortener.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.UrlCodec;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+import ru.promo.shortener.infra.snapshot.BinarySnapshotStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Время короткого пакетного запуска целиком: новый процесс JVM из собранного jar загружает снимок N ссылок
+ * и пользователей, выполняет пару команд и завершается. Сравнивает последовательный старт с быстрым
+ * (startup.fast) и запуск без архива AppCDS с запуском на нём.
+ *
+ * Запуск: mvn -Pappcds package -DskipTests
+ *         mvn -Pbench test-compile exec:exec -Dbench.args="ApplicationStartupBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 15)
+@Fork(1)
+public class ApplicationStartupBenchmark {
+
+    @Param({"100000"})
+    public int links;
+
+    @Param({"false", "true"})
+    public boolean fast;
+
+    @Param({"off", "on"})
+    public String cds;
+
+    @Param({"target/link-shortener-1.0.0-SNAPSHOT.jar"})
+    public String jar;
+
+    @Param({"target/appcds/shortener.jsa"})
+    public String archive;
+
+    private Path dir;
+    private List<String> command;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        Path jarFile = Path.of(jar).toAbsolutePath();
+        Path archiveFile = Path.of(archive).toAbsolutePath();
+        if (!Files.isRegularFile(jarFile)) {
+            throw new IllegalStateException("Jar not found: " + jarFile + " (run mvn package)");
+        }
+        if (cds.equals("on") && !Files.isRegularFile(archiveFile)) {
+            throw new IllegalStateException("AppCDS archive not found: " + archiveFile + " (run mvn -Pappcds package)");
+        }
+
+        // рабочий каталог процесса: снимок, users.txt и скрипт лежат в нём по относительным путям из конфигурации
+        dir = Files.createTempDirectory("startup");
+        InMemoryShortLinkRepository source = new InMemoryShortLinkRepository();
+        Instant now = Instant.now();
+        String[] owners = new String[1000];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = UUID.randomUUID().toString();
+        }
+        for (int i = 0; i < links; i++) {
+            String url = "https://shop.example.com/catalog/" + (i % 500) + "/item?id=" + i;
+            source.save(new ShortLink(Integer.toString(i, 36), url, owners[i % owners.length],
+                    now, now.plus(Duration.ofDays(30)), 10, UrlCodec.PLAIN.stemFor(url)));
+        }
+        new BinarySnapshotStore(dir.resolve("links.snapshot"), UrlCodec.PLAIN).write(source);
+        Files.writeString(dir.resolve("script.txt"), "whoami\nopen 1\nstats\nexit\n");
+
+        command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (cds.equals("on")) {
+            command.add("-XX:SharedArchiveFile=" + archiveFile);
+        }
+        command.add("-Dstartup.fast=" + fast);
+        command.add("-classpath");
+        command.add(jarFile.toString());
+        command.add("ru.promo.shortener.Application");
+        command.add("--script");
+        command.add("script.txt");
+    }
+
+    @Benchmark
+    public int launch() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .directory(dir.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Application exited with " + exitCode);
+        }
+        return exitCode;
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
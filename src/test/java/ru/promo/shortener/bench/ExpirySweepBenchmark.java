@@ -0,0 +1,84 @@
+package ru.promo.shortener.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.model.UrlStem;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.infra.ColumnarShortLinkRepository;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полный проход обслуживания (findExpired, countByStatus) по индексному и колоночному репозиторию.
+ * Истекает около 0.1% ссылок — типичный проход очистки, где почти весь объём проверяется впустую.
+ *
+ * Запуск: mvn -Pbench test-compile exec:exec
+ *             -Dbench.jvm.args="-Xmx8g --add-modules jdk.incubator.vector"
+ *             -Dbench.args="ExpirySweepBenchmark -p links=10000000"
+ * Без --add-modules колоночный репозиторий сканирует скалярными циклами (repo=columnar-scalar — всегда).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpirySweepBenchmark {
+
+    @Param({"1000000"})
+    public int links;
+
+    @Param({"memory", "columnar", "columnar-scalar"})
+    public String repo;
+
+    private ShortLinkRepository repository;
+    private Instant now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = switch (repo) {
+            case "memory" -> new InMemoryShortLinkRepository();
+            case "columnar" -> new ColumnarShortLinkRepository();
+            case "columnar-scalar" -> ColumnarShortLinkRepository.scalar();
+            default -> throw new IllegalArgumentException("Unknown repo: " + repo);
+        };
+        now = Instant.parse("2026-01-06T10:00:00Z");
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < links; i++) {
+            boolean expired = random.nextInt(1000) == 0;
+            Instant expiresAt = expired
+                    ? now.minusSeconds(1 + random.nextInt(3600))
+                    : now.plusSeconds(1 + random.nextInt(86_400));
+            repository.save(ShortLink.restore("k" + Integer.toString(i, 36), "https://example.com/" + i,
+                    "owner-" + (i % 1000), now.minusSeconds(3600), expiresAt, 100, 0, LinkStatus.ACTIVE,
+                    UrlStem.NONE));
+        }
+    }
+
+    @Benchmark
+    public List<ShortLink> findExpired() {
+        return repository.findExpired(now);
+    }
+
+    @Benchmark
+    public Map<LinkStatus, Integer> countByStatus() {
+        return repository.countByStatus();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.promo.shortener.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.service.ResolveResult;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.core.service.exceptions.NotFoundException;
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * resolve с исключениями против resolveResult при трафике с большой долей промахов:
+ * часть ключей не существует, часть ссылок уже исчерпала лимит кликов.
+ *
+ * Запуск: mvn -Pbench test-compile exec:exec -Dbench.args="ResolveMissBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResolveMissBenchmark {
+
+    private static final int KEYS = 1024;
+
+    // доля промахов в процентах: половина — неизвестные ключи, половина — исчерпанные ссылки
+    @Param({"10", "90"})
+    public int missPercent;
+
+    private ShortLinkService service;
+    private String[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // уведомления об исчерпании лимита в stdout бенчмарку не нужны
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        AtomicInteger sequence = new AtomicInteger();
+        service = new ShortLinkService(new InMemoryShortLinkRepository(), length -> "k" + sequence.incrementAndGet(),
+                new ApplicationConfig(6, 10, 10, 3600, 1, 60));
+
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            int bucket = i * 100 / KEYS;
+            if (bucket < missPercent / 2) {
+                keys[i] = "missing" + i;
+            } else if (bucket < missPercent) {
+                String key = service.create("https://example.com/spent/" + i, "owner", 1).getShortKey();
+                service.resolve(key);
+                keys[i] = key;
+            } else {
+                keys[i] = service.create("https://example.com/live/" + i, "owner", Integer.MAX_VALUE).getShortKey();
+            }
+        }
+    }
+
+    private String nextKey() {
+        next = (next + 1) & (KEYS - 1);
+        return keys[next];
+    }
+
+    @Benchmark
+    public String resolveWithExceptions() {
+        try {
+            return service.resolve(nextKey());
+        } catch (NotFoundException | ValidationException e) {
+            return null;
+        }
+    }
+
+    @Benchmark
+    public ResolveResult resolveResult() {
+        return service.resolveResult(nextKey());
+    }
+}
@@ -0,0 +1,86 @@
+package ru.promo.shortener.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.UrlCodec;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+import ru.promo.shortener.infra.snapshot.BinarySnapshotStore;
+import ru.promo.shortener.infra.url.PrefixDictionaryUrlCodec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время старта: загрузка снимка N ссылок в пустой InMemoryShortLinkRepository в 1..T потоков.
+ *
+ * Запуск: mvn -Pbench test-compile exec:exec -Dbench.jvm.args=-Xmx4g -Dbench.args="SnapshotStartupBenchmark -p links=5000000"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SnapshotStartupBenchmark {
+
+    @Param({"1000000"})
+    public int links;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private Path file;
+    private BinarySnapshotStore store;
+    private InMemoryShortLinkRepository target;
+
+    @Setup(Level.Trial)
+    public void writeSnapshot() throws IOException {
+        UrlCodec codec = new PrefixDictionaryUrlCodec(10_000, 0);
+        InMemoryShortLinkRepository source = new InMemoryShortLinkRepository();
+        Instant now = Instant.now();
+        String[] owners = new String[1000];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = UUID.randomUUID().toString();
+        }
+        for (int i = 0; i < links; i++) {
+            String url = "https://shop.example.com/catalog/" + (i % 500) + "/item?id=" + i;
+            source.save(new ShortLink(Integer.toString(i, 36), url, owners[i % owners.length],
+                    now, now.plusSeconds(3600), 10, codec.stemFor(url)));
+        }
+
+        file = Files.createTempFile("links", ".snapshot");
+        store = new BinarySnapshotStore(file, codec);
+        store.write(source);
+    }
+
+    @Setup(Level.Iteration)
+    public void freshRepository() {
+        target = new InMemoryShortLinkRepository();
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        return store.load(target, threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
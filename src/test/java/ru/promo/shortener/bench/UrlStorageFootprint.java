@@ -0,0 +1,75 @@
+package ru.promo.shortener.bench;
+
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.UrlCodec;
+import ru.promo.shortener.infra.url.PrefixDictionaryUrlCodec;
+
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Замер памяти на ссылку: полный URL в каждой ссылке против словаря общих префиксов (и Deflate хвостов).
+ *
+ * Запуск (10M ссылок):
+ * mvn -Pbench test-compile exec:exec -Dbench.main=ru.promo.shortener.bench.UrlStorageFootprint \
+ *     -Dbench.jvm.args=-Xmx12g -Dbench.args=10000000
+ */
+public class UrlStorageFootprint {
+
+    private static final String[] STEMS = {
+            "https://shop.example.com/catalog/electronics/",
+            "https://news.example.org/2026/01/06/",
+            "https://www.marketplace.ru/product/",
+            "https://docs.example.com/guide/reference/api/v2/",
+            "http://promo.example.net/landing/"
+    };
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.printf("links: %,d%n", count);
+        report("plain", count, UrlCodec.PLAIN);
+        report("prefix dictionary", count, new PrefixDictionaryUrlCodec(100_000, 0));
+        report("prefix dictionary + deflate", count, new PrefixDictionaryUrlCodec(100_000, 48));
+    }
+
+    private static void report(String name, int count, UrlCodec codec) {
+        long before = usedHeap();
+        ShortLink[] links = build(count, codec);
+        long after = usedHeap();
+
+        System.out.printf("%-30s %8.1f bytes/link%n", name, (after - before) / (double) count);
+        if (links[count - 1].getOriginalUrl().isEmpty()) {
+            throw new IllegalStateException("unreachable");
+        }
+    }
+
+    private static ShortLink[] build(int count, UrlCodec codec) {
+        Random random = new Random(42);
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusSeconds(3600);
+        String owner = "6f1c2a8e-0b7d-4e3a-9c55-2d8f4b1e7a90";
+
+        ShortLink[] links = new ShortLink[count];
+        StringBuilder sb = new StringBuilder(160);
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            sb.append(STEMS[random.nextInt(STEMS.length)])
+                    .append("item-").append(random.nextInt(1000))
+                    .append("?utm_source=newsletter&utm_medium=email&utm_campaign=c")
+                    .append(random.nextInt(50))
+                    .append("&id=").append(random.nextInt(Integer.MAX_VALUE));
+            String url = sb.toString();
+            links[i] = new ShortLink(Integer.toString(i, 36), url, owner, now, expiresAt, 3, codec.stemFor(url));
+        }
+        return links;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,57 @@
+package ru.promo.shortener.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.promo.shortener.core.service.LegacyUrlRules;
+import ru.promo.shortener.core.service.UrlCanonicalizer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение прежней проверки URL (java.net.URI + regex) с однопроходным UrlCanonicalizer.
+ *
+ * Запуск: mvn -Pbench test-compile exec:exec -Dbench.args=UrlValidationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlValidationBenchmark {
+
+    @Param({
+            "https://example.com",
+            "https://shop.example.com/catalog/items/12345?utm_source=newsletter&utm_medium=email",
+            "HTTP://Example.COM:80/Path",
+            "ftp://example.com"
+    })
+    public String url;
+
+    @Benchmark
+    public boolean legacy() {
+        return LegacyUrlRules.isValid(url);
+    }
+
+    @Benchmark
+    public UrlCanonicalizer.Verdict validate() {
+        return UrlCanonicalizer.validate(url);
+    }
+
+    @Benchmark
+    public String canonicalize() {
+        try {
+            return UrlCanonicalizer.canonicalize(url);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
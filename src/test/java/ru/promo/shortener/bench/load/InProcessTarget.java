@@ -0,0 +1,40 @@
+package ru.promo.shortener.bench.load;
+
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.infra.RandomShortKeyGenerator;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ShortLinkService в том же процессе. TTL в сервисе задаётся конфигурацией,
+ * поэтому на каждое значение TTL из распределения — свой сервис над общим репозиторием.
+ */
+final class InProcessTarget implements LoadTarget {
+
+    private final Map<Long, ShortLinkService> servicesByTtl = new HashMap<>();
+    private final ShortLinkService resolver;
+
+    InProcessTarget(ShortLinkRepository repository, long[] ttlValues, int defaultMaxClicks) {
+        RandomShortKeyGenerator generator = new RandomShortKeyGenerator();
+        for (long ttl : ttlValues) {
+            ApplicationConfig config = new ApplicationConfig(6, 10, 10, ttl, defaultMaxClicks, 60);
+            servicesByTtl.put(ttl, new ShortLinkService(repository, generator, config, Clock.systemUTC()));
+        }
+        // все сервисы делят репозиторий, resolve не зависит от TTL
+        this.resolver = servicesByTtl.get(ttlValues[0]);
+    }
+
+    @Override
+    public String create(String url, String owner, long ttlSeconds, int maxClicks) {
+        return servicesByTtl.get(ttlSeconds).create(url, owner, maxClicks).getShortKey();
+    }
+
+    @Override
+    public String resolve(String shortKey) {
+        return resolver.resolve(shortKey);
+    }
+}
@@ -0,0 +1,69 @@
+package ru.promo.shortener.bench.load;
+
+/**
+ * Лог-линейная гистограмма латентностей в наносекундах (ширина корзины — не больше 1/32 значения), без аллокаций на запись.
+ * Не потокобезопасна: у каждого воркера своя, в конце они сливаются через {@link #add}.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF = SUB_COUNT / 2;
+    private static final int MAX_EXPONENT = 40;     // ~18 минут
+    private static final int LAST_INDEX = MAX_EXPONENT * HALF + SUB_COUNT - 1;
+
+    private final long[] counts = new long[LAST_INDEX + 1];
+    private long total;
+    private long max;
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[indexOf(value)]++;
+        total++;
+        if (value > max) max = value;
+    }
+
+    void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return total;
+    }
+
+    long max() {
+        return max;
+    }
+
+    // верхняя граница корзины, в которую попал p-й перцентиль
+    long percentile(double p) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS + 1;
+        if (exponent > MAX_EXPONENT) return LAST_INDEX;
+        return exponent * HALF + (int) (value >>> exponent);
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_COUNT) return index;
+        int exponent = (index - HALF) / HALF;
+        int mantissa = index - exponent * HALF;
+        return ((long) (mantissa + 1) << exponent) - 1;
+    }
+}
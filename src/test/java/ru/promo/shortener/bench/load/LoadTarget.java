@@ -0,0 +1,18 @@
+package ru.promo.shortener.bench.load;
+
+/**
+ * Система под нагрузкой. Сейчас есть только in-process вариант поверх ShortLinkService;
+ * HTTP-клиент добавляется отдельной реализацией, когда появится эндпоинт.
+ */
+interface LoadTarget extends AutoCloseable {
+
+    // создать ссылку, вернуть короткий ключ
+    String create(String url, String owner, long ttlSeconds, int maxClicks);
+
+    // переход по ссылке; отказ (истекла, не найдена) — исключение
+    String resolve(String shortKey);
+
+    @Override
+    default void close() {
+    }
+}
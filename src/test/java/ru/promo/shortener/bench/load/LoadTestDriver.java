@@ -0,0 +1,298 @@
+package ru.promo.shortener.bench.load;
+
+import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.core.service.exceptions.NotFoundException;
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+import ru.promo.shortener.infra.ColumnarShortLinkRepository;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Нагрузочный драйвер для ShortLinkService: смесь create/resolve, популярность ключей по Ципфу,
+ * распределения TTL и лимита кликов, открытая (rate > 0) или замкнутая (rate = 0) нагрузка.
+ *
+ * В открытом режиме каждый воркер отвечает за свою долю запланированных запросов, и латентность
+ * считается от запланированного момента, а не от фактического старта — так очередь перед
+ * перегруженной системой попадает в перцентили (без coordinated omission).
+ * В замкнутом режиме меряется только время обслуживания.
+ *
+ * Параметры key=value:
+ *   repo=memory            реализация репозитория (см. REPOSITORIES)
+ *   threads=4              число воркеров
+ *   rates=0                целевые rps через запятую; несколько значений — поиск точки насыщения
+ *   duration=10 warmup=3   секунды измерения и прогрева на каждый шаг
+ *   preload=100000         ссылок до старта; resolve выбирает среди них
+ *   create=0.1             доля create среди операций
+ *   zipf=0.99              показатель Ципфа для популярности ключей (0 — равномерно)
+ *   ttl=86400              распределение TTL в секундах, "v1:w1,v2:w2"
+ *   max-clicks=1000000     распределение лимита кликов, "v1:w1,v2:w2"
+ *   owners=1000            число владельцев
+ *   slo-p99-ms=10          шаг считается ненасыщенным, если p99 ответа укладывается в SLO
+ *
+ * Запуск: mvn -Pbench test-compile exec:exec -Dbench.main=ru.promo.shortener.bench.load.LoadTestDriver
+ *             -Dbench.args="threads=4 rates=20000,50000,100000,200000"
+ */
+public final class LoadTestDriver {
+
+    // реализации репозитория, между которыми сравнивается точка насыщения
+    static final Map<String, Supplier<ShortLinkRepository>> REPOSITORIES = new LinkedHashMap<>();
+
+    static {
+        REPOSITORIES.put("memory", InMemoryShortLinkRepository::new);
+        REPOSITORIES.put("columnar", ColumnarShortLinkRepository::new);
+    }
+
+    private final Map<String, String> options;
+    private final int threads;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final int preload;
+    private final double createRatio;
+    private final double zipf;
+    private final WeightedChoice ttl;
+    private final WeightedChoice maxClicks;
+    private final String[] owners;
+    private final long sloP99Nanos;
+    private final PrintStream report;
+
+    LoadTestDriver(Map<String, String> options) {
+        this.options = options;
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "10")));
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "3")));
+        this.preload = Integer.parseInt(options.getOrDefault("preload", "100000"));
+        this.createRatio = Double.parseDouble(options.getOrDefault("create", "0.1"));
+        this.zipf = Double.parseDouble(options.getOrDefault("zipf", "0.99"));
+        this.ttl = WeightedChoice.parse(options.getOrDefault("ttl", "86400"));
+        this.maxClicks = WeightedChoice.parse(options.getOrDefault("max-clicks", "1000000"));
+        this.sloP99Nanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(options.getOrDefault("slo-p99-ms", "10")));
+        this.report = System.out;
+        this.owners = new String[Integer.parseInt(options.getOrDefault("owners", "1000"))];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = UUID.randomUUID().toString();
+        }
+        if (threads <= 0 || preload <= 0 || owners.length == 0) {
+            throw new IllegalArgumentException("threads, preload and owners must be positive");
+        }
+        if (createRatio < 0 || createRatio > 1) {
+            throw new IllegalArgumentException("create must be within [0, 1]");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadTestDriver(options).run();
+    }
+
+    void run() throws InterruptedException {
+        String repoName = options.getOrDefault("repo", "memory");
+        Supplier<ShortLinkRepository> repository = REPOSITORIES.get(repoName);
+        if (repository == null) {
+            throw new IllegalArgumentException("Unknown repo: " + repoName + ", expected one of " + REPOSITORIES.keySet());
+        }
+
+        report.printf("repo=%s threads=%d create=%.2f zipf=%.2f preload=%d%n",
+                repoName, threads, createRatio, zipf, preload);
+        report.printf("%10s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "target", "achieved", "rejected", "errors", "p50 us", "p99 us", "p99.9 us", "max us", "svc p99");
+
+        // сервис пишет уведомления об истечении в stdout — на время прогона они не нужны
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            double saturation = 0;
+            double previous = 0;
+            boolean saturated = false;
+            for (String rateSpec : options.getOrDefault("rates", "0").split(",")) {
+                double rate = Double.parseDouble(rateSpec.trim());
+                StepResult result = runStep(repository.get(), rate);
+                result.print(report, rate);
+                if (rate > 0 && !saturated && !result.sustained(rate, sloP99Nanos)) {
+                    saturated = true;
+                    saturation = previous;
+                }
+                if (rate > 0) {
+                    previous = rate;
+                }
+            }
+            if (saturated) {
+                report.println(saturation > 0
+                        ? String.format("saturation: last sustained rate %.0f ops/s", saturation)
+                        : "saturation: lowest target rate is not sustained");
+            }
+        } finally {
+            System.setOut(report);
+        }
+    }
+
+    // один шаг: свежий репозиторий, предзагрузка, прогрев, измерение
+    StepResult runStep(ShortLinkRepository repository, double rate) throws InterruptedException {
+        try (LoadTarget target = new InProcessTarget(repository, ttl.values(), 1)) {
+            String[] keys = preload(target);
+            ZipfSampler popularity = new ZipfSampler(keys.length, zipf);
+
+            execute(target, keys, popularity, rate, warmupNanos);
+            return execute(target, keys, popularity, rate, durationNanos);
+        }
+    }
+
+    private String[] preload(LoadTarget target) {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] keys = new String[preload];
+        for (int i = 0; i < preload; i++) {
+            keys[i] = target.create("https://example.com/preload/" + i, owners[random.nextInt(owners.length)],
+                    ttl.next(random), (int) maxClicks.next(random));
+        }
+        return keys;
+    }
+
+    private StepResult execute(LoadTarget target, String[] keys, ZipfSampler popularity,
+                               double rate, long durationNanos) throws InterruptedException {
+        Worker[] workers = new Worker[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long end = start + durationNanos;
+        long interval = rate > 0 ? (long) (threads * 1e9 / rate) : 0;
+
+        for (int i = 0; i < threads; i++) {
+            // воркеры сдвинуты друг относительно друга, чтобы общий поток был равномерным
+            long firstAt = start + (interval * i) / threads;
+            workers[i] = new Worker(target, keys, popularity, new SplittableRandom(1000 + i), firstAt, end, interval);
+        }
+        for (Worker worker : workers) {
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.run();
+                } finally {
+                    done.countDown();
+                }
+            }, "load-worker");
+            thread.start();
+        }
+        done.await();
+
+        StepResult result = new StepResult(System.nanoTime() - start);
+        for (Worker worker : workers) {
+            result.add(worker);
+        }
+        return result;
+    }
+
+    private final class Worker implements Runnable {
+        private final LoadTarget target;
+        private final String[] keys;
+        private final ZipfSampler popularity;
+        private final SplittableRandom random;
+        private final long firstAt;
+        private final long end;
+        private final long interval;
+
+        final LatencyHistogram response = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        long rejected;
+        long errors;
+        long creates;
+
+        Worker(LoadTarget target, String[] keys, ZipfSampler popularity, SplittableRandom random,
+               long firstAt, long end, long interval) {
+            this.target = target;
+            this.keys = keys;
+            this.popularity = popularity;
+            this.random = random;
+            this.firstAt = firstAt;
+            this.end = end;
+            this.interval = interval;
+        }
+
+        @Override
+        public void run() {
+            long intended = firstAt;
+            while (true) {
+                long now = System.nanoTime();
+                if (interval > 0) {
+                    if (intended >= end) break;
+                    if (intended > now) {
+                        LockSupport.parkNanos(intended - now);
+                        continue;
+                    }
+                } else if (now >= end) {
+                    break;
+                }
+
+                long started = System.nanoTime();
+                operation();
+                long finished = System.nanoTime();
+
+                service.record(finished - started);
+                response.record(finished - (interval > 0 ? intended : started));
+                intended += interval;
+            }
+        }
+
+        private void operation() {
+            try {
+                if (random.nextDouble() < createRatio) {
+                    creates++;
+                    target.create("https://example.com/load/" + Thread.currentThread().getId() + "/" + creates,
+                            owners[random.nextInt(owners.length)], ttl.next(random), (int) maxClicks.next(random));
+                } else {
+                    target.resolve(keys[popularity.next(random)]);
+                }
+            } catch (NotFoundException | ValidationException e) {
+                // ссылка истекла или исчерпала лимит — штатный отказ, а не ошибка драйвера
+                rejected++;
+            } catch (RuntimeException e) {
+                errors++;
+            }
+        }
+    }
+
+    static final class StepResult {
+        private final long elapsedNanos;
+        private final LatencyHistogram response = new LatencyHistogram();
+        private final LatencyHistogram service = new LatencyHistogram();
+        private long rejected;
+        private long errors;
+
+        StepResult(long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        void add(Worker worker) {
+            response.add(worker.response);
+            service.add(worker.service);
+            rejected += worker.rejected;
+            errors += worker.errors;
+        }
+
+        double achieved() {
+            return response.count() * 1e9 / elapsedNanos;
+        }
+
+        // целевой поток выдержан: пропускная способность не просела и p99 в пределах SLO
+        boolean sustained(double rate, long sloP99Nanos) {
+            return achieved() >= rate * 0.95 && response.percentile(99) <= sloP99Nanos;
+        }
+
+        void print(PrintStream out, double rate) {
+            out.printf("%10s %10.0f %8d %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    rate > 0 ? String.format("%.0f", rate) : "closed", achieved(), rejected, errors,
+                    response.percentile(50) / 1e3, response.percentile(99) / 1e3,
+                    response.percentile(99.9) / 1e3, response.max() / 1e3, service.percentile(99) / 1e3);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package ru.promo.shortener.bench.load;
+
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.core.service.UrlCodec;
+import ru.promo.shortener.infra.RandomShortKeyGenerator;
+import ru.promo.shortener.infra.url.PrefixDictionaryUrlCodec;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Замер памяти для планирования ёмкости: загружает N ссылок в каждую реализацию репозитория
+ * (см. {@link LoadTestDriver#REPOSITORIES}) и печатает байты на ссылку, раздельно — сами ссылки,
+ * ключевой индекс и остальные индексы; затем даёт ровную нагрузку resolve и печатает
+ * выделение памяти на операцию и работу GC.
+ *
+ * Параметры (key=value):
+ *   repo=all               реализация из REPOSITORIES или all
+ *   links=1000000          число ссылок
+ *   url-length=80          распределение длины URL в символах, "v1:w1,v2:w2"
+ *   owners=1000            число владельцев
+ *   clicks=0               распределение уже набранных кликов, "v1:w1,v2:w2"
+ *   codec=plain            хранение URL: plain, prefix, deflate
+ *   threads=4 duration=10  нагрузка resolve: потоки и секунды (duration=0 — без нагрузки)
+ *   zipf=0.99              показатель Ципфа для популярности ключей
+ *
+ * Запуск: mvn -Pbench test-compile exec:exec -Dbench.main=ru.promo.shortener.bench.load.RepositoryFootprint
+ *             -Dbench.jvm.args=-Xmx8g -Dbench.args="links=5000000 url-length=60:5,120:3,400:1"
+ * Сравнимы только прогоны с одинаковыми -Xmx и сборщиком.
+ */
+public final class RepositoryFootprint {
+
+    private static final String[] STEMS = {
+            "https://shop.example.com/catalog/electronics/",
+            "https://news.example.org/2026/01/06/",
+            "https://www.marketplace.ru/product/",
+            "https://docs.example.com/guide/reference/api/v2/",
+            "http://promo.example.net/landing/"
+    };
+    private static final char[] ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+    private final int count;
+    private final WeightedChoice urlLength;
+    private final WeightedChoice clicks;
+    private final String[] owners;
+    private final String codecName;
+    private final int threads;
+    private final long durationNanos;
+    private final double zipf;
+    private final PrintStream report = System.out;
+
+    RepositoryFootprint(Map<String, String> options) {
+        this.count = Integer.parseInt(options.getOrDefault("links", "1000000"));
+        this.urlLength = WeightedChoice.parse(options.getOrDefault("url-length", "80"));
+        this.clicks = WeightedChoice.parse(options.getOrDefault("clicks", "0"));
+        this.codecName = options.getOrDefault("codec", "plain");
+        this.threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        this.durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "10")));
+        this.zipf = Double.parseDouble(options.getOrDefault("zipf", "0.99"));
+        this.owners = new String[Integer.parseInt(options.getOrDefault("owners", "1000"))];
+        for (int i = 0; i < owners.length; i++) {
+            owners[i] = UUID.randomUUID().toString();
+        }
+        if (count <= 0 || owners.length == 0 || threads <= 0) {
+            throw new IllegalArgumentException("links, owners and threads must be positive");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        String repoName = options.getOrDefault("repo", "all");
+        Map<String, Supplier<ShortLinkRepository>> repositories = new LinkedHashMap<>();
+        if (repoName.equals("all")) {
+            repositories.putAll(LoadTestDriver.REPOSITORIES);
+        } else if (LoadTestDriver.REPOSITORIES.containsKey(repoName)) {
+            repositories.put(repoName, LoadTestDriver.REPOSITORIES.get(repoName));
+        } else {
+            throw new IllegalArgumentException("Unknown repo: " + repoName
+                    + ", expected all or one of " + LoadTestDriver.REPOSITORIES.keySet());
+        }
+
+        RepositoryFootprint footprint = new RepositoryFootprint(options);
+        for (Map.Entry<String, Supplier<ShortLinkRepository>> repository : repositories.entrySet()) {
+            footprint.run(repository.getKey(), repository.getValue());
+        }
+    }
+
+    void run(String repoName, Supplier<ShortLinkRepository> factory) throws InterruptedException {
+        report.printf("%nrepo=%s links=%,d owners=%d codec=%s heap max=%,d MB%n",
+                repoName, count, owners.length, codecName, Runtime.getRuntime().maxMemory() >> 20);
+
+        long base = usedHeap();
+        ShortLink[] links = build(codec());
+        long linksBytes = usedHeap() - base;
+
+        // эталон ключевого индекса: та же карта, что byShortKey, над теми же объектами
+        Map<String, ShortLink> keyIndex = new ConcurrentHashMap<>();
+        for (ShortLink link : links) {
+            keyIndex.put(link.getShortKey(), link);
+        }
+        long keyIndexBytes = usedHeap() - base - linksBytes;
+        keyIndex = null;
+
+        ShortLinkRepository repository = factory.get();
+        long started = System.nanoTime();
+        for (ShortLink link : links) {
+            repository.save(link);
+        }
+        long loadNanos = System.nanoTime() - started;
+        long repositoryBytes = usedHeap() - base - linksBytes;
+
+        report.printf("  %-26s %8.1f bytes/link%n", "links (objects + URL)", perLink(linksBytes));
+        report.printf("  %-26s %8.1f bytes/link%n", "key index (CHM baseline)", perLink(keyIndexBytes));
+        report.printf("  %-26s %8.1f bytes/link%n", "repository, all indexes", perLink(repositoryBytes));
+        report.printf("  %-26s %8.1f bytes/link%n", "  beyond key index", perLink(repositoryBytes - keyIndexBytes));
+        report.printf("  %-26s %8.1f bytes/link%n", "total retained", perLink(linksBytes + repositoryBytes));
+        report.printf("  %-26s %8.0f ns/link%n", "load", loadNanos / (double) count);
+
+        String[] keys = new String[links.length];
+        for (int i = 0; i < links.length; i++) {
+            keys[i] = links[i].getShortKey();
+        }
+        links = null;
+        if (durationNanos > 0) {
+            resolveLoad(repository, keys);
+        }
+    }
+
+    private UrlCodec codec() {
+        return switch (codecName) {
+            case "plain" -> UrlCodec.PLAIN;
+            case "prefix" -> new PrefixDictionaryUrlCodec(100_000, 0);
+            case "deflate" -> new PrefixDictionaryUrlCodec(100_000, 48);
+            default -> throw new IllegalArgumentException("Unknown codec: " + codecName + ", expected plain, prefix, deflate");
+        };
+    }
+
+    private ShortLink[] build(UrlCodec codec) {
+        SplittableRandom random = new SplittableRandom(42);
+        Instant now = Instant.now();
+        ShortLink[] links = new ShortLink[count];
+        StringBuilder sb = new StringBuilder(512);
+        for (int i = 0; i < count; i++) {
+            int length = (int) urlLength.next(random);
+            sb.setLength(0);
+            sb.append(STEMS[random.nextInt(STEMS.length)]).append(i).append('/');
+            while (sb.length() < length) {
+                sb.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            String url = sb.toString();
+            String key = "k" + Integer.toString(i, 36);
+            // лимит заведомо выше кликов нагрузки, чтобы ссылки оставались активными
+            links[i] = ShortLink.restore(key, url, owners[random.nextInt(owners.length)], now,
+                    now.plusSeconds(86_400), Integer.MAX_VALUE, (int) clicks.next(random), LinkStatus.ACTIVE,
+                    codec.stemFor(url));
+        }
+        return links;
+    }
+
+    // ровная нагрузка resolve: выделение памяти на операцию и работа GC за интервал
+    private void resolveLoad(ShortLinkRepository repository, String[] keys) throws InterruptedException {
+        ShortLinkService service = new ShortLinkService(repository, new RandomShortKeyGenerator(),
+                new ApplicationConfig(6, 10, 10, 86_400, 1, 60));
+        ZipfSampler popularity = new ZipfSampler(keys.length, zipf);
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        // прогрев JIT вне замера
+        runWorkers(service, keys, popularity, threadBean, TimeUnit.SECONDS.toNanos(2));
+
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        long[] collections = new long[collectors.size()];
+        long[] collectionMillis = new long[collectors.size()];
+        for (int i = 0; i < collectors.size(); i++) {
+            collections[i] = collectors.get(i).getCollectionCount();
+            collectionMillis[i] = collectors.get(i).getCollectionTime();
+        }
+
+        long started = System.nanoTime();
+        long[] totals = runWorkers(service, keys, popularity, threadBean, durationNanos);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        long ops = totals[0];
+        long allocated = totals[1];
+
+        report.printf("  resolve load: threads=%d zipf=%.2f %,.0f ops/s%n", threads, zipf, ops / seconds);
+        report.printf("  %-26s %8.1f bytes/op, %.1f MB/s%n", "allocation",
+                allocated / (double) ops, allocated / seconds / (1 << 20));
+        for (int i = 0; i < collectors.size(); i++) {
+            report.printf("  gc %-23s %8d collections, %d ms%n", collectors.get(i).getName(),
+                    collectors.get(i).getCollectionCount() - collections[i],
+                    collectors.get(i).getCollectionTime() - collectionMillis[i]);
+        }
+    }
+
+    // {операций, байт выделено} по всем воркерам
+    private long[] runWorkers(ShortLinkService service, String[] keys, ZipfSampler popularity,
+                              com.sun.management.ThreadMXBean threadBean, long nanos) throws InterruptedException {
+        long[][] results = new long[threads][2];
+        List<Thread> workers = new ArrayList<>();
+        long end = System.nanoTime() + nanos;
+        // сервис пишет уведомления в stdout — на время нагрузки они не нужны
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                Thread worker = new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(1000 + id);
+                    long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+                    long ops = 0;
+                    while ((ops & 255) != 0 || System.nanoTime() < end) {
+                        service.resolveResult(keys[popularity.next(random)]);
+                        ops++;
+                    }
+                    results[id][0] = ops;
+                    results[id][1] = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+                }, "footprint-worker");
+                worker.start();
+                workers.add(worker);
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } finally {
+            System.setOut(report);
+        }
+
+        long[] totals = new long[2];
+        for (long[] result : results) {
+            totals[0] += result[0];
+            totals[1] += result[1];
+        }
+        return totals;
+    }
+
+    private double perLink(long bytes) {
+        return bytes / (double) count;
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
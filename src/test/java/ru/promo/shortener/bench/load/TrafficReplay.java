@@ -0,0 +1,218 @@
+package ru.promo.shortener.bench.load;
+
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.service.ResolveResult;
+import ru.promo.shortener.core.service.ShortKeyGenerator;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.core.service.TrafficRecorder;
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+import ru.promo.shortener.infra.traffic.TrafficEvent;
+import ru.promo.shortener.infra.traffic.TrafficLogReader;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Воспроизведение журнала трафика ({@code traffic.log.path}) на свежем ShortLinkService.
+ *
+ * Create повторяется с тем же ключом и лимитом кликов; ключи, по которым в журнале есть
+ * переходы, но нет создания (журнал начат не с нуля), создаются заранее. События
+ * распределяются по воркерам по хэшу ключа, поэтому порядок операций над одним ключом
+ * сохраняется. Латентность считается от момента, в который событие должно было произойти.
+ *
+ * Параметры key=value:
+ *   log=traffic.log     путь к журналу
+ *   repo=memory         реализация репозитория (см. LoadTestDriver.REPOSITORIES)
+ *   speed=1             ускорение относительно записи; 0 — без пауз, насколько хватит сил
+ *   threads=4           число воркеров
+ *   ttl=86400           TTL воссозданных ссылок, секунд
+ *
+ * Запуск: mvn -Pbench test-compile exec:exec -Dbench.main=ru.promo.shortener.bench.load.TrafficReplay
+ *             -Dbench.args="log=traffic.log speed=10 repo=memory"
+ */
+public final class TrafficReplay {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        Path log = Path.of(options.getOrDefault("log", "traffic.log"));
+        String repoName = options.getOrDefault("repo", "memory");
+        double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        long ttl = Long.parseLong(options.getOrDefault("ttl", "86400"));
+
+        Supplier<ShortLinkRepository> repository = LoadTestDriver.REPOSITORIES.get(repoName);
+        if (repository == null) {
+            throw new IllegalArgumentException("Unknown repo: " + repoName
+                    + ", expected one of " + LoadTestDriver.REPOSITORIES.keySet());
+        }
+
+        List<TrafficEvent> events = new ArrayList<>();
+        TrafficLogReader.read(log, events::add);
+        if (events.isEmpty()) {
+            System.out.println("Traffic log is empty: " + log);
+            return;
+        }
+
+        PrintStream report = System.out;
+        // сервис пишет уведомления об истечении в stdout — на время прогона они не нужны
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            ReplayKeyGenerator keys = new ReplayKeyGenerator();
+            ShortLinkService service = new ShortLinkService(repository.get(), keys,
+                    new ApplicationConfig(1, 255, 1, ttl, Integer.MAX_VALUE, 60), Clock.systemUTC());
+            int seeded = seed(service, keys, events);
+
+            Replayer[] workers = new Replayer[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Replayer(service, keys);
+            }
+            for (TrafficEvent event : events) {
+                workers[Math.floorMod(event.getShortKey().hashCode(), threads)].events.add(event);
+            }
+
+            long firstMicros = events.get(0).getTimeMicros();
+            long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+            CountDownLatch done = new CountDownLatch(threads);
+            for (Replayer worker : workers) {
+                worker.firstMicros = firstMicros;
+                worker.start = start;
+                worker.speed = speed;
+                Thread thread = new Thread(() -> {
+                    try {
+                        worker.run();
+                    } finally {
+                        done.countDown();
+                    }
+                }, "replay-worker");
+                thread.start();
+            }
+            done.await();
+            long elapsed = System.nanoTime() - start;
+
+            LatencyHistogram latency = new LatencyHistogram();
+            long mismatches = 0;
+            long errors = 0;
+            for (Replayer worker : workers) {
+                latency.add(worker.latency);
+                mismatches += worker.mismatches;
+                errors += worker.errors;
+            }
+            long recordedSpan = events.get(events.size() - 1).getTimeMicros() - firstMicros;
+            report.printf("events=%d seeded=%d speed=%s recorded=%.1fs replayed=%.1fs throughput=%.0f ops/s%n",
+                    events.size(), seeded, speed > 0 ? speed + "x" : "max", recordedSpan / 1e6, elapsed / 1e9,
+                    events.size() * 1e9 / elapsed);
+            report.printf("latency us: p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                    latency.percentile(50) / 1e3, latency.percentile(99) / 1e3,
+                    latency.percentile(99.9) / 1e3, latency.max() / 1e3);
+            report.printf("outcome mismatches=%d errors=%d%n", mismatches, errors);
+        } finally {
+            System.setOut(report);
+        }
+    }
+
+    // ключи, которые существовали до начала записи: первый переход по ним не NOT_FOUND
+    private static int seed(ShortLinkService service, ReplayKeyGenerator keys, List<TrafficEvent> events) {
+        Set<String> seen = new HashSet<>();
+        int seeded = 0;
+        for (TrafficEvent event : events) {
+            if (!seen.add(event.getShortKey()) || event.getOp() != TrafficRecorder.Op.RESOLVE) {
+                continue;
+            }
+            TrafficRecorder.Outcome outcome = event.getOutcome();
+            if (outcome != TrafficRecorder.Outcome.NOT_FOUND && outcome != TrafficRecorder.Outcome.INVALID) {
+                keys.next(event.getShortKey());
+                service.create("https://replay.example/" + event.getShortKey(), "replay", Integer.MAX_VALUE);
+                seeded++;
+            }
+        }
+        return seeded;
+    }
+
+    // генератор, который отдаёт ключ из журнала для очередного create в этом потоке
+    private static final class ReplayKeyGenerator implements ShortKeyGenerator {
+        private final ThreadLocal<String> next = new ThreadLocal<>();
+
+        void next(String key) {
+            next.set(key);
+        }
+
+        @Override
+        public String generate(int length) {
+            return next.get();
+        }
+    }
+
+    private static final class Replayer implements Runnable {
+        private final ShortLinkService service;
+        private final ReplayKeyGenerator keys;
+        final List<TrafficEvent> events = new ArrayList<>();
+        final LatencyHistogram latency = new LatencyHistogram();
+        long firstMicros;
+        long start;
+        double speed;
+        long mismatches;
+        long errors;
+
+        Replayer(ShortLinkService service, ReplayKeyGenerator keys) {
+            this.service = service;
+            this.keys = keys;
+        }
+
+        @Override
+        public void run() {
+            for (TrafficEvent event : events) {
+                long intended = speed > 0
+                        ? start + (long) ((event.getTimeMicros() - firstMicros) * 1000 / speed)
+                        : System.nanoTime();
+                long now;
+                while ((now = System.nanoTime()) < intended) {
+                    LockSupport.parkNanos(intended - now);
+                }
+                TrafficRecorder.Outcome outcome = execute(event);
+                latency.record(System.nanoTime() - intended);
+                if (outcome != event.getOutcome()) {
+                    mismatches++;
+                }
+            }
+        }
+
+        private TrafficRecorder.Outcome execute(TrafficEvent event) {
+            try {
+                if (event.getOp() == TrafficRecorder.Op.CREATE) {
+                    keys.next(event.getShortKey());
+                    service.create("https://replay.example/" + event.getShortKey(), "replay",
+                            Math.max(1, event.getMaxClicks()));
+                    return TrafficRecorder.Outcome.OK;
+                }
+                ResolveResult result = service.resolveResult(event.getShortKey());
+                return result.isFound()
+                        ? TrafficRecorder.Outcome.OK
+                        : TrafficRecorder.Outcome.valueOf(result.getStatus().name());
+            } catch (ValidationException e) {
+                return TrafficRecorder.Outcome.INVALID;
+            } catch (RuntimeException e) {
+                errors++;
+                return null;
+            }
+        }
+    }
+}
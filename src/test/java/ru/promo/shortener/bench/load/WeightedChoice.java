@@ -0,0 +1,53 @@
+package ru.promo.shortener.bench.load;
+
+import java.util.SplittableRandom;
+
+/**
+ * Дискретное распределение значений с весами, задаётся строкой "v1:w1,v2:w2" (вес по умолчанию 1).
+ */
+final class WeightedChoice {
+
+    private final long[] values;
+    private final double[] cdf;
+
+    private WeightedChoice(long[] values, double[] cdf) {
+        this.values = values;
+        this.cdf = cdf;
+    }
+
+    static WeightedChoice parse(String spec) {
+        String[] items = spec.split(",");
+        long[] values = new long[items.length];
+        double[] cdf = new double[items.length];
+        double sum = 0;
+        for (int i = 0; i < items.length; i++) {
+            String[] parts = items[i].trim().split(":");
+            values[i] = Long.parseLong(parts[0]);
+            double weight = parts.length > 1 ? Double.parseDouble(parts[1]) : 1.0;
+            if (weight <= 0) throw new IllegalArgumentException("weight must be positive: " + items[i]);
+            sum += weight;
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= sum;
+        }
+        return new WeightedChoice(values, cdf);
+    }
+
+    long[] values() {
+        return values.clone();
+    }
+
+    // индекс выбранного значения
+    int nextIndex(SplittableRandom random) {
+        double x = random.nextDouble();
+        for (int i = 0; i < cdf.length - 1; i++) {
+            if (x < cdf[i]) return i;
+        }
+        return cdf.length - 1;
+    }
+
+    long next(SplittableRandom random) {
+        return values[nextIndex(random)];
+    }
+}
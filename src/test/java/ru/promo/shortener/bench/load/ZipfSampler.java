@@ -0,0 +1,33 @@
+package ru.promo.shortener.bench.load;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Выбор ранга 0..n-1 с вероятностью ~ 1/(rank+1)^s (закон Ципфа).
+ * CDF считается один раз, выборка — двоичный поиск; при s = 0 распределение равномерное.
+ */
+final class ZipfSampler {
+
+    private final double[] cdf;
+
+    ZipfSampler(int n, double exponent) {
+        if (n <= 0) throw new IllegalArgumentException("n must be positive");
+        if (exponent < 0) throw new IllegalArgumentException("exponent must be >= 0");
+        cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    int next(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cdf.length - 1);
+    }
+}
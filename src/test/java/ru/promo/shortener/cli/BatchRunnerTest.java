@@ -0,0 +1,149 @@
+package ru.promo.shortener.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.core.user.UserIdentityProvider;
+import ru.promo.shortener.core.user.UserRegistry;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+import ru.promo.shortener.infra.RandomShortKeyGenerator;
+import ru.promo.shortener.infra.user.FileUserIdentityProvider;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    private static UserIdentityProvider fixedUser(String uuid) {
+        return new UserIdentityProvider() {
+            public String getCurrentUserUuid() { return uuid; }
+            public String createNewUser() { throw new UnsupportedOperationException(); }
+            public void switchUser(String u) { throw new UnsupportedOperationException(); }
+            public String registerNewUser() { throw new UnsupportedOperationException(); }
+            public void requireKnownUser(String u) { throw new UnsupportedOperationException(); }
+        };
+    }
+
+    // команды над одним ключом выполняются по порядку, вывод идёт в порядке скрипта
+    @Test
+    void script_runsConcurrently_keepsPerKeyOrderAndOutputOrder() throws Exception {
+        InMemoryShortLinkRepository repo = new InMemoryShortLinkRepository();
+        AtomicInteger seq = new AtomicInteger();
+        var service = new ShortLinkService(repo, length -> "K" + seq.incrementAndGet(),
+                new ApplicationConfig(6, 10, 10, 3600, 100, 60));
+        var cli = new ConsoleCli(service, fixedUser("owner-A"));
+
+        StringBuilder script = new StringBuilder();
+        for (int i = 1; i <= 20; i++) {
+            script.append("create https://example.com/").append(i).append('\n');
+        }
+        script.append("list\n");
+        for (int i = 0; i < 5; i++) {
+            script.append("open K1\n");
+        }
+        script.append("set-limit K1 5\n");
+        script.append("open K1\n");
+        script.append("delete K2\n");
+        script.append("open K2\n");
+
+        StringWriter out = new StringWriter();
+        BatchRunner.Summary summary = new BatchRunner(cli, 4)
+                .run(new BufferedReader(new StringReader(script.toString())), out);
+
+        assertEquals(30, summary.commands());
+        assertEquals(2, summary.failed());      // open K1 после исчерпания лимита, open K2 после удаления
+        assertEquals(5, repo.findByShortKey("K1").orElseThrow().getClicks());
+        assertEquals(LinkStatus.EXPIRED_BY_CLICKS, repo.findByShortKey("K1").orElseThrow().getStatus());
+
+        String output = out.toString();
+        assertTrue(output.indexOf("https://example.com/20") < output.indexOf("- K"));
+        assertTrue(output.contains("Deleted K2."));
+        assertTrue(output.contains("=== Batch summary: 30 commands (2 failed)"));
+    }
+
+    // строки с префиксом @<apiKey> выполняются от имени владельца ключа, не меняя сессию скрипта
+    @Test
+    void apiKeyPrefix_runsLineAsKeyOwner() throws Exception {
+        InMemoryShortLinkRepository repo = new InMemoryShortLinkRepository();
+        AtomicInteger seq = new AtomicInteger();
+        var service = new ShortLinkService(repo, length -> "K" + seq.incrementAndGet(),
+                new ApplicationConfig(6, 10, 10, 3600, 100, 60));
+        Map<String, String> keys = Map.of("key-b", "owner-B", "key-c", "owner-C");
+        UserRegistry registry = new UserRegistry() {
+            public String ownerOf(String apiKey) { return keys.get(apiKey); }
+            public String issueKey(String ownerUuid) { throw new UnsupportedOperationException(); }
+        };
+        var cli = new ConsoleCli(service, fixedUser("owner-A"), registry);
+
+        // whoami — барьер: K1 гарантированно достаётся owner-A, а не параллельным create других владельцев
+        String script = """
+                create https://example.com/a
+                @key-c whoami
+                @key-b create https://example.com/b
+                @key-c create https://example.com/c
+                @key-b delete K1
+                @key-x create https://example.com/x
+                whoami
+                login key-b
+                create https://example.com/b2
+                """;
+        StringWriter out = new StringWriter();
+        BatchRunner.Summary summary = new BatchRunner(cli, 4)
+                .run(new BufferedReader(new StringReader(script)), out);
+
+        assertEquals(9, summary.commands());
+        assertEquals(2, summary.failed());      // чужая ссылка и неизвестный ключ
+        assertEquals(1, repo.findByOwnerUuid("owner-A").size());
+        assertEquals(2, repo.findByOwnerUuid("owner-B").size());
+        assertEquals(1, repo.findByOwnerUuid("owner-C").size());
+
+        String output = out.toString();
+        assertTrue(output.contains("Access denied: Unknown API key"));
+        assertTrue(output.indexOf("Current user: owner-C") < output.indexOf("Current user: owner-A"));
+        assertTrue(output.contains("Logged in as: owner-B"));
+    }
+
+    // new-user и switch-user меняют только свою сессию: user.uuid и сессия скрипта остаются прежними
+    @Test
+    void userCommands_areSessionLocal(@TempDir Path dir) throws Exception {
+        var service = new ShortLinkService(new InMemoryShortLinkRepository(), new RandomShortKeyGenerator(),
+                new ApplicationConfig(6, 10, 10, 3600, 100, 60));
+        Path currentUserFile = dir.resolve("user.uuid");
+        try (var users = new FileUserIdentityProvider(currentUserFile, dir.resolve("users.txt"))) {
+            String scriptUser = users.getCurrentUserUuid();
+            String other = users.registerNewUser();
+            UserRegistry registry = new UserRegistry() {
+                public String ownerOf(String apiKey) { return apiKey.equals("key-b") ? other : null; }
+                public String issueKey(String ownerUuid) { throw new UnsupportedOperationException(); }
+            };
+            var cli = new ConsoleCli(service, users, registry);
+
+            String script = "@key-b new-user\n"
+                    + "@key-b switch-user " + scriptUser + "\n"
+                    + "whoami\n"
+                    + "new-user\n"
+                    + "switch-user " + other + "\n"
+                    + "whoami\n";
+            StringWriter out = new StringWriter();
+            BatchRunner.Summary summary = new BatchRunner(cli, 2)
+                    .run(new BufferedReader(new StringReader(script)), out);
+
+            assertEquals(0, summary.failed());
+            String output = out.toString();
+            int firstWhoami = output.indexOf("Current user: ");
+            assertEquals(firstWhoami, output.indexOf("Current user: " + scriptUser));
+            assertTrue(output.indexOf("Current user: " + other, firstWhoami) > firstWhoami);
+            assertEquals(scriptUser, users.getCurrentUserUuid());
+            assertEquals(scriptUser, Files.readString(currentUserFile).trim());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.promo.shortener.core.service;
+
+import org.junit.jupiter.api.Test;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.exceptions.NotFoundException;
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+import ru.promo.shortener.infra.AsyncRepositoryAdapter;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncShortLinkServiceTest {
+
+    private static ShortKeyGenerator seqGenerator(String... keys) {
+        Deque<String> q = new ArrayDeque<>();
+        for (String k : keys) q.addLast(k);
+        return length -> q.isEmpty() ? "ZZZZZZ" : q.removeFirst();
+    }
+
+    // асинхронный сервис над адаптером с пулом: коллизия ключа, лимит кликов и ошибки — как в синхронном
+    @Test
+    void createAndResolveAsync_followSameRules() {
+        InMemoryShortLinkRepository repo = new InMemoryShortLinkRepository();
+        ExecutorService io = Executors.newFixedThreadPool(2);
+        try {
+            var service = new AsyncShortLinkService(new AsyncRepositoryAdapter(repo, io),
+                    seqGenerator("DUPLIC", "DUPLIC", "UNIQ01"),
+                    new ApplicationConfig(6, 10, 10, 3600, 2, 60));
+
+            ShortLink first = service.createAsync("https://a.com", "owner-A").toCompletableFuture().join();
+            ShortLink second = service.createAsync("https://b.com", "owner-A").toCompletableFuture().join();
+            assertEquals("DUPLIC", first.getShortKey());
+            assertEquals("UNIQ01", second.getShortKey());
+
+            assertEquals("https://a.com", service.resolveAsync("DUPLIC").toCompletableFuture().join());
+            assertEquals("https://a.com", service.resolveAsync("DUPLIC").toCompletableFuture().join());
+
+            CompletionException ex = assertThrows(CompletionException.class,
+                    () -> service.resolveAsync("DUPLIC").toCompletableFuture().join());
+            assertInstanceOf(ValidationException.class, ex.getCause());
+            assertEquals(LinkStatus.EXPIRED_BY_CLICKS, repo.findByShortKey("DUPLIC").orElseThrow().getStatus());
+
+            ex = assertThrows(CompletionException.class,
+                    () -> service.resolveAsync("NOPE").toCompletableFuture().join());
+            assertInstanceOf(NotFoundException.class, ex.getCause());
+
+            ex = assertThrows(CompletionException.class,
+                    () -> service.createAsync("ftp://a.com", "owner-A").toCompletableFuture().join());
+            assertInstanceOf(ValidationException.class, ex.getCause());
+        } finally {
+            io.shutdownNow();
+        }
+    }
+
+    // рядом с синхронным сервисом: общая квота владельца, удалённая ссылка отвечает по надгробию
+    @Test
+    void sharesQuotaAndTombstonesWithSyncService() {
+        InMemoryShortLinkRepository repo = new InMemoryShortLinkRepository();
+        OwnerCounters counters = new OwnerCounters();
+        ApplicationConfig config = ApplicationConfig.builder()
+                .initialKeyLength(6)
+                .maxKeyLength(10)
+                .attemptsPerLength(10)
+                .ttlSeconds(3600)
+                .defaultMaxClicks(3)
+                .cleanupIntervalSeconds(60)
+                .ownerActiveLinksQuota(2)
+                .build();
+        var sync = ShortLinkService.builder(repo, seqGenerator("SYNC01", "SYNC01"), config)
+                .ownerCounters(counters)
+                .build();
+        var async = AsyncShortLinkService.builder(new AsyncRepositoryAdapter(repo),
+                        seqGenerator("SYNC01", "ASYN01", "SYNC01", "ASYN02"), config)
+                .ownerCounters(counters)
+                .build();
+
+        sync.create("https://a.com", "owner-A");
+        ShortLink created = async.createAsync("https://b.com", "owner-A").toCompletableFuture().join();
+        assertEquals("ASYN01", created.getShortKey());
+        assertEquals(2, sync.ownerStats("owner-A").getActiveLinks());
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> async.createAsync("https://c.com", "owner-A").toCompletableFuture().join());
+        assertInstanceOf(ValidationException.class, ex.getCause());
+        assertTrue(ex.getCause().getMessage().contains("quota"));
+        assertThrows(ValidationException.class, () -> sync.create("https://c.com", "owner-A"));
+
+        assertTrue(sync.deleteByOwner("SYNC01", "owner-A"));
+        assertEquals(1, sync.ownerStats("owner-A").getActiveLinks());
+        ResolveResult removed = async.resolveResultAsync("SYNC01").toCompletableFuture().join();
+        assertEquals(ResolveResult.Status.INACTIVE, removed.getStatus());
+        assertEquals(LinkStatus.DELETED, removed.getLinkStatus());
+
+        // ключ удалённой ссылки не выдаётся повторно, пока хранится надгробие
+        ShortLink next = async.createAsync("https://d.com", "owner-A").toCompletableFuture().join();
+        assertEquals("ASYN02", next.getShortKey());
+    }
+}
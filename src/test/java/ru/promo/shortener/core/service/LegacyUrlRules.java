@@ -0,0 +1,46 @@
+package ru.promo.shortener.core.service;
+
+import java.net.URI;
+
+/**
+ * Прежняя проверка URL (java.net.URI + regex) — эталон для fuzz-теста и бенчмарка UrlCanonicalizer.
+ */
+public final class LegacyUrlRules {
+
+    private LegacyUrlRules() {
+    }
+
+    public static boolean isValid(String url) {
+        if (url == null || url.isBlank()) {
+            return false;
+        }
+
+        String normalizedUrl = url.trim();
+        if (normalizedUrl.length() > UrlCanonicalizer.MAX_URL_LENGTH) {
+            return false;
+        }
+
+        final URI uri;
+        try {
+            uri = new URI(normalizedUrl);
+        } catch (Exception e) {
+            return false;
+        }
+
+        String scheme = uri.getScheme();
+        if (scheme == null || (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme))) {
+            return false;
+        }
+
+        String host = uri.getHost();
+        if (host == null) {
+            return false;
+        }
+
+        boolean isLocalhost = host.equalsIgnoreCase("localhost");
+        boolean isIpv4 = host.matches("\\d{1,3}(\\.\\d{1,3}){3}");
+        boolean hasDot = host.contains(".");
+
+        return isLocalhost || isIpv4 || hasDot;
+    }
+}
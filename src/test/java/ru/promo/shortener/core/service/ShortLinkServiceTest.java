@@ -10,9 +10,17 @@ import ru.promo.shortener.core.service.exceptions.NotFoundException;
 import ru.promo.shortener.core.service.exceptions.ValidationException;
 import ru.promo.shortener.infra.InMemoryShortLinkRepository;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -195,6 +203,214 @@ class ShortLinkServiceTest {
         assertEquals(LinkStatus.EXPIRED_BY_CLICKS, saved.getStatus());
     }
 
+    // resolveResult: статусы вместо исключений, промахи — общие заранее созданные экземпляры
+    @Test
+    void resolveResult_reportsStatusesWithoutExceptions() {
+        var service = new ShortLinkService(repo, seqGenerator("RES001"),
+                cfg(3600, 3, 6, 10, 10, 60));
+        service.create("https://example.com", "owner-A", 1);
+
+        ResolveResult found = service.resolveResult("RES001");
+        assertTrue(found.isFound());
+        assertEquals("https://example.com", found.getOriginalUrl());
+
+        ResolveResult exhausted = service.resolveResult("RES001");
+        assertEquals(ResolveResult.Status.INACTIVE, exhausted.getStatus());
+        assertEquals(LinkStatus.EXPIRED_BY_CLICKS, exhausted.getLinkStatus());
+        assertNull(exhausted.getOriginalUrl());
+        assertSame(exhausted, service.resolveResult("RES001"));
+
+        assertSame(service.resolveResult("NOPE"), service.resolveResult("NOPE2"));
+        assertEquals(ResolveResult.Status.NOT_FOUND, service.resolveResult("NOPE").getStatus());
+        assertThrows(ValidationException.class, () -> service.resolveResult(" "));
+    }
+
+    // после очистки переход отвечает прежним статусом, а ключ не выдаётся заново
+    @Test
+    void resolveResult_afterCleanup_reportsTombstoneStatus() {
+        var service = new ShortLinkService(repo, seqGenerator("GONE01", "GONE01", "NEXT01"),
+                cfg(3600, 3, 6, 10, 10, 60));
+        service.create("https://example.com", "owner-A", 1);
+        service.resolve("GONE01");
+
+        new ExpiredLinkCleaner(repo).run();
+
+        assertTrue(repo.findByShortKey("GONE01").isEmpty());
+        assertSame(ResolveResult.EXPIRED_CLICKS, service.resolveResult("GONE01"));
+        ValidationException ex = assertThrows(ValidationException.class, () -> service.resolve("GONE01"));
+        assertTrue(ex.getMessage().toLowerCase().contains("click"));
+
+        assertEquals("NEXT01", service.create("https://example.org", "owner-A").getShortKey());
+    }
+
+    // очистка удаляет через исполнитель изменений по своим часам; продлённая до своей очереди ссылка остаётся
+    @Test
+    void cleaner_deletesThroughMutations_andSkipsLinkExtendedBeforeItsTurn() {
+        Instant now = Instant.parse("2026-01-06T10:00:00Z");
+        OwnerCounters counters = new OwnerCounters();
+        var service = ShortLinkService.builder(repo, seqGenerator("OLD001", "EXT001"), cfg(600, 5, 6, 10, 10, 60))
+                .clock(Clock.fixed(now, ZoneOffset.UTC))
+                .ownerCounters(counters)
+                .build();
+        service.create("https://a.com", "owner-A");
+        service.create("https://b.com", "owner-B");
+
+        List<String> mutatedKeys = new ArrayList<>();
+        MutationExecutor mutations = new MutationExecutor() {
+            @Override
+            public <T> T execute(String shortKey, Supplier<T> mutation) {
+                mutatedKeys.add(shortKey);
+                if (shortKey.equals("EXT001")) {
+                    // владелец продлевает срок, пока очистка ждёт очереди этого ключа
+                    service.extendTtlForOwner("owner-B", Duration.ofHours(2));
+                }
+                return mutation.get();
+            }
+        };
+        ExpiredLinkCleaner.builder(repo)
+                .ownerCounters(counters)
+                .mutations(mutations)
+                .clock(Clock.fixed(now.plus(Duration.ofHours(1)), ZoneOffset.UTC))
+                .build()
+                .run();
+
+        assertEquals(Set.of("OLD001", "EXT001"), Set.copyOf(mutatedKeys));
+        assertTrue(repo.findByShortKey("OLD001").isEmpty());
+        assertEquals(LinkStatus.ACTIVE, repo.findByShortKey("EXT001").orElseThrow().getStatus());
+        assertEquals(0, service.ownerStats("owner-A").getActiveLinks());
+        assertEquals(1, service.ownerStats("owner-B").getActiveLinks());
+    }
+
+    // счётчики владельца ведутся на переходах состояния, квота ограничивает активные ссылки
+    @Test
+    void ownerStats_trackTransitions_andQuotaLimitsActiveLinks() {
+        OwnerCounters counters = new OwnerCounters();
+        ApplicationConfig config = ApplicationConfig.builder()
+                .initialKeyLength(6)
+                .maxKeyLength(10)
+                .attemptsPerLength(10)
+                .ttlSeconds(3600)
+                .defaultMaxClicks(3)
+                .cleanupIntervalSeconds(60)
+                .tombstoneRetentionSeconds(3600)
+                .ownerActiveLinksQuota(2)
+                .build();
+        var service = ShortLinkService.builder(repo, seqGenerator("Q1", "Q2", "Q3", "Q4"), config)
+                .ownerCounters(counters)
+                .build();
+
+        service.create("https://a.com", "owner-A", 1);
+        service.create("https://b.com", "owner-A", 5);
+        ValidationException quota = assertThrows(ValidationException.class,
+                () -> service.create("https://c.com", "owner-A"));
+        assertTrue(quota.getMessage().contains("quota"));
+        assertEquals(2, service.ownerStats("owner-A").getActiveLinks());
+
+        service.resolve("Q1");      // последний клик — ссылка истекла, место освободилось
+        service.resolve("Q2");
+        OwnerStats stats = service.ownerStats("owner-A");
+        assertEquals(1, stats.getActiveLinks());
+        assertEquals(1, stats.getExpiredLinks());
+        assertEquals(2, stats.getTotalClicks());
+
+        assertEquals("Q3", service.create("https://c.com", "owner-A").getShortKey());
+
+        ExpiredLinkCleaner.builder(repo)
+                .tombstoneRetention(Duration.ofDays(1))
+                .ownerCounters(counters)
+                .build()
+                .run();
+        assertTrue(service.deleteByOwner("Q2", "owner-A"));
+        stats = service.ownerStats("owner-A");
+        assertEquals(1, stats.getActiveLinks());
+        assertEquals(0, stats.getExpiredLinks());
+        assertEquals(2, stats.getTotalClicks());
+        assertSame(OwnerStats.EMPTY, service.ownerStats("owner-unknown"));
+    }
+
+    // ближайшие истечения: только активные ссылки владельца в окне, по порядку
+    @Test
+    void findExpiringSoon_returnsOwnersActiveLinksInWindow() {
+        Instant now = Instant.parse("2026-01-06T10:00:00Z");
+        repo.save(new ShortLink("SOON2", "https://a.com", "owner-A", now, now.plusSeconds(300), 3));
+        repo.save(new ShortLink("SOON1", "https://a.com", "owner-A", now, now.plusSeconds(60), 3));
+        repo.save(new ShortLink("OTHER", "https://a.com", "owner-B", now, now.plusSeconds(120), 3));
+        repo.save(new ShortLink("LATER", "https://a.com", "owner-A", now, now.plusSeconds(3600), 3));
+        ShortLink spent = new ShortLink("SPENT", "https://a.com", "owner-A", now, now.plusSeconds(30), 1);
+        spent.markExpiredByClicks();
+        repo.save(spent);
+
+        var service = new ShortLinkService(repo, seqGenerator("X"), cfg(3600, 3, 6, 10, 10, 60),
+                Clock.fixed(now, ZoneOffset.UTC));
+
+        assertEquals(List.of("SOON1", "SOON2"), service.findExpiringSoon("owner-A", Duration.ofMinutes(10), 10)
+                .stream().map(ShortLink::getShortKey).toList());
+        assertEquals(1, service.findExpiringSoon("owner-A", Duration.ofMinutes(10), 1).size());
+    }
+
+    // модерация по целевому host: точный host или весь регистрируемый домен
+    @Test
+    void findAndDeleteByTargetHost_usesHostAndDomainIndex() {
+        var service = new ShortLinkService(repo, seqGenerator("H1", "H2", "H3", "H4"),
+                cfg(3600, 3, 6, 10, 10, 60));
+        service.create("https://bad.example.com/a", "owner-A");
+        service.create("HTTPS://BAD.EXAMPLE.COM:443/b", "owner-B");
+        service.create("https://cdn.example.com/c", "owner-A");
+        service.create("https://good.org/d", "owner-A");
+
+        assertEquals(Set.of("H1", "H2"), keys(service.findByTargetHost("Bad.Example.com.", false)));
+        assertEquals(Set.of("H1", "H2", "H3"), keys(service.findByTargetHost("example.com", true)));
+        assertTrue(service.findByTargetHost("example.com", false).isEmpty());
+
+        assertEquals(2, service.deleteByTargetHost("bad.example.com", false));
+        assertEquals(ResolveResult.Status.INACTIVE, service.resolveResult("H1").getStatus());
+        assertEquals(Set.of("H3"), keys(service.findByTargetHost("www.example.com", true)));
+        assertEquals(Set.of("H4"), keys(service.findByTargetHost("good.org", false)));
+    }
+
+    // пакетные операции владельца: лимит и TTL только активных ссылок, удаление всех; счётчики согласованы
+    @Test
+    void ownerBulkOperations_updateOnlyOwnLinks() {
+        Instant now = Instant.parse("2026-01-06T10:00:00Z");
+        OwnerCounters counters = new OwnerCounters();
+        var service = ShortLinkService.builder(repo, seqGenerator("B1", "B2", "B3", "C1"), cfg(600, 5, 6, 10, 10, 60))
+                .clock(Clock.fixed(now, ZoneOffset.UTC))
+                .ownerCounters(counters)
+                .build();
+        service.create("https://a.com/1", "owner-A");
+        service.create("https://a.com/2", "owner-A");
+        service.create("https://a.com/3", "owner-A");
+        service.create("https://c.com", "owner-C");
+        service.resolve("B1");
+        service.resolve("B1");
+
+        // лимит 2 сразу исчерпывает B1; B2/B3 остаются активными
+        assertEquals(3, service.updateMaxClicksForOwner("owner-A", 2));
+        assertEquals(LinkStatus.EXPIRED_BY_CLICKS, repo.findByShortKey("B1").orElseThrow().getStatus());
+        assertEquals(2, repo.findByShortKey("B2").orElseThrow().getMaxClicks());
+        assertEquals(5, repo.findByShortKey("C1").orElseThrow().getMaxClicks());
+        assertEquals(2, service.ownerStats("owner-A").getActiveLinks());
+
+        // продление переставляет ссылки в индексе истечения
+        assertEquals(2, service.extendTtlForOwner("owner-A", Duration.ofHours(1)));
+        assertEquals(now.plusSeconds(600 + 3600), repo.findByShortKey("B2").orElseThrow().getExpiresAt());
+        assertEquals(now.plusSeconds(600), repo.findByShortKey("B1").orElseThrow().getExpiresAt());
+        assertTrue(service.findExpiringSoon("owner-A", Duration.ofMinutes(30), 10).isEmpty());
+        assertEquals(Set.of("B2", "B3"), keys(service.findExpiringSoon("owner-A", Duration.ofMinutes(90), 10)));
+        assertThrows(ValidationException.class, () -> service.extendTtlForOwner("owner-A", Duration.ZERO));
+
+        assertEquals(3, service.deleteAllByOwner("owner-A"));
+        assertTrue(repo.findByOwnerUuid("owner-A").isEmpty());
+        assertEquals(0, service.ownerStats("owner-A").getActiveLinks());
+        assertEquals(0, service.ownerStats("owner-A").getExpiredLinks());
+        assertEquals(ResolveResult.Status.EXPIRED_CLICKS, service.resolveResult("B1").getStatus());
+        assertEquals(1, repo.findByOwnerUuid("owner-C").size());
+    }
+
+    private static Set<String> keys(List<ShortLink> links) {
+        return links.stream().map(ShortLink::getShortKey).collect(Collectors.toSet());
+    }
+
     // блокировка ссылки при истечении времени жизни (TTL)
     @Test
     void resolve_afterTtl_marksExpiredAndBlocks() {
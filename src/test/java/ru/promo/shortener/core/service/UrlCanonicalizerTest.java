@@ -0,0 +1,134 @@
+package ru.promo.shortener.core.service;
+
+import org.junit.jupiter.api.Test;
+import ru.promo.shortener.core.service.UrlCanonicalizer.Verdict;
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+
+import java.net.URI;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlCanonicalizerTest {
+
+    // каноническая форма: схема и host в нижнем регистре, порт по умолчанию убран
+    @Test
+    void canonicalize_lowercasesHostAndStripsDefaultPort() {
+        assertEquals("https://example.com/Path?Q=1",
+                UrlCanonicalizer.canonicalize("  HTTPS://Example.COM:443/Path?Q=1 "));
+        assertEquals("http://example.com/", UrlCanonicalizer.canonicalize("http://example.com:80/"));
+        assertEquals("http://example.com:8080", UrlCanonicalizer.canonicalize("http://Example.com:8080"));
+        assertEquals("http://localhost", UrlCanonicalizer.canonicalize("http://localhost:"));
+        assertEquals("https://user@1.2.3.4:80", UrlCanonicalizer.canonicalize("https://user@1.2.3.4:80"));
+    }
+
+    // неизменный URL возвращается тем же экземпляром строки
+    @Test
+    void canonicalize_alreadyCanonical_returnsSameInstance() {
+        String url = "https://example.com/a?b=c#d";
+        assertSame(url, UrlCanonicalizer.canonicalize(url));
+    }
+
+    // сообщения об ошибках совпадают с прежними
+    @Test
+    void canonicalize_invalid_throwsWithReason() {
+        ValidationException ex = assertThrows(ValidationException.class,
+                () -> UrlCanonicalizer.canonicalize("ftp://example.com"));
+        assertEquals(Verdict.UNSUPPORTED_SCHEME.message(), ex.getMessage());
+
+        assertEquals(Verdict.EMPTY, UrlCanonicalizer.validate("   "));
+        assertEquals(Verdict.INVALID_HOST, UrlCanonicalizer.validate("http://1"));
+        assertEquals(Verdict.TOO_LONG, UrlCanonicalizer.validate("http://a.com/" + "x".repeat(3000)));
+    }
+
+    // host и регистрируемый домен канонического URL
+    @Test
+    void hostOf_andRegistrableDomain() {
+        assertEquals("shop.example.com", UrlCanonicalizer.hostOf("https://user:pw@shop.example.com:8443/a?b#c"));
+        assertEquals("example.com", UrlCanonicalizer.hostOf("http://example.com"));
+        assertEquals("10.0.0.1", UrlCanonicalizer.hostOf("http://10.0.0.1:8080?x"));
+        assertNull(UrlCanonicalizer.hostOf("not a url"));
+
+        assertEquals("example.com", UrlCanonicalizer.registrableDomain("a.b.example.com"));
+        assertEquals("example.co.uk", UrlCanonicalizer.registrableDomain("www.example.co.uk"));
+        assertEquals("localhost", UrlCanonicalizer.registrableDomain("localhost"));
+        assertEquals("10.0.0.1", UrlCanonicalizer.registrableDomain("10.0.0.1"));
+    }
+
+    // fuzz: вердикт совпадает с прежней проверкой через java.net.URI, канонизация сохраняет host и порт
+    @Test
+    void fuzz_equivalentToLegacyRules() {
+        Random random = new Random(20260106L);
+        int valid = 0;
+
+        for (int i = 0; i < 200_000; i++) {
+            String url = randomUrl(random);
+            boolean expected = LegacyUrlRules.isValid(url);
+            boolean actual = UrlCanonicalizer.validate(url) == Verdict.VALID;
+            assertEquals(expected, actual, () -> "verdict mismatch for [" + url + "]");
+
+            if (actual) {
+                valid++;
+                URI original = URI.create(url.trim());
+                URI canonical = URI.create(UrlCanonicalizer.canonicalize(url));
+                assertEquals(original.getHost().toLowerCase(), canonical.getHost(), url);
+                assertEquals(effectivePort(original), effectivePort(canonical), url);
+                assertEquals(original.getRawPath(), canonical.getRawPath(), url);
+                assertEquals(original.getRawQuery(), canonical.getRawQuery(), url);
+            }
+        }
+
+        // генератор должен давать заметную долю валидных URL, иначе сравнение бессмысленно
+        assertTrue(valid > 10_000, "too few valid samples: " + valid);
+    }
+
+    private static int effectivePort(URI uri) {
+        if (uri.getPort() >= 0) return uri.getPort();
+        return "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+
+    private static final String[] SCHEMES = {"http", "https", "HTTP", "hTTps", "ftp", "htp", "https", "http"};
+    private static final String[] SEPARATORS = {"://", "://", "://", "://", ":/", ":", "//", ":///"};
+    private static final String HOST_CHARS = "abcXYZ019-.._@:";
+    private static final String TAIL_CHARS = "aZ09-_.!~*'();:&=+$,/?#@[]%2F %zé|{} \u0080";
+
+    private static String randomUrl(Random random) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextInt(10) == 0) sb.append(' ');
+        sb.append(SCHEMES[random.nextInt(SCHEMES.length)]);
+        sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+
+        if (random.nextInt(8) == 0) {
+            sb.append(pick(random, "user:pw", "u%20x", "a b", "")).append('@');
+        }
+
+        switch (random.nextInt(4)) {
+            case 0 -> sb.append(random.nextInt(300)).append('.').append(random.nextInt(300))
+                    .append('.').append(random.nextInt(300)).append('.').append(random.nextInt(300));
+            case 1 -> sb.append(pick(random, "example.com", "Example.COM", "localhost", "LocalHost",
+                    "a-b.c", "a.1", "1.", "sub.domain.org.", "x", "-a.com", "a-.com"));
+            default -> appendRandom(random, sb, HOST_CHARS, 1 + random.nextInt(10));
+        }
+
+        if (random.nextInt(4) == 0) {
+            sb.append(':').append(pick(random, "", "80", "443", "8080", "0080", "99999999999", "8a"));
+        }
+
+        if (random.nextBoolean()) {
+            sb.append('/');
+            appendRandom(random, sb, TAIL_CHARS, random.nextInt(12));
+        }
+        if (random.nextInt(10) == 0) sb.append('\t');
+        return sb.toString();
+    }
+
+    private static void appendRandom(Random random, StringBuilder sb, String alphabet, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+    }
+
+    private static String pick(Random random, String... options) {
+        return options[random.nextInt(options.length)];
+    }
+}
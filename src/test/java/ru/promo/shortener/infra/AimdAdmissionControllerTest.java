@@ -0,0 +1,107 @@
+package ru.promo.shortener.infra;
+
+import org.junit.jupiter.api.Test;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.service.AdmissionControl.Priority;
+import ru.promo.shortener.core.service.ResolveResult;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.core.service.exceptions.OverloadedException;
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdAdmissionControllerTest {
+
+    private static final long MS = 1_000_000;
+
+    // отчёты отклоняются раньше создания, создание — раньше переходов; отказ сразу, без ожидания
+    @Test
+    void lowerPriorities_areShedFirst() {
+        AtomicLong now = new AtomicLong();
+        AimdAdmissionController admission = new AimdAdmissionController(1, 8, Duration.ofMillis(10), now::get);
+
+        for (int i = 0; i < 4; i++) {
+            admission.acquire(Priority.ADMIN);
+        }
+        assertThrows(OverloadedException.class, () -> admission.acquire(Priority.ADMIN));
+        admission.acquire(Priority.CREATE);
+        admission.acquire(Priority.CREATE);
+        assertThrows(OverloadedException.class, () -> admission.acquire(Priority.CREATE));
+        admission.acquire(Priority.REDIRECT);
+        admission.acquire(Priority.REDIRECT);
+        assertThrows(OverloadedException.class, () -> admission.acquire(Priority.REDIRECT));
+
+        assertEquals(8, admission.inFlight());
+        assertEquals(4, admission.accepted(Priority.ADMIN));
+        assertEquals(1, admission.rejected(Priority.ADMIN));
+        assertEquals(1, admission.rejected(Priority.CREATE));
+        assertEquals(1, admission.rejected(Priority.REDIRECT));
+    }
+
+    // медленные ответы уменьшают предел не чаще раза за интервал, быстрые под нагрузкой — поднимают
+    @Test
+    void limit_backsOffOnSlowResponses_andRecovers() {
+        AtomicLong now = new AtomicLong();
+        AimdAdmissionController admission = new AimdAdmissionController(1, 8, Duration.ofMillis(10), now::get);
+
+        long first = admission.acquire(Priority.REDIRECT);
+        long second = admission.acquire(Priority.REDIRECT);
+        now.addAndGet(20 * MS);
+        admission.release(Priority.REDIRECT, first);
+        admission.release(Priority.REDIRECT, second);
+        assertEquals(7, admission.limit(), "one backoff per latency window");
+
+        for (int i = 0; i < 50; i++) {
+            long permit = admission.acquire(Priority.REDIRECT);
+            now.addAndGet(20 * MS);
+            admission.release(Priority.REDIRECT, permit);
+        }
+        assertEquals(1, admission.limit());
+
+        // медленные отчёты на предел не влияют
+        long report = admission.acquire(Priority.ADMIN);
+        now.addAndGet(100 * MS);
+        admission.release(Priority.ADMIN, report);
+        assertEquals(1, admission.limit());
+
+        for (int i = 0; i < 100; i++) {
+            long permit = admission.acquire(Priority.REDIRECT);
+            now.addAndGet(MS);
+            admission.release(Priority.REDIRECT, permit);
+        }
+        assertTrue(admission.limit() > 1);
+        assertEquals(0, admission.inFlight());
+    }
+
+    // сервис отклоняет запросы сверх предела и освобождает допуск и при ошибке запроса
+    @Test
+    void service_rejectsOverLimit_andReleasesOnFailure() {
+        AtomicLong now = new AtomicLong();
+        AimdAdmissionController admission = new AimdAdmissionController(1, 4, Duration.ofSeconds(1), now::get);
+        ShortLinkService service = ShortLinkService.builder(new InMemoryShortLinkRepository(),
+                        new RandomShortKeyGenerator(), new ApplicationConfig(6, 10, 10, 3600, 10, 60))
+                .admission(admission)
+                .build();
+        String key = service.create("https://example.com", "owner-A").getShortKey();
+
+        long a = admission.acquire(Priority.REDIRECT);
+        long b = admission.acquire(Priority.REDIRECT);
+        long c = admission.acquire(Priority.REDIRECT);
+        assertThrows(OverloadedException.class, () -> service.create("https://example.org", "owner-A"));
+        assertThrows(OverloadedException.class, () -> service.listAll());
+        assertEquals(ResolveResult.Status.FOUND, service.resolveResult(key).getStatus());
+
+        long d = admission.acquire(Priority.REDIRECT);
+        assertThrows(OverloadedException.class, () -> service.resolveResult(key));
+        for (long permit : new long[]{a, b, c, d}) {
+            admission.release(Priority.REDIRECT, permit);
+        }
+
+        assertThrows(ValidationException.class, () -> service.resolveResult("bad key"));
+        assertEquals(0, admission.inFlight());
+        assertEquals(1, service.listAll().size());
+    }
+}
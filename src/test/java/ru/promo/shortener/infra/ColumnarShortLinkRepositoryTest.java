@@ -0,0 +1,119 @@
+package ru.promo.shortener.infra;
+
+import org.junit.jupiter.api.Test;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.model.UrlStem;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.core.service.ShortLinkService;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarShortLinkRepositoryTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-06T10:00:00Z");
+
+    // векторные и скалярные сканы совпадают с индексным репозиторием на нескольких блоках со свободными ячейками
+    @Test
+    void scans_matchIndexedRepository() {
+        ColumnarShortLinkRepository vector = new ColumnarShortLinkRepository(Clock.systemUTC(), ColumnScanner.best());
+        ColumnarShortLinkRepository scalar = ColumnarShortLinkRepository.scalar();
+        InMemoryShortLinkRepository indexed = new InMemoryShortLinkRepository();
+        assertTrue(vector.scannerName().startsWith("vector"), "tests run with jdk.incubator.vector");
+        assertEquals("scalar", scalar.scannerName());
+
+        SplittableRandom random = new SplittableRandom(7);
+        int count = 3 * ColumnarLinkTable.CHUNK_SIZE + 123;
+        for (int i = 0; i < count; i++) {
+            Instant expiresAt = NOW.plusMillis(random.nextLong(-3_600_000, 3_600_000));
+            LinkStatus status = random.nextInt(10) == 0 ? LinkStatus.EXPIRED_BY_CLICKS : LinkStatus.ACTIVE;
+            for (ShortLinkRepository repo : List.of(vector, scalar, indexed)) {
+                repo.save(ShortLink.restore("k" + i, "https://example.com/" + i, "owner-" + (i % 7),
+                        NOW.minusSeconds(60), expiresAt, 10, status == LinkStatus.ACTIVE ? 0 : 10, status,
+                        UrlStem.NONE));
+            }
+        }
+        // свободные ячейки посреди блоков и их переиспользование
+        for (int i = 0; i < count; i += 5) {
+            for (ShortLinkRepository repo : List.of(vector, scalar, indexed)) {
+                repo.deleteByShortKey("k" + i);
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            for (ShortLinkRepository repo : List.of(vector, scalar, indexed)) {
+                repo.save(new ShortLink("n" + i, "https://example.org/" + i, "owner-new", NOW,
+                        NOW.minusSeconds(i), 10));
+            }
+        }
+
+        for (ShortLinkRepository repo : List.of(vector, scalar)) {
+            assertEquals(keys(indexed.findExpired(NOW)), keys(repo.findExpired(NOW)));
+            assertEquals(indexed.countByStatus(), repo.countByStatus());
+            assertEquals(keys(indexed.findAll()), keys(repo.findAll()));
+            assertEquals(indexed.findByOwnerUuid("owner-3").size(), repo.findByOwnerUuid("owner-3").size());
+
+            List<ShortLink> expected = indexed.findExpiringBetween(NOW, NOW.plusSeconds(600), 50);
+            List<ShortLink> actual = repo.findExpiringBetween(NOW, NOW.plusSeconds(600), 50);
+            assertEquals(expected.stream().map(ShortLink::getExpiresAt).toList(),
+                    actual.stream().map(ShortLink::getExpiresAt).toList());
+        }
+    }
+
+    // ссылка, истёкшая внутри текущей миллисекунды, находится так же, как в индексном репозитории
+    @Test
+    void findExpired_includesLinkExpiredWithinCurrentMillisecond() {
+        Instant expiresAt = NOW.plusNanos(300_000);
+        Instant now = NOW.plusNanos(700_000);
+        ColumnarShortLinkRepository columnar = new ColumnarShortLinkRepository();
+        InMemoryShortLinkRepository indexed = new InMemoryShortLinkRepository();
+        for (ShortLinkRepository repo : List.of(columnar, indexed)) {
+            repo.save(new ShortLink("edge", "https://example.com", "owner-A", NOW.minusSeconds(60), expiresAt, 10));
+        }
+
+        assertEquals(Set.of("edge"), keys(indexed.findExpired(now)));
+        assertEquals(Set.of("edge"), keys(columnar.findExpired(now)));
+        assertTrue(columnar.findExpired(NOW).isEmpty());
+    }
+
+    // колонки следуют за переходами, продлением и удалением через сервис
+    @Test
+    void columns_followServiceChanges() {
+        ColumnarShortLinkRepository repo = new ColumnarShortLinkRepository();
+        ShortLinkService service = new ShortLinkService(repo, new RandomShortKeyGenerator(),
+                new ApplicationConfig(6, 10, 10, 60, 2, 60));
+        ShortLink spent = service.create("https://example.com/a", "owner-A");
+        ShortLink extended = service.create("https://example.com/b", "owner-A");
+        ShortLink deleted = service.create("https://example.com/c", "owner-A");
+
+        service.resolve(spent.getShortKey());
+        service.resolve(spent.getShortKey());
+        service.extendTtlForOwner("owner-A", Duration.ofHours(1));
+        service.deleteByOwner(deleted.getShortKey(), "owner-A");
+
+        assertEquals(1, repo.countByStatus().get(LinkStatus.ACTIVE));
+        assertEquals(1, repo.countByStatus().get(LinkStatus.EXPIRED_BY_CLICKS));
+        assertEquals(List.of(spent), repo.findExpired(Instant.now()));
+        // продлённая ссылка не истекает через 2 минуты, в отличие от исходного TTL
+        assertEquals(List.of(spent), repo.findExpired(Instant.now().plusSeconds(120)));
+        assertEquals(List.of(extended),
+                repo.findExpiringBetween(Instant.now().plusSeconds(1800), Instant.now().plusSeconds(7200), 10));
+        assertEquals(LinkStatus.DELETED, repo.findTombstoneStatus(deleted.getShortKey()));
+        // запоздалая запись удалённого объекта ключ не занимает и надгробие не снимает
+        repo.save(deleted);
+        assertNull(repo.findByShortKeyOrNull(deleted.getShortKey()));
+        assertEquals(LinkStatus.DELETED, repo.findTombstoneStatus(deleted.getShortKey()));
+    }
+
+    private static Set<String> keys(List<ShortLink> links) {
+        return links.stream().map(ShortLink::getShortKey).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,56 @@
+package ru.promo.shortener.infra;
+
+import org.junit.jupiter.api.Test;
+import ru.promo.shortener.core.service.ShortKeyGenerator;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeferredShortKeyGeneratorTest {
+
+    // создание не ждёт генератор, первый вызов дожидается его; ошибка создания доходит до вызывающего
+    @Test
+    void firstCall_waitsForBackgroundGenerator() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            DeferredShortKeyGenerator deferred = new DeferredShortKeyGenerator(() -> {
+                awaitQuietly(release);
+                return new ShortKeyGenerator() {
+                    @Override
+                    public String generate(int length) {
+                        return "k".repeat(length);
+                    }
+
+                    @Override
+                    public boolean isCollisionFree() {
+                        return true;
+                    }
+                };
+            }, executor);
+
+            release.countDown();
+            assertEquals("kkk", deferred.generate(3));
+            assertTrue(deferred.isCollisionFree());
+
+            DeferredShortKeyGenerator failing = new DeferredShortKeyGenerator(() -> {
+                throw new IllegalStateException("no entropy");
+            }, executor);
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> failing.generate(6));
+            assertEquals("no entropy", e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package ru.promo.shortener.infra;
 
 import org.junit.jupiter.api.Test;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.OwnerId;
 import ru.promo.shortener.core.model.ShortLink;
 import ru.promo.shortener.core.service.ShortLinkRepository;
 
+import java.time.Clock;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -54,4 +60,118 @@ class InMemoryShortLinkRepositoryTest {
         assertEquals(1, expired.size());
         assertEquals("TTL001", expired.get(0).getShortKey());
     }
+
+    // индекс владельца: замена ссылки с тем же shortKey и удаление корректно обновляют список владельца
+    @Test
+    void ownerIndex_tracksReplaceAndDelete() {
+        ShortLinkRepository repo = new InMemoryShortLinkRepository();
+        Instant now = Instant.parse("2026-01-06T10:00:00Z");
+        String ownerA = "0f8fad5b-d9cb-469f-a165-70867728950e";
+        String ownerB = "7c9e6679-7425-40de-944b-e07fc1f90ae7";
+
+        for (int i = 0; i < 100; i++) {
+            repo.save(new ShortLink("K" + i, "https://a.com/" + i, ownerA, now, now.plusSeconds(60), 3));
+        }
+        assertEquals(100, repo.findByOwnerUuid(ownerA).size());
+        assertEquals(ownerA, repo.findByOwnerUuid(ownerA).get(0).getOwnerUuid());
+
+        // тот же ключ сохраняется новым объектом другого владельца
+        repo.save(new ShortLink("K0", "https://b.com", ownerB, now, now.plusSeconds(60), 3));
+        assertEquals(99, repo.findByOwnerUuid(ownerA).size());
+        assertEquals(1, repo.findByOwnerUuid(ownerB).size());
+
+        for (int i = 1; i < 100; i++) {
+            assertTrue(repo.deleteByShortKey("K" + i));
+        }
+        assertTrue(repo.findByOwnerUuid(ownerA).isEmpty());
+        assertEquals("https://b.com", repo.findByOwnerUuid(ownerB).get(0).getOriginalUrl());
+    }
+
+    // владелец интернирован со строкой; владелец без ссылок не удерживается таблицей интернирования
+    @Test
+    void ownerId_isSharedAndReleasedWithLastLink() throws InterruptedException {
+        ShortLinkRepository repo = new InMemoryShortLinkRepository();
+        Instant now = Instant.parse("2026-01-06T10:00:00Z");
+        String owner = UUID.randomUUID().toString();
+
+        ShortLink first = new ShortLink("K1", "https://a.com", owner, now, now.plusSeconds(60), 3);
+        ShortLink second = new ShortLink("K2", "https://b.com", new String(owner), now, now.plusSeconds(60), 3);
+        assertSame(first.getOwnerId(), second.getOwnerId());
+        assertSame(first.getOwnerUuid(), second.getOwnerUuid());
+        assertSame(first.getOwnerId(), OwnerId.find(owner));
+
+        repo.save(first);
+        repo.save(second);
+        assertTrue(repo.deleteByShortKey("K1"));
+        assertTrue(repo.deleteByShortKey("K2"));
+        first = null;
+        second = null;
+
+        for (int i = 0; i < 50 && OwnerId.find(owner) != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(OwnerId.find(owner));
+        assertTrue(repo.findByOwnerUuid(owner).isEmpty());
+    }
+
+    // удалённая ссылка оставляет надгробие со статусом; его снимают только восстановление из снимка и purge
+    @Test
+    void delete_leavesTombstone_untilRestoredOrPurged() {
+        Instant now = Instant.parse("2026-01-06T10:00:00Z");
+        InMemoryShortLinkRepository repo = new InMemoryShortLinkRepository(Clock.fixed(now, ZoneOffset.UTC));
+
+        for (int i = 0; i < 100; i++) {
+            ShortLink link = new ShortLink("K" + i, "https://example.com/" + i, "owner-A",
+                    now, now.plusSeconds(3600), 3);
+            if (i % 2 == 0) link.markExpiredByClicks();
+            repo.save(link);
+            repo.deleteByShortKey("K" + i);
+            // запоздалая запись удалённого объекта (клик, сброс) ссылку не возвращает
+            repo.save(link);
+        }
+
+        assertEquals(100, repo.tombstoneCount());
+        assertEquals(LinkStatus.EXPIRED_BY_CLICKS, repo.findTombstoneStatus("K0"));
+        assertEquals(LinkStatus.DELETED, repo.findTombstoneStatus("K1"));
+        assertNull(repo.findTombstoneStatus("never-existed"));
+        assertTrue(repo.findByShortKey("K0").isEmpty());
+
+        assertEquals(0, repo.findAll().size());
+
+        repo.restore(new ShortLink("K1", "https://example.com/new", "owner-B", now, now.plusSeconds(3600), 3));
+        assertNull(repo.findTombstoneStatus("K1"));
+        assertEquals(99, repo.tombstoneCount());
+
+        assertEquals(0, repo.purgeTombstones(now));
+        assertEquals(99, repo.purgeTombstones(now.plusSeconds(1)));
+        assertNull(repo.findTombstoneStatus("K0"));
+    }
+
+    // индекс по expiresAt: диапазон в порядке истечения, с лимитом; удаление и замена обновляют индекс
+    @Test
+    void findExpiringBetween_usesExpiryOrderAndTracksChanges() {
+        InMemoryShortLinkRepository repo = new InMemoryShortLinkRepository();
+        Instant base = Instant.parse("2026-01-06T10:00:00Z");
+
+        // вставка в обратном порядке, несколько ссылок внутри одной секунды
+        for (int i = 99; i >= 0; i--) {
+            repo.save(new ShortLink("E" + i, "https://example.com/" + i, "owner-A",
+                    base, base.plusMillis(250L * i), 3));
+        }
+
+        List<ShortLink> window = repo.findExpiringBetween(base.plusMillis(1000), base.plusMillis(3000), 100);
+        assertEquals(List.of("E4", "E5", "E6", "E7", "E8", "E9", "E10", "E11"),
+                window.stream().map(ShortLink::getShortKey).toList());
+
+        assertEquals(3, repo.findExpiringBetween(base, base.plusSeconds(60), 3).size());
+
+        repo.deleteByShortKey("E5");
+        repo.save(new ShortLink("E6", "https://example.com/moved", "owner-A", base, base.plusSeconds(3600), 3));
+        assertEquals(List.of("E4", "E7"), repo.findExpiringBetween(base.plusMillis(1000), base.plusMillis(2000), 10)
+                .stream().map(ShortLink::getShortKey).toList());
+        assertEquals("E6", repo.findExpiringBetween(base.plusSeconds(3000), base.plusSeconds(4000), 10)
+                .get(0).getShortKey());
+        assertTrue(repo.findExpiringBetween(base.plusSeconds(30), base.plusSeconds(30), 10).isEmpty());
+    }
 }
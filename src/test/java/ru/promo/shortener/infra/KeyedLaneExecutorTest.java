@@ -0,0 +1,200 @@
+package ru.promo.shortener.infra;
+
+import org.junit.jupiter.api.Test;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.OwnerCounters;
+import ru.promo.shortener.core.service.ResolveResult;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.core.service.exceptions.AccessDeniedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedLaneExecutorTest {
+
+    // конкурентные переходы по одной ссылке: ровно maxClicks успешных, клики не теряются
+    @Test
+    void concurrentResolves_sameKey_areSerialized() throws Exception {
+        int maxClicks = 5_000;
+        try (KeyedLaneExecutor lanes = new KeyedLaneExecutor(4)) {
+            InMemoryShortLinkRepository repo = new InMemoryShortLinkRepository();
+            ShortLinkService service = ShortLinkService.builder(repo, new RandomShortKeyGenerator(),
+                            new ApplicationConfig(6, 10, 10, 3600, 10, 60))
+                    .mutations(lanes)
+                    .build();
+            ShortLink link = service.create("https://example.com", "owner-A", maxClicks);
+
+            AtomicInteger found = new AtomicInteger();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < 1_000; i++) {
+                        if (service.resolveResult(link.getShortKey()).getStatus() == ResolveResult.Status.FOUND) {
+                            found.incrementAndGet();
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(maxClicks, found.get());
+            assertEquals(maxClicks, link.getClicks());
+            assertEquals(LinkStatus.EXPIRED_BY_CLICKS, link.getStatus());
+            assertEquals(0, lanes.queued());
+            assertTrue(lanes.executed() >= 8_000);
+
+            // исключение изменения доходит до вызывающего с исходным типом
+            assertThrows(AccessDeniedException.class, () -> service.deleteByOwner(link.getShortKey(), "owner-B"));
+        }
+    }
+
+    // пакетное удаление владельца во время переходов: ссылки не возвращаются, счётчики владельца сходятся
+    @Test
+    void bulkDelete_duringResolves_doesNotResurrectLinks() throws Exception {
+        try (KeyedLaneExecutor lanes = new KeyedLaneExecutor(4)) {
+            InMemoryShortLinkRepository repo = new InMemoryShortLinkRepository();
+            OwnerCounters counters = new OwnerCounters();
+            ShortLinkService service = ShortLinkService.builder(repo, new RandomShortKeyGenerator(),
+                            new ApplicationConfig(6, 10, 10, 3600, 10, 60))
+                    .ownerCounters(counters)
+                    .mutations(lanes)
+                    .build();
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                keys.add(service.create("https://example.com/" + i, "owner-A", 3).getShortKey());
+            }
+
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    for (int round = 0; round < 4; round++) {
+                        for (String key : keys) {
+                            service.resolveResult(key);
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            int deleted = service.deleteAllByOwner("owner-A");
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(500, deleted);
+            assertTrue(repo.findAll().isEmpty());
+            assertEquals(500, repo.tombstoneCount());
+            assertEquals(0, service.ownerStats("owner-A").getActiveLinks());
+            assertEquals(0, service.ownerStats("owner-A").getExpiredLinks());
+        }
+    }
+
+    // пакетные операции владельца: одна задача и один пакетный вызов хранилища на дорожку, а не на ссылку
+    @Test
+    void bulkOperations_applyOneBatchPerLane() {
+        AtomicInteger batches = new AtomicInteger();
+        InMemoryShortLinkRepository repo = new InMemoryShortLinkRepository() {
+            @Override
+            public void saveAll(Collection<ShortLink> links) {
+                batches.incrementAndGet();
+                super.saveAll(links);
+            }
+
+            @Override
+            public List<ShortLink> deleteAll(Collection<ShortLink> links) {
+                batches.incrementAndGet();
+                return super.deleteAll(links);
+            }
+
+            @Override
+            public void extendExpiration(Collection<ShortLink> links, Duration extension) {
+                batches.incrementAndGet();
+                super.extendExpiration(links, extension);
+            }
+        };
+        try (KeyedLaneExecutor lanes = new KeyedLaneExecutor(4)) {
+            ShortLinkService service = ShortLinkService.builder(repo, new RandomShortKeyGenerator(),
+                            new ApplicationConfig(6, 10, 10, 3600, 1_000, 60))
+                    .mutations(lanes)
+                    .build();
+            for (int i = 0; i < 200; i++) {
+                service.create("https://example.com/" + i, "owner-A", 3);
+            }
+
+            long executed = lanes.executed();
+            assertEquals(200, service.updateMaxClicksForOwner("owner-A", 5));
+            assertEquals(200, service.extendTtlForOwner("owner-A", Duration.ofHours(1)));
+            assertEquals(200, service.deleteAllByOwner("owner-A"));
+
+            assertTrue(batches.get() <= 3 * lanes.laneCount(), "batches: " + batches.get());
+            assertTrue(lanes.executed() - executed <= 3 * lanes.laneCount());
+            assertTrue(repo.findAll().isEmpty());
+            assertEquals(0, service.ownerStats("owner-A").getActiveLinks());
+        }
+    }
+
+    // вложенный вызов на той же дорожке выполняется сразу; после закрытия изменения отклоняются
+    @Test
+    void reentrantCall_runsInline_closedExecutorRejects() {
+        KeyedLaneExecutor lanes = new KeyedLaneExecutor(2);
+        int value = lanes.execute("abc", () -> lanes.execute("abc", () -> 42));
+        assertEquals(42, value);
+
+        lanes.close();
+        assertThrows(IllegalStateException.class, () -> lanes.execute("abc", () -> 1));
+    }
+
+    // submit не ждёт занятую дорожку: стадию завершает поток дорожки, ошибка изменения — в стадии
+    @Test
+    void submit_doesNotBlockCaller() throws Exception {
+        try (KeyedLaneExecutor lanes = new KeyedLaneExecutor(1)) {
+            CountDownLatch busy = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Thread holder = new Thread(() -> lanes.execute("abc", () -> {
+                busy.countDown();
+                awaitQuietly(release);
+                return null;
+            }));
+            holder.start();
+            busy.await();
+
+            CompletionStage<Integer> submitted =
+                    lanes.submit("abc", () -> CompletableFuture.completedFuture(42));
+            CompletableFuture<Integer> result = submitted.toCompletableFuture();
+            assertFalse(result.isDone());
+
+            release.countDown();
+            assertEquals(42, result.get());
+            holder.join();
+
+            CompletableFuture<Integer> failed = lanes.<Integer>submit("abc", () -> {
+                throw new AccessDeniedException("denied");
+            }).toCompletableFuture();
+            ExecutionException e = assertThrows(ExecutionException.class, failed::get);
+            assertInstanceOf(AccessDeniedException.class, e.getCause());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package ru.promo.shortener.infra;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.ShortLinkRepository;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.core.service.exceptions.ValidationException;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeasedKeyAllocatorTest {
+
+    @TempDir
+    Path dir;
+
+    // два экземпляра на одном файле аренды получают непересекающиеся блоки; ключи не повторяются
+    @Test
+    void twoInstances_neverIssueSameKey() {
+        Path file = dir.resolve("keys.lease");
+        Set<String> keys = new HashSet<>();
+        try (LeasedKeyAllocator a = new LeasedKeyAllocator(file, 6, 1000, Duration.ofMinutes(5), Clock.systemUTC());
+             LeasedKeyAllocator b = new LeasedKeyAllocator(file, 6, 1000, Duration.ofMinutes(5), Clock.systemUTC())) {
+            for (int i = 0; i < 5_000; i++) {
+                String first = a.generate(6);
+                String second = b.generate(6);
+                assertEquals(6, first.length());
+                assertTrue(keys.add(first), "duplicate " + first);
+                assertTrue(keys.add(second), "duplicate " + second);
+            }
+            assertNotEquals(a.currentBlock(), b.currentBlock());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new LeasedKeyAllocator(file, 6, Duration.ofMinutes(5)).generate(7));
+    }
+
+    // освобождённый остаток блока и блок упавшего экземпляра продолжаются без повторов
+    @Test
+    void releasedAndExpiredBlocks_areResumedWithoutReuse() {
+        Path file = dir.resolve("keys.lease");
+        Clock start = Clock.fixed(Instant.parse("2026-01-06T10:00:00Z"), ZoneOffset.UTC);
+        Set<String> keys = new HashSet<>();
+
+        LeasedKeyAllocator released = new LeasedKeyAllocator(file, 6, 100_000, Duration.ofMinutes(1), start);
+        for (int i = 0; i < 10; i++) {
+            keys.add(released.generate(6));
+        }
+        released.release();
+
+        LeasedKeyAllocator crashed = new LeasedKeyAllocator(file, 6, 100_000, Duration.ofMinutes(1), start);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(keys.add(crashed.generate(6)));
+        }
+        assertEquals(0, crashed.currentBlock(), "released block is reused from its last issued key");
+
+        // аренда не продлена: после её истечения блок забирает другой экземпляр
+        Clock later = Clock.offset(start, Duration.ofMinutes(2));
+        LeasedKeyAllocator successor = new LeasedKeyAllocator(file, 6, 100_000, Duration.ofMinutes(1), later);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(keys.add(successor.generate(6)));
+        }
+        assertEquals(0, successor.currentBlock());
+
+        crashed.renew();
+        assertEquals(-1, crashed.currentBlock(), "lost lease must not be renewed");
+    }
+
+    // ключ генератора без коллизий всё равно проверяется: занятый ссылкой или надгробием пропускается
+    @Test
+    void service_checksCollisionFreeKeysAgainstRepositoryAndTombstones() {
+        // тот же номер в блоке — тот же ключ: второй файл аренды воспроизводит ключи первого
+        String[] earlier = new String[3];
+        try (LeasedKeyAllocator previous = new LeasedKeyAllocator(dir.resolve("previous.lease"), 6,
+                Duration.ofMinutes(5))) {
+            for (int i = 0; i < earlier.length; i++) {
+                earlier[i] = previous.generate(6);
+            }
+        }
+        ShortLinkRepository repo = new InMemoryShortLinkRepository();
+        Instant now = Instant.now();
+        repo.save(new ShortLink(earlier[0], "https://a.com", "owner-B", now, now.plusSeconds(3600), 3));
+        repo.save(new ShortLink(earlier[1], "https://b.com", "owner-B", now, now.plusSeconds(3600), 3));
+        repo.deleteByShortKey(earlier[1]);
+
+        ApplicationConfig config = ApplicationConfig.builder()
+                .initialKeyLength(6)
+                .maxKeyLength(6)
+                .attemptsPerLength(10)
+                .ttlSeconds(3600)
+                .defaultMaxClicks(3)
+                .cleanupIntervalSeconds(60)
+                .keyLeasePath(dir.resolve("keys.lease").toString())
+                .build();
+        try (LeasedKeyAllocator allocator = new LeasedKeyAllocator(dir.resolve("keys.lease"), 6,
+                Duration.ofMinutes(5))) {
+            ShortLinkService service = new ShortLinkService(repo, allocator, config);
+            ShortLink link = service.create("https://example.com", "owner-A");
+            assertEquals(earlier[2], link.getShortKey());
+        }
+    }
+
+    // аренда ключей одной длины: конфигурация с увеличением длины отклоняется
+    @Test
+    void leasedKeys_requireFixedKeyLength() {
+        ApplicationConfig config = ApplicationConfig.builder()
+                .initialKeyLength(6)
+                .maxKeyLength(10)
+                .attemptsPerLength(10)
+                .ttlSeconds(3600)
+                .defaultMaxClicks(3)
+                .cleanupIntervalSeconds(60)
+                .keyLeasePath(dir.resolve("keys.lease").toString())
+                .build();
+        try (LeasedKeyAllocator allocator = new LeasedKeyAllocator(dir.resolve("keys.lease"), 6,
+                Duration.ofMinutes(5))) {
+            ValidationException e = assertThrows(ValidationException.class,
+                    () -> new ShortLinkService(new InMemoryShortLinkRepository(), allocator, config));
+            assertTrue(e.getMessage().contains("shortkey.lease.path"));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ru.promo.shortener.infra;
+
+import org.junit.jupiter.api.Test;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.ResolveResult;
+import ru.promo.shortener.core.service.ShortLinkService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindClickRepositoryTest {
+
+    // хранилище, считающее записи кликов
+    private static final class CountingRepository extends InMemoryShortLinkRepository {
+        int clickWrites;
+
+        @Override
+        public void recordClick(ShortLink link) {
+            clickWrites++;
+            super.recordClick(link);
+        }
+    }
+
+    // хранилище, в котором ссылку удаляют ровно между изъятием из таблицы сброса и её записью
+    private static final class DeleteBeforeWriteRepository extends InMemoryShortLinkRepository {
+        @Override
+        public void recordClick(ShortLink link) {
+            deleteByShortKey(link.getShortKey());
+            super.recordClick(link);
+        }
+    }
+
+    // клики копятся до flush и пишутся одной записью; исчерпание лимита пишется сразу
+    @Test
+    void clicksCoalesceUntilFlush_statusTransitionWrittenImmediately() {
+        CountingRepository store = new CountingRepository();
+        WriteBehindClickRepository repo = new WriteBehindClickRepository(store);
+        ShortLinkService service = new ShortLinkService(repo, new RandomShortKeyGenerator(),
+                new ApplicationConfig(6, 10, 10, 3600, 10, 60));
+
+        ShortLink link = service.create("https://example.com", "owner-A", 4);
+        String key = link.getShortKey();
+
+        for (int i = 0; i < 3; i++) {
+            service.resolve(key);
+        }
+        assertEquals(0, store.clickWrites);
+        assertEquals(1, repo.pendingLinks());
+        assertEquals(3, repo.absorbedClicks());
+        assertEquals(3, repo.findByShortKey(key).orElseThrow().getClicks());
+
+        assertEquals(1, repo.flush());
+        assertEquals(1, store.clickWrites);
+        assertEquals(0, repo.pendingLinks());
+
+        // последний разрешённый клик меняет статус — запись без ожидания flush
+        service.resolve(key);
+        assertEquals(2, store.clickWrites);
+        assertEquals(LinkStatus.EXPIRED_BY_CLICKS, store.findByShortKey(key).orElseThrow().getStatus());
+        assertEquals(ResolveResult.Status.INACTIVE, service.resolveResult(key).getStatus());
+
+        assertEquals(0, repo.flush());
+        assertEquals(2, repo.flushedWrites());
+    }
+
+    // удаление отменяет несброшенные клики
+    @Test
+    void delete_dropsPendingClicks() {
+        CountingRepository store = new CountingRepository();
+        WriteBehindClickRepository repo = new WriteBehindClickRepository(store);
+        ShortLinkService service = new ShortLinkService(repo, new RandomShortKeyGenerator(),
+                new ApplicationConfig(6, 10, 10, 3600, 10, 60));
+
+        ShortLink link = service.create("https://example.com", "owner-A", 10);
+        service.resolve(link.getShortKey());
+        assertTrue(service.deleteByOwner(link.getShortKey(), "owner-A"));
+
+        assertEquals(0, repo.pendingLinks());
+        assertTrue(repo.findByShortKey(link.getShortKey()).isEmpty());
+        assertEquals(0, repo.flush());
+        assertEquals(0, store.clickWrites);
+    }
+
+    // удаление, вклинившееся в сброс, не возвращает ссылку и не снимает надгробие
+    @Test
+    void deleteDuringFlush_doesNotResurrectLink() {
+        DeleteBeforeWriteRepository store = new DeleteBeforeWriteRepository();
+        WriteBehindClickRepository repo = new WriteBehindClickRepository(store);
+        ShortLinkService service = new ShortLinkService(repo, new RandomShortKeyGenerator(),
+                new ApplicationConfig(6, 10, 10, 3600, 10, 60));
+
+        ShortLink link = service.create("https://example.com", "owner-A", 10);
+        service.resolve(link.getShortKey());
+        repo.flush();
+
+        assertNull(store.findByShortKeyOrNull(link.getShortKey()));
+        assertEquals(LinkStatus.DELETED, store.findTombstoneStatus(link.getShortKey()));
+        assertEquals(ResolveResult.Status.INACTIVE, service.resolveResult(link.getShortKey()).getStatus());
+        assertTrue(service.listAll().isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package ru.promo.shortener.infra.cdc;
+
+import org.junit.jupiter.api.Test;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+import ru.promo.shortener.infra.RandomShortKeyGenerator;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeFeedTest {
+
+    // жизненный цикл ссылки через сервис даёт упорядоченные события со снимком полей
+    @Test
+    void serviceOperations_publishOrderedEvents() {
+        ChangeFeed feed = new ChangeFeed(64);
+        ChangeFeed.Subscription subscription = feed.subscribe("test");
+        ChangeCapturingShortLinkRepository repo =
+                new ChangeCapturingShortLinkRepository(new InMemoryShortLinkRepository(), feed);
+        ShortLinkService service = new ShortLinkService(repo, new RandomShortKeyGenerator(),
+                new ApplicationConfig(6, 10, 10, 3600, 10, 60));
+
+        String owner = "owner-1";
+        ShortLink link = service.create("https://example.com/a", owner, 5);
+        service.resolve(link.getShortKey());
+        service.updateMaxClicks(link.getShortKey(), owner, 2);
+        service.resolve(link.getShortKey());
+        service.deleteByOwner(link.getShortKey(), owner);
+
+        assertEquals(5, subscription.lag());
+        List<ChangeEvent> events = subscription.poll(100);
+        assertEquals(List.of(ChangeEvent.Type.CREATED, ChangeEvent.Type.CLICKS_UPDATED, ChangeEvent.Type.UPDATED,
+                        ChangeEvent.Type.STATUS_CHANGED, ChangeEvent.Type.DELETED),
+                events.stream().map(ChangeEvent::getType).toList());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i + 1, events.get(i).getSequence());
+            assertEquals(link.getShortKey(), events.get(i).getShortKey());
+        }
+        assertEquals(1, events.get(1).getClicks());
+        assertEquals(2, events.get(2).getMaxClicks());
+        assertEquals(LinkStatus.EXPIRED_BY_CLICKS, events.get(3).getStatus());
+        assertEquals(2, events.get(3).getClicks());
+
+        assertEquals(0, subscription.lag());
+        assertEquals(5, subscription.consumed());
+        assertTrue(subscription.poll(100).isEmpty());
+    }
+
+    // заполненный буфер останавливает публикацию, пока медленный подписчик не прочитает пачку
+    @Test
+    void fullBuffer_blocksPublisherUntilSlowestSubscriberReads() throws Exception {
+        ChangeFeed feed = new ChangeFeed(4);
+        ChangeFeed.Subscription fast = feed.subscribe("fast");
+        ChangeFeed.Subscription slow = feed.subscribe("slow");
+        ShortLink link = new ShortLink("abc123", "https://example.com", "owner",
+                Instant.EPOCH, Instant.EPOCH.plusSeconds(60), 10);
+
+        for (int i = 0; i < 4; i++) {
+            feed.publish(ChangeEvent.Type.CLICKS_UPDATED, link);
+        }
+        assertEquals(4, fast.poll(10).size());
+
+        Thread publisher = new Thread(() -> feed.publish(ChangeEvent.Type.DELETED, link));
+        publisher.start();
+        publisher.join(200);
+        assertTrue(publisher.isAlive(), "publisher must wait for the slow subscriber");
+        assertEquals(4, slow.lag());
+        assertEquals(1, feed.blockedPublishes());
+
+        assertEquals(2, slow.poll(2).size());
+        publisher.join(5_000);
+        assertFalse(publisher.isAlive());
+        assertEquals(5, feed.lastSequence());
+
+        List<ChangeEvent> tail = fast.poll(10, 1, TimeUnit.SECONDS);
+        assertEquals(1, tail.size());
+        assertEquals(ChangeEvent.Type.DELETED, tail.get(0).getType());
+        assertEquals(3, slow.lag());
+
+        // отписка медленного подписчика больше не держит буфер
+        slow.close();
+        for (int i = 0; i < 3; i++) {
+            feed.publish(ChangeEvent.Type.CLICKS_UPDATED, link);
+        }
+        assertEquals(3, fast.poll(10).size());
+    }
+}
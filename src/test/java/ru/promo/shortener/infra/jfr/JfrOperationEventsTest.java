@@ -0,0 +1,123 @@
+package ru.promo.shortener.infra.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.service.ExpiredLinkCleaner;
+import ru.promo.shortener.core.service.OperationEvents;
+import ru.promo.shortener.core.service.OwnerCounters;
+import ru.promo.shortener.core.service.ResolveResult;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+import ru.promo.shortener.infra.RandomShortKeyGenerator;
+import ru.promo.shortener.infra.WriteBehindClickRepository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrOperationEventsTest {
+
+    // операции сервиса, очистки и сброса кликов попадают в запись с полями результата
+    @Test
+    void operations_areRecorded(@TempDir Path dir) throws IOException {
+        OwnerCounters counters = new OwnerCounters();
+        JfrOperationEvents events = new JfrOperationEvents();
+        WriteBehindClickRepository repo = new WriteBehindClickRepository(new InMemoryShortLinkRepository(), events);
+        ShortLinkService service = ShortLinkService.builder(repo, new RandomShortKeyGenerator(),
+                        new ApplicationConfig(6, 10, 10, 3600, 1, 60))
+                .ownerCounters(counters)
+                .events(events)
+                .build();
+
+        Path file = dir.resolve("events.jfr");
+        String key;
+        try (Recording recording = new Recording()) {
+            for (Class<? extends Event> type : List.of(JfrOperationEvents.CreateEvent.class,
+                    JfrOperationEvents.ResolveEvent.class, JfrOperationEvents.KeyGenerationEvent.class,
+                    JfrOperationEvents.CleanupEvent.class, JfrOperationEvents.FlushEvent.class)) {
+                recording.enable(type);
+            }
+            recording.start();
+
+            key = service.create("https://example.com", "owner-A").getShortKey();
+            service.resolveResult(key);
+            service.resolveResult(key);
+            service.resolveResult("missing");
+            repo.flush();
+            ExpiredLinkCleaner.builder(repo)
+                    .tombstoneRetention(Duration.ofDays(1))
+                    .ownerCounters(counters)
+                    .events(events)
+                    .build()
+                    .run();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> recorded = RecordingFile.readAllEvents(file);
+        RecordedEvent create = single(recorded, "ru.promo.shortener.Create");
+        assertEquals(key, create.getString("shortKey"));
+        assertEquals(1, create.getInt("maxClicks"));
+
+        assertEquals(List.of("FOUND", "INACTIVE", "NOT_FOUND"), recorded.stream()
+                .filter(e -> e.getEventType().getName().equals("ru.promo.shortener.Resolve"))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .map(e -> e.getString("outcome"))
+                .toList());
+
+        RecordedEvent keyGeneration = single(recorded, "ru.promo.shortener.KeyGeneration");
+        assertEquals(6, keyGeneration.getInt("length"));
+        assertEquals(1, keyGeneration.getInt("probes"));
+        assertEquals(0, keyGeneration.getInt("escalations"));
+
+        RecordedEvent cleanup = single(recorded, "ru.promo.shortener.Cleanup");
+        assertEquals(1, cleanup.getInt("expired"));
+        assertEquals(1, cleanup.getInt("deleted"));
+        assertTrue(cleanup.getDuration().toNanos() > 0);
+
+        // клик, исчерпавший лимит, пишется сразу — отложенных записей нет, пустой сброс не фиксируется
+        assertTrue(recorded.stream().noneMatch(e -> e.getEventType().getName().equals("ru.promo.shortener.Flush")));
+    }
+
+    // события, не включённые в запись, не фиксируются
+    @Test
+    void disabledEvents_areNotRecorded(@TempDir Path dir) throws IOException {
+        JfrOperationEvents events = new JfrOperationEvents();
+        Path file = dir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(JfrOperationEvents.FlushEvent.class);
+            recording.disable(JfrOperationEvents.ResolveEvent.class);
+            recording.start();
+
+            events.resolved(events.begin(OperationEvents.Operation.RESOLVE), "abc", ResolveResult.Status.FOUND);
+            events.flushed(events.begin(OperationEvents.Operation.FLUSH), "snapshot", 42);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> recorded = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> e.getEventType().getName().startsWith("ru.promo.shortener."))
+                .toList();
+        assertEquals(1, recorded.size());
+        assertEquals("snapshot", recorded.get(0).getString("target"));
+        assertEquals(42, recorded.get(0).getInt("records"));
+    }
+
+    private static RecordedEvent single(List<RecordedEvent> recorded, String name) {
+        List<RecordedEvent> matching = recorded.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
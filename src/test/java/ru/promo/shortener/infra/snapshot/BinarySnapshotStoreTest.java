@@ -0,0 +1,96 @@
+package ru.promo.shortener.infra.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.promo.shortener.core.model.LinkStatus;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.model.UrlStem;
+import ru.promo.shortener.core.service.UrlCodec;
+import ru.promo.shortener.infra.ColumnarShortLinkRepository;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    // снимок восстанавливает все поля ссылок при параллельной загрузке по чанкам
+    @Test
+    void writeAndParallelLoad_restoresLinks() throws IOException {
+        InMemoryShortLinkRepository source = new InMemoryShortLinkRepository();
+        Instant now = Instant.parse("2026-01-06T10:00:00.123456789Z");
+        String uuidOwner = "0f8fad5b-d9cb-469f-a165-70867728950e";
+
+        for (int i = 0; i < 1000; i++) {
+            source.save(ShortLink.restore("K" + i, "https://example.com/p?id=" + i,
+                    i % 2 == 0 ? uuidOwner : "owner-" + i, now, now.plusSeconds(i),
+                    10, i % 11, i % 7 == 0 ? LinkStatus.EXPIRED_BY_CLICKS : LinkStatus.ACTIVE, UrlStem.NONE));
+        }
+
+        BinarySnapshotStore store = new BinarySnapshotStore(dir.resolve("links.snapshot"), UrlCodec.PLAIN, 64);
+        assertEquals(1000, store.write(source));
+
+        InMemoryShortLinkRepository target = new InMemoryShortLinkRepository();
+        assertEquals(1000, store.load(target, 4));
+        assertEquals(1000, target.findAll().size());
+        assertEquals(500, target.findByOwnerUuid(uuidOwner).size());
+
+        ShortLink restored = target.findByShortKey("K7").orElseThrow();
+        assertEquals("https://example.com/p?id=7", restored.getOriginalUrl());
+        assertEquals("owner-7", restored.getOwnerUuid());
+        assertEquals(now, restored.getCreatedAt());
+        assertEquals(now.plusSeconds(7), restored.getExpiresAt());
+        assertEquals(7, restored.getClicks());
+        assertEquals(LinkStatus.EXPIRED_BY_CLICKS, restored.getStatus());
+    }
+
+    // надгробия переживают снимок: удалённый ключ после загрузки отвечает статусом удаления, а не «не найдена»
+    @Test
+    void tombstones_surviveWriteAndLoad() throws IOException {
+        InMemoryShortLinkRepository source = new InMemoryShortLinkRepository();
+        Instant now = Instant.parse("2026-01-06T10:00:00Z");
+        for (int i = 0; i < 100; i++) {
+            source.save(new ShortLink("K" + i, "https://example.com/" + i, "owner-A", now, now.plusSeconds(60), 3));
+        }
+        for (int i = 0; i < 100; i += 3) {
+            assertTrue(source.deleteByShortKey("K" + i));
+        }
+
+        BinarySnapshotStore store = new BinarySnapshotStore(dir.resolve("links.snapshot"), UrlCodec.PLAIN, 16);
+        assertEquals(66, store.write(source));
+
+        ColumnarShortLinkRepository target = new ColumnarShortLinkRepository();
+        assertEquals(66, store.load(target, 2));
+        assertEquals(34, target.tombstoneCount());
+        assertEquals(LinkStatus.DELETED, target.findTombstoneStatus("K0"));
+        assertEquals(LinkStatus.DELETED, target.findTombstoneStatus("K99"));
+        assertNull(target.findTombstoneStatus("K1"));
+        assertTrue(target.findByShortKey("K1").isPresent());
+        assertTrue(target.findByShortKey("K0").isEmpty());
+    }
+
+    // повреждённый чанк обнаруживается по контрольной сумме
+    @Test
+    void corruptedChunk_rejected() throws IOException {
+        InMemoryShortLinkRepository source = new InMemoryShortLinkRepository();
+        Instant now = Instant.parse("2026-01-06T10:00:00Z");
+        source.save(new ShortLink("K1", "https://example.com", "owner-A", now, now.plusSeconds(60), 3));
+
+        Path file = dir.resolve("links.snapshot");
+        BinarySnapshotStore store = new BinarySnapshotStore(file, UrlCodec.PLAIN);
+        store.write(source);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 5] ^= 0x55;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> store.load(new InMemoryShortLinkRepository(), 2));
+    }
+}
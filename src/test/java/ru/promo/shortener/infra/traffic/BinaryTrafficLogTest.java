@@ -0,0 +1,156 @@
+package ru.promo.shortener.infra.traffic;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.promo.shortener.config.ApplicationConfig;
+import ru.promo.shortener.core.service.ShortLinkService;
+import ru.promo.shortener.core.service.TrafficRecorder;
+import ru.promo.shortener.infra.InMemoryShortLinkRepository;
+import ru.promo.shortener.infra.RandomShortKeyGenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTrafficLogTest {
+
+    @TempDir
+    Path dir;
+
+    // события нескольких потоков доходят до файла полностью, порядок внутри потока сохраняется
+    @Test
+    void concurrentWriters_allEventsReadBackInPerThreadOrder() throws Exception {
+        Path file = dir.resolve("traffic.log");
+        int threads = 4;
+        int perThread = 20_000;
+
+        try (BinaryTrafficLog log = new BinaryTrafficLog(file, 1 << 17)) {
+            List<Thread> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                Thread writer = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.onResolve("t" + id + "-" + i, TrafficRecorder.Outcome.values()[i % 6]);
+                    }
+                });
+                writer.start();
+                writers.add(writer);
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+        }
+
+        Map<String, Integer> lastByThread = new HashMap<>();
+        long events = TrafficLogReader.read(file, event -> {
+            String[] parts = event.getShortKey().split("-");
+            int index = Integer.parseInt(parts[1]);
+            Integer previous = lastByThread.put(parts[0], index);
+            assertTrue(previous == null || previous < index, "order broken for " + parts[0]);
+            assertEquals(TrafficRecorder.Op.RESOLVE, event.getOp());
+            assertEquals(TrafficRecorder.Outcome.values()[index % 6], event.getOutcome());
+        });
+        // буфер больше общего числа событий — ничего не отброшено
+        assertEquals((long) threads * perThread, events);
+    }
+
+    // сервис пишет create с лимитом и исходы resolve; повторное открытие дописывает в тот же файл
+    @Test
+    void service_recordsCreateAndResolveOutcomes_appendAcrossRuns() throws IOException {
+        Path file = dir.resolve("traffic.log");
+        ApplicationConfig config = new ApplicationConfig(6, 10, 10, 3600, 100, 60);
+
+        String key;
+        try (BinaryTrafficLog log = new BinaryTrafficLog(file, 1024)) {
+            ShortLinkService service = ShortLinkService.builder(new InMemoryShortLinkRepository(),
+                            new RandomShortKeyGenerator(), config)
+                    .traffic(log)
+                    .build();
+            key = service.create("https://example.com", "owner-1", 1).getShortKey();
+            service.resolve(key);
+            assertThrows(RuntimeException.class, () -> service.resolve(key));
+            assertThrows(RuntimeException.class, () -> service.resolve("missing"));
+        }
+        try (BinaryTrafficLog log = new BinaryTrafficLog(file, 1024)) {
+            log.onResolve("again", TrafficRecorder.Outcome.OK);
+        }
+
+        List<TrafficEvent> events = new ArrayList<>();
+        TrafficLogReader.read(file, events::add);
+
+        assertEquals(5, events.size());
+        assertEquals(TrafficRecorder.Op.CREATE, events.get(0).getOp());
+        assertEquals(key, events.get(0).getShortKey());
+        assertEquals(1, events.get(0).getMaxClicks());
+        assertEquals(TrafficRecorder.Outcome.OK, events.get(1).getOutcome());
+        assertEquals(TrafficRecorder.Outcome.INACTIVE, events.get(2).getOutcome());
+        assertEquals(TrafficRecorder.Outcome.NOT_FOUND, events.get(3).getOutcome());
+        assertEquals("again", events.get(4).getShortKey());
+        assertTrue(events.get(4).getTimeMicros() >= events.get(0).getTimeMicros());
+    }
+
+    // ошибка записи не роняет сервис: запоминается, события отбрасываются и учитываются
+    @Test
+    void writeFailure_isExposedAndEventsCountedAsDropped() throws IOException {
+        Path file = dir.resolve("traffic.log");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+        BinaryTrafficLog log = new BinaryTrafficLog(channel, file, 1024);
+        channel.close();
+
+        log.onCreate("first", 3);
+        log.onResolve("first", TrafficRecorder.Outcome.OK);
+        log.close();
+        log.onResolve("late", TrafficRecorder.Outcome.OK);
+
+        assertInstanceOf(IOException.class, log.failure());
+        assertEquals(0, log.written());
+        assertEquals(3, log.dropped());
+    }
+
+    // close дожидается записи и в прерванном потоке
+    @Test
+    void close_inInterruptedThread_writesPendingEvents() throws IOException {
+        Path file = dir.resolve("traffic.log");
+        BinaryTrafficLog log = new BinaryTrafficLog(file, 1024);
+        for (int i = 0; i < 100; i++) {
+            log.onResolve("k" + i, TrafficRecorder.Outcome.OK);
+        }
+        Thread.currentThread().interrupt();
+        try {
+            log.close();
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertEquals(100, TrafficLogReader.read(file, event -> { }));
+    }
+
+    // недописанный хвост (обрыв при записи) игнорируется и затирается при следующем открытии
+    @Test
+    void truncatedTail_isIgnoredAndOverwritten() throws IOException {
+        Path file = dir.resolve("traffic.log");
+        try (BinaryTrafficLog log = new BinaryTrafficLog(file, 1024)) {
+            log.onCreate("first", 3);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 1, 0, 42}), channel.size());
+        }
+        assertEquals(1, TrafficLogReader.read(file, event -> { }));
+
+        try (BinaryTrafficLog log = new BinaryTrafficLog(file, 1024)) {
+            log.onCreate("second", 3);
+        }
+        List<TrafficEvent> events = new ArrayList<>();
+        TrafficLogReader.read(file, events::add);
+        assertEquals(List.of("first", "second"), events.stream().map(TrafficEvent::getShortKey).toList());
+    }
+}
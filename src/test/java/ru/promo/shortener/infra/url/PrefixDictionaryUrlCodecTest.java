@@ -0,0 +1,62 @@
+package ru.promo.shortener.infra.url;
+
+import org.junit.jupiter.api.Test;
+import ru.promo.shortener.core.model.ShortLink;
+import ru.promo.shortener.core.model.UrlStem;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixDictionaryUrlCodecTest {
+
+    private static ShortLink link(String url, UrlStem stem) {
+        Instant now = Instant.parse("2026-01-06T10:00:00Z");
+        return new ShortLink("K1", url, "owner-A", now, now.plusSeconds(60), 3, stem);
+    }
+
+    // ссылки с одинаковым host+путь разделяют один stem, URL восстанавливается без потерь
+    @Test
+    void sameHostAndPath_shareStem_andRoundTrip() {
+        var codec = new PrefixDictionaryUrlCodec(100, 0);
+
+        String a = "https://shop.example.com/catalog/item?id=1";
+        String b = "https://shop.example.com/catalog/item?id=2#top";
+
+        UrlStem stemA = codec.stemFor(a);
+        assertSame(stemA, codec.stemFor(b));
+        assertEquals("https://shop.example.com/catalog/", stemA.prefix());
+
+        assertEquals(a, link(a, stemA).getOriginalUrl());
+        assertEquals(b, link(b, codec.stemFor(b)).getOriginalUrl());
+        assertEquals("https://example.com", link("https://example.com", codec.stemFor("https://example.com")).getOriginalUrl());
+    }
+
+    // длинные хвосты сжимаются preset-словарём и восстанавливаются, включая не-ASCII символы
+    @Test
+    void longTail_isDeflated_andRoundTrips() {
+        var codec = new PrefixDictionaryUrlCodec(100, 32);
+
+        String url = "https://example.com/p/?utm_source=newsletter&utm_medium=email&utm_campaign=spring"
+                + "&utm_content=banner&utm_term=шоколад&id=12345&id=12345&id=12345";
+        UrlStem stem = codec.stemFor(url);
+
+        byte[] tail = stem.encode(url);
+        assertEquals(0, tail[0], "tail should be stored compressed");
+        assertTrue(tail.length < url.length() - stem.prefix().length());
+        assertEquals(url, link(url, stem).getOriginalUrl());
+    }
+
+    // после заполнения словаря новые префиксы не интернируются, но URL по-прежнему восстанавливается
+    @Test
+    void fullDictionary_fallsBackToRootStem() {
+        var codec = new PrefixDictionaryUrlCodec(1, 0);
+
+        codec.stemFor("https://a.com/x/1");
+        UrlStem other = codec.stemFor("https://b.com/y/2");
+
+        assertEquals("", other.prefix());
+        assertEquals(1, codec.size());
+        assertEquals("https://b.com/y/2", link("https://b.com/y/2", other).getOriginalUrl());
+    }
+}
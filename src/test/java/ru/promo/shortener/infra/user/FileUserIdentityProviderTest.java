@@ -0,0 +1,71 @@
+package ru.promo.shortener.infra.user;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileUserIdentityProviderTest {
+
+    @TempDir
+    Path dir;
+
+    // параллельная регистрация: каждая строка дописана ровно один раз, журнал читается после перезапуска
+    @Test
+    void concurrentCreate_appendsOneLinePerUser_andSurvivesRestart() throws Exception {
+        Path current = dir.resolve("user.uuid");
+        Path users = dir.resolve("users.txt");
+
+        List<String> created = new ArrayList<>();
+        try (var provider = new FileUserIdentityProvider(current, users)) {
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(pool.submit(provider::createNewUser));
+            }
+            for (Future<String> f : futures) {
+                created.add(f.get());
+            }
+            pool.shutdown();
+        }
+
+        // 200 новых + пользователь, созданный при первом запуске
+        assertEquals(201, Files.readAllLines(users).size());
+
+        // недописанная строка (сбой во время записи) игнорируется
+        Files.writeString(users, "0f8fad5b-d9cb", java.nio.file.StandardOpenOption.APPEND);
+
+        try (var restarted = new FileUserIdentityProvider(current, users)) {
+            for (String uuid : created) {
+                assertTrue(restarted.isKnownUser(uuid));
+            }
+            restarted.switchUser(created.get(0));
+            assertEquals(created.get(0), restarted.getCurrentUserUuid());
+            assertThrows(IllegalArgumentException.class,
+                    () -> restarted.switchUser("7c9e6679-7425-40de-944b-e07fc1f90ae7"));
+
+            String next = restarted.createNewUser();
+            assertTrue(Files.readAllLines(users).contains(next));
+        }
+    }
+
+    // пользователь, не записанный надёжно, не регистрируется и в памяти
+    @Test
+    void failedAppend_doesNotRegisterUser() {
+        var provider = new FileUserIdentityProvider(dir.resolve("user.uuid"), dir.resolve("users.txt"));
+        provider.registerNewUser();
+        provider.close();
+
+        assertThrows(UncheckedIOException.class, provider::registerNewUser);
+        assertEquals(2, provider.size());
+    }
+}
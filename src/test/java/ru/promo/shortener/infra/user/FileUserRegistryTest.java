@@ -0,0 +1,90 @@
+package ru.promo.shortener.infra.user;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileUserRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    // параллельная выдача ключей: каждый ключ находит своего владельца, в том числе после перезапуска
+    @Test
+    void concurrentIssue_resolvesOwners_andSurvivesRestart() throws Exception {
+        Path file = dir.resolve("api-keys.txt");
+        String ownerA = UUID.randomUUID().toString();
+        String ownerB = UUID.randomUUID().toString();
+
+        List<String> keysA = new ArrayList<>();
+        List<String> keysB = new ArrayList<>();
+        try (var registry = new FileUserRegistry(file)) {
+            ExecutorService pool = Executors.newFixedThreadPool(4);
+            List<Future<String>> futuresA = new ArrayList<>();
+            List<Future<String>> futuresB = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                futuresA.add(pool.submit(() -> registry.issueKey(ownerA)));
+                futuresB.add(pool.submit(() -> registry.issueKey(ownerB)));
+            }
+            for (int i = 0; i < 100; i++) {
+                keysA.add(futuresA.get(i).get());
+                keysB.add(futuresB.get(i).get());
+            }
+            pool.shutdown();
+
+            assertEquals(200, registry.size());
+            assertNull(registry.ownerOf("no-such-key"));
+            assertNull(registry.ownerOf(null));
+            assertThrows(IllegalArgumentException.class, () -> registry.issueKey("not-a-uuid"));
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(200, lines.size());
+        // в файле только хэши: ни один выданный ключ не записан открытым текстом
+        String content = String.join("\n", lines);
+        for (String key : keysA) {
+            assertFalse(content.contains(key));
+        }
+        // недописанная строка (сбой во время записи) игнорируется
+        Files.writeString(file, "abc", StandardOpenOption.APPEND);
+
+        try (var restarted = new FileUserRegistry(file)) {
+            assertEquals(200, restarted.size());
+            for (String key : keysA) {
+                assertEquals(ownerA, restarted.ownerOf(key));
+            }
+            for (String key : keysB) {
+                assertEquals(ownerB, restarted.ownerOf(key));
+            }
+            // один объект UUID на владельца, сколько бы ключей у него ни было
+            assertSame(restarted.ownerOf(keysA.get(0)), restarted.ownerOf(keysA.get(99)));
+
+            String next = restarted.issueKey(ownerA);
+            assertEquals(ownerA, restarted.ownerOf(next));
+        }
+    }
+
+    // ключ, не записанный надёжно, не выдаётся и не действует
+    @Test
+    void failedAppend_doesNotRegisterKey() {
+        var registry = new FileUserRegistry(dir.resolve("api-keys.txt"));
+        String owner = UUID.randomUUID().toString();
+        registry.issueKey(owner);
+        registry.close();
+
+        assertThrows(UncheckedIOException.class, () -> registry.issueKey(owner));
+        assertEquals(1, registry.size());
+    }
+}